@@ -0,0 +1,60 @@
+package tetris.bench;
+
+import org.openjdk.jmh.annotations.*;
+import tetris.Block;
+import tetris.PieceGenerator;
+import tetris.PieceQueue;
+import tetris.TetrisEngine;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 方块游标与方块序列：原地旋转、引擎里带碰撞检测的旋转，
+ * 以及取代 Block.randomBlock() 的两种生成器和预览队列。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BlockBenchmark {
+    private final Block block = new Block(6);
+    private final PieceGenerator uniform = PieceGenerator.uniform(42);
+    private final PieceGenerator bag = PieceGenerator.bag(42);
+    private final PieceQueue queue = new PieceQueue(PieceGenerator.bag(42), 5);
+    private TetrisEngine engine;
+
+    @Setup
+    public void setUp() {
+        queue.reset(42);
+        engine = new TetrisEngine();
+        engine.start(42);
+    }
+
+    @Benchmark
+    public int rotateCursor() {
+        block.rotateClockwise();
+        return block.rotation;
+    }
+
+    @Benchmark
+    public boolean rotateInEngine() {
+        return engine.rotate();
+    }
+
+    @Benchmark
+    public int uniformNext() {
+        return uniform.next();
+    }
+
+    @Benchmark
+    public int bagNext() {
+        return bag.next();
+    }
+
+    @Benchmark
+    public int queuePoll() {
+        return queue.poll();
+    }
+}
@@ -0,0 +1,96 @@
+package tetris.bench;
+
+import org.openjdk.jmh.annotations.*;
+import tetris.Block;
+import tetris.Board;
+import tetris.PieceGenerator;
+import tetris.SplitMix64;
+import tetris.TetrisEngine;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 棋盘热点：碰撞检测和消行。消行在不同填充率、不同满行数的棋盘上测，
+ * 每次调用前从模板复制棋盘，copyOnly 给出复制本身的开销以便扣除。
+ * checkLinesLocal 只检查底部 4 行，对应固定方块后的增量消行。
+ * dropDistance 测出生位置的硬降落点，即每帧绘制幽灵方块的开销。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BoardBenchmark {
+    // 非满行里每个格子被占用的概率（百分比）
+    @Param({"0", "30", "60", "90"})
+    public int fillPercent;
+
+    // 棋盘底部满行的数量
+    @Param({"0", "1", "4"})
+    public int fullRows;
+
+    // 棋盘高度，宽度取 64 以上时每行跨多个字
+    @Param({"20", "1000"})
+    public int height;
+
+    @Param({"10", "100"})
+    public int width;
+
+    private Board template;
+    private Board board;
+    private TetrisEngine engine;
+    private Block block;
+    private int dx;
+
+    @Setup
+    public void setUp() {
+        template = new Board(width, height);
+        board = new Board(width, height);
+        SplitMix64 random = new SplitMix64(42);
+        // 上面 4 行留空，保证出生位置可以移动
+        for (int y = 4; y < height; y++) {
+            boolean full = y >= height - fullRows;
+            for (int x = 0; x < width; x++) {
+                if (full || random.nextInt(100) < fillPercent) {
+                    template.set(x, y, 1 + random.nextInt(Block.SHAPE_COUNT));
+                }
+            }
+        }
+
+        engine = new TetrisEngine(PieceGenerator.uniform(42), 1, width, height);
+        engine.start(42);
+        engine.getBoard().copyFrom(template);
+        block = engine.getCurrentBlock();
+    }
+
+    @Benchmark
+    public boolean canMove() {
+        // 轮流检测左、右、下三个方向
+        dx = dx == 1 ? -1 : dx + 1;
+        return engine.canMove(block, dx, dx == 0 ? 1 : 0);
+    }
+
+    @Benchmark
+    public int dropDistance() {
+        return engine.getGhostY();
+    }
+
+    @Benchmark
+    public int checkLines() {
+        board.copyFrom(template);
+        return board.clearFullRows();
+    }
+
+    @Benchmark
+    public int checkLinesLocal() {
+        board.copyFrom(template);
+        return board.clearFullRows(height - 4, height - 1);
+    }
+
+    @Benchmark
+    public Board copyOnly() {
+        board.copyFrom(template);
+        return board;
+    }
+}
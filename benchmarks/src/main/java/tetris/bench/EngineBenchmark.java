@@ -0,0 +1,61 @@
+package tetris.bench;
+
+import org.openjdk.jmh.annotations.*;
+import tetris.Placement;
+import tetris.RandomPolicy;
+import tetris.TetrisEngine;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 引擎的整步操作：硬降（含固定、消行和生成新方块）和重力步。
+ * 游戏结束后立即用下一个种子重开，重开的开销摊在所有调用里。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EngineBenchmark {
+    private TetrisEngine engine;
+    private final RandomPolicy policy = new RandomPolicy(42);
+    private final Placement placement = new Placement();
+    private long seed;
+
+    @Setup
+    public void setUp() {
+        engine = new TetrisEngine();
+        engine.start(seed);
+    }
+
+    private void restartIfOver() {
+        if (engine.isGameOver()) {
+            engine.start(++seed);
+        }
+    }
+
+    // 原地硬降，棋盘很快堆满，主要测固定和重开
+    @Benchmark
+    public int hardDrop() {
+        restartIfOver();
+        engine.hardDrop();
+        return engine.getPiecesPlaced();
+    }
+
+    // 随机落点再硬降，棋盘更接近真实对局，会发生消行
+    @Benchmark
+    public int placeRandom() {
+        restartIfOver();
+        if (!policy.choose(engine, placement) || !engine.place(placement)) {
+            engine.hardDrop();
+        }
+        return engine.getPiecesPlaced();
+    }
+
+    @Benchmark
+    public boolean tick() {
+        restartIfOver();
+        return engine.tick();
+    }
+}
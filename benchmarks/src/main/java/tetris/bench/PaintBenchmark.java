@@ -0,0 +1,73 @@
+package tetris.bench;
+
+import org.openjdk.jmh.annotations.*;
+import tetris.Placement;
+import tetris.RandomPolicy;
+import tetris.TetrisEngine;
+import tetris.TetrisPanel;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 离屏绘制：把面板画进 BufferedImage，不创建窗口也不启动计时器。
+ * 棋盘先用随机落点下到半满，full 重绘整块面板，pieceRows 只重绘活动方块所在的几行。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class PaintBenchmark {
+    @Param({"20", "30", "40"})
+    public int blockSize;
+
+    private TetrisPanel panel;
+    private BufferedImage image;
+    private Graphics2D graphics;
+    private int pieceTop;
+    private int pieceHeight;
+
+    @Setup
+    public void setUp() {
+        TetrisEngine engine = new TetrisEngine();
+        engine.start(42);
+        RandomPolicy policy = new RandomPolicy(42);
+        Placement placement = new Placement();
+        while (engine.getPiecesPlaced() < 40 && !engine.isGameOver()) {
+            if (!policy.choose(engine, placement) || !engine.place(placement)) {
+                engine.hardDrop();
+            }
+        }
+
+        panel = new TetrisPanel(engine);
+        int width = (TetrisEngine.BOARD_WIDTH + 5) * blockSize;
+        int height = TetrisEngine.BOARD_HEIGHT * blockSize;
+        panel.setSize(width, height);
+        image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        graphics = image.createGraphics();
+        pieceTop = (engine.getCurrentBlock().y - 1) * blockSize;
+        pieceHeight = 4 * blockSize;
+    }
+
+    @TearDown
+    public void tearDown() {
+        graphics.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage full() {
+        graphics.setClip(null);
+        panel.paint(graphics);
+        return image;
+    }
+
+    @Benchmark
+    public BufferedImage pieceRows() {
+        graphics.setClip(0, Math.max(0, pieceTop), image.getWidth(), pieceHeight);
+        panel.paint(graphics);
+        return image;
+    }
+}
@@ -0,0 +1,85 @@
+package tetris;
+
+import java.nio.ByteBuffer;
+
+// 7-bag 方块序列：把 7 种形状洗牌后依次发出，发完再洗下一袋
+public class BagGenerator implements PieceGenerator {
+    private final SplitMix64 random;
+    private final int[] bag = new int[Block.SHAPE_COUNT];
+    private int position;
+
+    public BagGenerator(long seed) {
+        random = new SplitMix64(seed);
+        position = bag.length;
+    }
+
+    @Override
+    public int getType() {
+        return TYPE_BAG;
+    }
+
+    @Override
+    public int next() {
+        if (position == bag.length) {
+            shuffle();
+        }
+        return bag[position++];
+    }
+
+    @Override
+    public void reset(long seed) {
+        random.setState(seed);
+        position = bag.length;
+    }
+
+    // 随机数状态、袋中位置和当前这一袋的顺序
+    @Override
+    public void writeState(ByteBuffer out) {
+        out.putLong(random.getState());
+        out.put((byte) position);
+        for (int shape : bag) {
+            out.put((byte) shape);
+        }
+    }
+
+    // 数据不合法时抛出 IllegalStateException，由 SaveFile.decode() 转成存档损坏的 IOException
+    @Override
+    public void readState(ByteBuffer in) {
+        long state = in.getLong();
+        int restored = in.get();
+        if (restored < 0 || restored > bag.length) {
+            throw new IllegalStateException("存档损坏: 袋中位置 " + restored);
+        }
+        int[] shapes = new int[bag.length];
+        int seen = 0;
+        for (int i = 0; i < shapes.length; i++) {
+            int shape = in.get();
+            if (shape < 0 || shape >= Block.SHAPE_COUNT) {
+                throw new IllegalStateException("存档损坏: 袋中形状 " + shape);
+            }
+            shapes[i] = shape;
+            seen |= 1 << shape;
+        }
+        // 发完的袋子下次 next() 会重新洗牌，内容不用；还没发完的必须是 7 种形状的一个排列
+        if (restored < bag.length && seen != (1 << Block.SHAPE_COUNT) - 1) {
+            throw new IllegalStateException("存档损坏: 袋中形状不是一个排列");
+        }
+        random.setState(state);
+        position = restored;
+        System.arraycopy(shapes, 0, bag, 0, bag.length);
+    }
+
+    // Fisher-Yates 洗牌
+    private void shuffle() {
+        for (int i = 0; i < bag.length; i++) {
+            bag[i] = i;
+        }
+        for (int i = bag.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = bag[i];
+            bag[i] = bag[j];
+            bag[j] = tmp;
+        }
+        position = 0;
+    }
+}
@@ -0,0 +1,258 @@
+package tetris;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * 命令行批量自对弈：在所有核心上并行跑 M 个方块序列种子 × 每个种子 K 局，输出吞吐量和分布统计。
+ * 同一种子的 K 局方块序列相同，只有策略自身的随机数不同；确定性的策略（search）
+ * 在同一序列上只会重复同一局，因此每个种子只跑 1 局。
+ * 用于在规则改动（消行提速、难度参数等）后做大规模回归。
+ *
+ * 用法: java tetris.BatchRunner [--games K] [--seeds M] [--seed 起始种子]
+ *                                [--policy random|search] [--difficulty EASY|MEDIUM|HARD]
+ *                                [--bag] [--max-pieces N] [--threads T] [--export 文件]
+ * --export 把每一手的棋盘、方块和落点导出成训练数据，格式见 TrainingDataWriter。
+ */
+public class BatchRunner {
+
+    // 单局结果
+    public static final class GameResult {
+        public final long seed;
+        public final int score;
+        public final int lines;
+        public final int pieces;
+        public final int finalDropInterval;
+        public final boolean gameOver;   // false 表示跑到方块上限时还活着
+        public final int stackHeight;    // 结束时的堆叠高度
+        public final int holes;          // 结束时的空洞数
+
+        public GameResult(long seed, int score, int lines, int pieces, int finalDropInterval,
+                          boolean gameOver, int stackHeight, int holes) {
+            this.seed = seed;
+            this.score = score;
+            this.lines = lines;
+            this.pieces = pieces;
+            this.finalDropInterval = finalDropInterval;
+            this.gameOver = gameOver;
+            this.stackHeight = stackHeight;
+            this.holes = holes;
+        }
+    }
+
+    private int games = 10;
+    private int seeds = 10;
+    private long baseSeed = 1;
+    private String policyName = "random";
+    private Difficulty difficulty = Difficulty.EASY;
+    private boolean bag = false;
+    private int maxPieces = 100_000;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private Path exportFile;
+    private TrainingDataWriter exporter;
+    // 每个工作线程一个导出会话，跨对局复用，样本攒满一块才交给后台
+    private final ThreadLocal<TrainingDataWriter.Session> sessions = new ThreadLocal<>();
+
+    public static void main(String[] args) throws Exception {
+        BatchRunner runner = new BatchRunner();
+        runner.parseArgs(args);
+        runner.run();
+    }
+
+    private void parseArgs(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--games":
+                    games = Integer.parseInt(args[++i]);
+                    break;
+                case "--seeds":
+                    seeds = Integer.parseInt(args[++i]);
+                    break;
+                case "--seed":
+                    baseSeed = Long.parseLong(args[++i]);
+                    break;
+                case "--policy":
+                    policyName = args[++i];
+                    break;
+                case "--difficulty":
+                    difficulty = Difficulty.valueOf(args[++i].toUpperCase());
+                    break;
+                case "--bag":
+                    bag = true;
+                    break;
+                case "--max-pieces":
+                    maxPieces = Integer.parseInt(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--export":
+                    exportFile = Paths.get(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("未知参数: " + args[i]);
+            }
+        }
+    }
+
+    // 按名字创建策略，seed 用于策略自身的随机性
+    public static PlacementPolicy createPolicy(String name, long seed) {
+        switch (name) {
+            case "random":
+                return new RandomPolicy(seed);
+            case "search":
+                return new SearchPolicy();
+            default:
+                throw new IllegalArgumentException("未知策略: " + name);
+        }
+    }
+
+    /**
+     * 无界面地玩完一局（或达到方块上限）。
+     */
+    public static GameResult playGame(PlacementPolicy policy, PieceGenerator generator,
+                                      Difficulty difficulty, long seed, int maxPieces) {
+        return playGame(policy, generator, difficulty, seed, maxPieces, null);
+    }
+
+    /**
+     * @param exporter 训练数据导出会话，null 表示不导出
+     */
+    public static GameResult playGame(PlacementPolicy policy, PieceGenerator generator, Difficulty difficulty,
+                                      long seed, int maxPieces, TrainingDataWriter.Session exporter) {
+        TetrisEngine engine = new TetrisEngine(generator, 1);
+        engine.setDifficulty(difficulty);
+        engine.setExporter(exporter);
+        engine.start(seed);
+        Placement placement = new Placement();
+        while (!engine.isGameOver() && engine.getPiecesPlaced() < maxPieces) {
+            if (!policy.choose(engine, placement) || !engine.place(placement)) {
+                engine.hardDrop();
+            }
+        }
+        Board board = engine.getBoard();
+        return new GameResult(seed, engine.getScore(), engine.getLinesCleared(),
+                engine.getPiecesPlaced(), engine.getDropInterval(), engine.isGameOver(),
+                board.getHeight() - board.getTop(), board.getHoles());
+    }
+
+    private GameResult playOne(int index) {
+        // 第 m 个种子决定方块序列，第 k 局决定策略自身的随机数
+        int m = index / games;
+        int k = index % games;
+        long seed = pieceSeed(baseSeed, m);
+        PieceGenerator generator = bag ? PieceGenerator.bag(seed) : PieceGenerator.uniform(seed);
+        PlacementPolicy policy = createPolicy(policyName, policySeed(seed, k));
+        return playGame(policy, generator, difficulty, seed, maxPieces, session());
+    }
+
+    // 第 m 个方块序列种子，由起始种子和序号经 SplitMix64 打散；相邻的起始种子不会让两批序列错位重合
+    static long pieceSeed(long baseSeed, int m) {
+        return new SplitMix64(baseSeed * 1_000_003L + m).nextLong();
+    }
+
+    // 同一序列上第 k 局的策略种子
+    static long policySeed(long pieceSeed, int k) {
+        return new SplitMix64(pieceSeed * 31 + k).nextLong();
+    }
+
+    /**
+     * 每个种子实际跑的局数。确定性策略每个种子只跑 1 局，否则同一局会被重复统计 K 遍。
+     */
+    static int gamesPerSeed(String policyName, int games) {
+        if (games > 1 && createPolicy(policyName, 0).isDeterministic()) {
+            System.err.println("策略 " + policyName + " 是确定性的，同一方块序列只会重复同一局，--games "
+                    + games + " 改为 1；要更多样本请加大 --seeds");
+            return 1;
+        }
+        return games;
+    }
+
+    private TrainingDataWriter.Session session() {
+        if (exporter == null) return null;
+        TrainingDataWriter.Session session = sessions.get();
+        if (session == null) {
+            session = exporter.newSession();
+            sessions.set(session);
+        }
+        return session;
+    }
+
+    private void run() throws InterruptedException, ExecutionException, IOException {
+        if (games < 1 || seeds < 1) {
+            throw new IllegalArgumentException("--games 和 --seeds 必须大于 0: " + games + ", " + seeds);
+        }
+        games = gamesPerSeed(policyName, games);
+        int total = games * seeds;
+        if (exportFile != null) {
+            exporter = new TrainingDataWriter(exportFile, TetrisEngine.BOARD_WIDTH, TetrisEngine.BOARD_HEIGHT);
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        GameResult[] results;
+        try {
+            results = pool.submit(() -> IntStream.range(0, total)
+                    .parallel()
+                    .mapToObj(this::playOne)
+                    .toArray(GameResult[]::new)).get();
+        } finally {
+            pool.shutdown();
+        }
+        if (exporter != null) {
+            // 写完剩下的样本再计时，导出的开销算在吞吐量里
+            exporter.close();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        report(results, seconds);
+        if (exporter != null) {
+            System.out.println("训练数据已导出到 " + exportFile);
+        }
+    }
+
+    private void report(GameResult[] results, double seconds) {
+        int n = results.length;
+        long totalPieces = 0;
+        long totalLines = 0;
+        int[] scores = new int[n];
+        int[] lengths = new int[n];
+        int[] intervals = new int[n];
+        for (int i = 0; i < n; i++) {
+            totalPieces += results[i].pieces;
+            totalLines += results[i].lines;
+            scores[i] = results[i].score;
+            lengths[i] = results[i].pieces;
+            intervals[i] = results[i].finalDropInterval;
+        }
+        Arrays.sort(scores);
+        Arrays.sort(lengths);
+        Arrays.sort(intervals);
+
+        System.out.printf("策略: %s  难度: %s  生成器: %s  线程: %d%n",
+                policyName, difficulty.getDisplayName(), bag ? "7-bag" : "均匀", threads);
+        System.out.printf("对局: %d (%d 个种子 × %d 局)  耗时: %.2f s  方块: %d  (%.0f 块/秒)%n",
+                n, seeds, games, seconds, totalPieces, totalPieces / seconds);
+        System.out.printf("消行: 共 %d  平均 %.2f/局%n", totalLines, (double) totalLines / n);
+        printDistribution("得分", scores);
+        printDistribution("对局长度(块)", lengths);
+        printDistribution("最终下落间隔(ms)", intervals);
+    }
+
+    private static void printDistribution(String label, int[] sorted) {
+        long sum = 0;
+        for (int v : sorted) sum += v;
+        System.out.printf("%s: 最小 %d  p50 %d  p90 %d  p99 %d  最大 %d  平均 %.1f%n",
+                label, sorted[0], percentile(sorted, 50), percentile(sorted, 90),
+                percentile(sorted, 99), sorted[sorted.length - 1], (double) sum / sorted.length);
+    }
+
+    // 最近秩法求百分位数，sorted 必须已排序
+    static int percentile(int[] sorted, int p) {
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+}
@@ -0,0 +1,167 @@
+package tetris;
+
+import java.util.Arrays;
+
+/**
+ * 活动方块的游标：(形状, 朝向, x, y)。所有朝向的格子偏移、包围盒和行掩码
+ * 都在类加载时预先算好，旋转只改变朝向编号，不再创建任何对象。
+ */
+public class Block {
+    public static final int SHAPE_COUNT = 7;
+    public static final int ROTATIONS = 4;
+
+    public int x, y;
+    public int shape;
+    public int rotation;
+
+    private static final int[][][] SHAPES = {
+        {{0,0}, {1,0}, {-1,0}, {0,1}},   // T
+        {{0,0}, {1,0}, {-1,0}, {-1,1}},  // L
+        {{0,0}, {-1,0}, {1,0}, {1,1}},   // J
+        {{0,0}, {1,0}, {0,1}, {1,1}},    // O
+        {{0,0}, {-1,0}, {0,1}, {1,1}},   // S
+        {{0,0}, {1,0}, {0,1}, {-1,1}},   // Z
+        {{0,0}, {-1,0}, {1,0}, {2,0}},   // I
+    };
+
+    // [形状][朝向][格子序号 * 2 + 0/1] -> x/y 偏移
+    private static final int[][][] CELLS = new int[SHAPE_COUNT][ROTATIONS][8];
+    // 包围盒 [形状][朝向] -> 最小/最大偏移
+    private static final int[][] MIN_X = new int[SHAPE_COUNT][ROTATIONS];
+    private static final int[][] MAX_X = new int[SHAPE_COUNT][ROTATIONS];
+    private static final int[][] MIN_Y = new int[SHAPE_COUNT][ROTATIONS];
+    private static final int[][] MAX_Y = new int[SHAPE_COUNT][ROTATIONS];
+    // 行掩码 [形状][朝向][行 - MIN_Y]，第 0 位对应包围盒最左列
+    private static final int[][][] ROW_MASKS = new int[SHAPE_COUNT][ROTATIONS][];
+    // 每列最低格子的 y 偏移 [形状][朝向][列 - MIN_X]，用于按天际线求下落距离
+    private static final int[][][] COLUMN_BOTTOMS = new int[SHAPE_COUNT][ROTATIONS][];
+
+    static {
+        for (int s = 0; s < SHAPE_COUNT; s++) {
+            int[] cells = CELLS[s][0];
+            for (int i = 0; i < 4; i++) {
+                cells[i * 2] = SHAPES[s][i][0];
+                cells[i * 2 + 1] = SHAPES[s][i][1];
+            }
+            // 每次顺时针旋转都是 (x, y) -> (-y, x)
+            for (int r = 1; r < ROTATIONS; r++) {
+                int[] prev = CELLS[s][r - 1];
+                for (int i = 0; i < 4; i++) {
+                    CELLS[s][r][i * 2] = -prev[i * 2 + 1];
+                    CELLS[s][r][i * 2 + 1] = prev[i * 2];
+                }
+            }
+            for (int r = 0; r < ROTATIONS; r++) {
+                int[] c = CELLS[s][r];
+                int minX = Integer.MAX_VALUE, maxX = Integer.MIN_VALUE;
+                int minY = Integer.MAX_VALUE, maxY = Integer.MIN_VALUE;
+                for (int i = 0; i < 4; i++) {
+                    minX = Math.min(minX, c[i * 2]);
+                    maxX = Math.max(maxX, c[i * 2]);
+                    minY = Math.min(minY, c[i * 2 + 1]);
+                    maxY = Math.max(maxY, c[i * 2 + 1]);
+                }
+                MIN_X[s][r] = minX;
+                MAX_X[s][r] = maxX;
+                MIN_Y[s][r] = minY;
+                MAX_Y[s][r] = maxY;
+                int[] masks = new int[maxY - minY + 1];
+                for (int i = 0; i < 4; i++) {
+                    masks[c[i * 2 + 1] - minY] |= 1 << (c[i * 2] - minX);
+                }
+                ROW_MASKS[s][r] = masks;
+                int[] bottoms = new int[maxX - minX + 1];
+                Arrays.fill(bottoms, Integer.MIN_VALUE);
+                for (int i = 0; i < 4; i++) {
+                    int col = c[i * 2] - minX;
+                    bottoms[col] = Math.max(bottoms[col], c[i * 2 + 1]);
+                }
+                COLUMN_BOTTOMS[s][r] = bottoms;
+            }
+        }
+    }
+
+    public Block(int shape) {
+        this.shape = shape;
+    }
+
+    // 换成另一个形状的初始朝向，位置由调用方设置
+    public void reset(int shape) {
+        this.shape = shape;
+        this.rotation = 0;
+    }
+
+    public void set(Block other) {
+        shape = other.shape;
+        rotation = other.rotation;
+        x = other.x;
+        y = other.y;
+    }
+
+    public void rotateClockwise() {
+        rotation = (rotation + 1) & 3;
+    }
+
+    public void rotateCounterClockwise() {
+        rotation = (rotation + 3) & 3;
+    }
+
+    // 第 i 个格子相对 (x, y) 的偏移
+    public int cellX(int i) {
+        return CELLS[shape][rotation][i * 2];
+    }
+
+    public int cellY(int i) {
+        return CELLS[shape][rotation][i * 2 + 1];
+    }
+
+    public int minX() {
+        return MIN_X[shape][rotation];
+    }
+
+    public int maxX() {
+        return MAX_X[shape][rotation];
+    }
+
+    public int minY() {
+        return MIN_Y[shape][rotation];
+    }
+
+    public int maxY() {
+        return MAX_Y[shape][rotation];
+    }
+
+    public static int cellX(int shape, int rotation, int i) {
+        return CELLS[shape][rotation][i * 2];
+    }
+
+    public static int cellY(int shape, int rotation, int i) {
+        return CELLS[shape][rotation][i * 2 + 1];
+    }
+
+    public static int minX(int shape, int rotation) {
+        return MIN_X[shape][rotation];
+    }
+
+    public static int maxX(int shape, int rotation) {
+        return MAX_X[shape][rotation];
+    }
+
+    public static int minY(int shape, int rotation) {
+        return MIN_Y[shape][rotation];
+    }
+
+    public static int maxY(int shape, int rotation) {
+        return MAX_Y[shape][rotation];
+    }
+
+    // 共享的只读表，调用方不得修改
+    static int[] rowMasks(int shape, int rotation) {
+        return ROW_MASKS[shape][rotation];
+    }
+
+    // 共享的只读表，调用方不得修改
+    static int[] columnBottoms(int shape, int rotation) {
+        return COLUMN_BOTTOMS[shape][rotation];
+    }
+}
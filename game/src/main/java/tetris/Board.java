@@ -0,0 +1,436 @@
+package tetris;
+
+import java.util.Arrays;
+
+/**
+ * 位棋盘：每一行由若干个 long 字组成的位图表示占用情况（第 x 位对应第 x 列），
+ * 宽度不超过 64 时每行正好一个字。另用一个紧凑的 byte 颜色平面保存每格的方块颜色，
+ * 仅供绘制使用。碰撞检测只需要对行位图做位运算；每行的占用格数单独计数，
+ * 满行判断是 O(1) 的。
+ *
+ * 消行是增量的：固定方块后只检查它覆盖的那几行，有满行时从最低的满行到
+ * 堆叠顶部做一次分段搬移，不再每次扫描整个棋盘。
+ *
+ * 同时增量维护每列的高度（天际线）、每列格数以及总高度和凹凸度，
+ * 下落距离和 AI 评估需要的特征都不必再从头扫描。
+ */
+public class Board {
+    public static final int MAX_WIDTH = 1024;
+    public static final int MAX_HEIGHT = Short.MAX_VALUE;  // 回放文件头用 short 保存尺寸
+
+    private final int width;
+    private final int height;
+    private final int wordsPerRow;
+    private final long lastWordMask;   // 每行最后一个字里有效列的掩码
+    private final long[] words;        // 第 y 行第 w 个字在 y * wordsPerRow + w
+    private final int[] rowCounts;     // 每行已占用的格子数
+    private final byte[] colors;
+    private final int[] fullRows;      // 消行时的暂存，自下而上
+    private int top;                   // 最高的非空行，棋盘为空时等于 height
+    private final int[] heights;       // 每列高度：height 减去该列最高已占格子的行，空列为 0
+    private final int[] columnCounts;  // 每列已占用的格子数
+    private int cells;                 // 已占用格子总数
+    private int aggregateHeight;       // 各列高度之和
+    private int bumpiness;             // 相邻列高度差的绝对值之和
+
+    public Board(int width, int height) {
+        if (width < 1 || width > MAX_WIDTH) {
+            throw new IllegalArgumentException("棋盘宽度必须在 1 到 " + MAX_WIDTH + " 之间: " + width);
+        }
+        if (height < 1 || height > MAX_HEIGHT) {
+            throw new IllegalArgumentException("棋盘高度必须在 1 到 " + MAX_HEIGHT + " 之间: " + height);
+        }
+        this.width = width;
+        this.height = height;
+        this.wordsPerRow = (width + 63) >>> 6;
+        this.lastWordMask = -1L >>> (wordsPerRow * 64 - width);
+        this.words = new long[height * wordsPerRow];
+        this.rowCounts = new int[height];
+        this.colors = new byte[width * height];
+        this.fullRows = new int[height];
+        this.top = height;
+        this.heights = new int[width];
+        this.columnCounts = new int[width];
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getWordsPerRow() {
+        return wordsPerRow;
+    }
+
+    // 最高的非空行；棋盘为空时返回 getHeight()
+    public int getTop() {
+        return top;
+    }
+
+    public void clear() {
+        Arrays.fill(words, 0);
+        Arrays.fill(rowCounts, 0);
+        Arrays.fill(colors, (byte) 0);
+        top = height;
+        Arrays.fill(heights, 0);
+        Arrays.fill(columnCounts, 0);
+        cells = 0;
+        aggregateHeight = 0;
+        bumpiness = 0;
+    }
+
+    // 第 y 行第 w 个 64 列字的占用位图
+    public long getWord(int y, int w) {
+        return words[y * wordsPerRow + w];
+    }
+
+    // 第 w 个字里有效列的掩码，只有最后一个字可能不满
+    public long wordMask(int w) {
+        return w == wordsPerRow - 1 ? lastWordMask : -1L;
+    }
+
+    public int getRowCount(int y) {
+        return rowCounts[y];
+    }
+
+    // 第 x 列的高度，空列为 0
+    public int getColumnHeight(int x) {
+        return heights[x];
+    }
+
+    public int getAggregateHeight() {
+        return aggregateHeight;
+    }
+
+    // 空洞数：每列最高格子以下的空格之和
+    public int getHoles() {
+        return aggregateHeight - cells;
+    }
+
+    public int getBumpiness() {
+        return bumpiness;
+    }
+
+    public boolean isOccupied(int x, int y) {
+        return (words[y * wordsPerRow + (x >>> 6)] & (1L << x)) != 0;
+    }
+
+    // 返回格子里的方块颜色编号，0 表示空
+    public int getColor(int x, int y) {
+        return colors[y * width + x];
+    }
+
+    public void set(int x, int y, int color) {
+        int i = y * wordsPerRow + (x >>> 6);
+        long bit = 1L << x;
+        if ((words[i] & bit) == 0) {
+            words[i] |= bit;
+            rowCounts[y]++;
+            columnCounts[x]++;
+            cells++;
+            if (height - y > heights[x]) setHeight(x, height - y);
+        }
+        colors[y * width + x] = (byte) color;
+        if (y < top) top = y;
+    }
+
+    // 修改一列高度，同时更新总高度和它与左右两列的高度差
+    private void setHeight(int x, int h) {
+        int old = heights[x];
+        aggregateHeight += h - old;
+        if (x > 0) {
+            bumpiness += Math.abs(h - heights[x - 1]) - Math.abs(old - heights[x - 1]);
+        }
+        if (x < width - 1) {
+            bumpiness += Math.abs(h - heights[x + 1]) - Math.abs(old - heights[x + 1]);
+        }
+        heights[x] = h;
+    }
+
+    // 复制另一块同尺寸棋盘的全部内容，供搜索时使用暂存棋盘
+    public void copyFrom(Board other) {
+        // 堆叠顶部以上都是空行，只需清掉本棋盘在那一段里的残留
+        int from = Math.min(top, other.top);
+        int start = other.top;
+        if (from < start) {
+            Arrays.fill(words, from * wordsPerRow, start * wordsPerRow, 0);
+            Arrays.fill(rowCounts, from, start, 0);
+            Arrays.fill(colors, from * width, start * width, (byte) 0);
+        }
+        System.arraycopy(other.words, start * wordsPerRow, words, start * wordsPerRow, (height - start) * wordsPerRow);
+        System.arraycopy(other.rowCounts, start, rowCounts, start, height - start);
+        System.arraycopy(other.colors, start * width, colors, start * width, (height - start) * width);
+        top = other.top;
+        System.arraycopy(other.heights, 0, heights, 0, width);
+        System.arraycopy(other.columnCounts, 0, columnCounts, 0, width);
+        cells = other.cells;
+        aggregateHeight = other.aggregateHeight;
+        bumpiness = other.bumpiness;
+    }
+
+    // 清空一个格子，该格是所在列的最高格时向下找新的最高格
+    private void unset(int x, int y) {
+        int i = y * wordsPerRow + (x >>> 6);
+        long bit = 1L << x;
+        if ((words[i] & bit) == 0) return;
+        words[i] &= ~bit;
+        rowCounts[y]--;
+        columnCounts[x]--;
+        cells--;
+        colors[y * width + x] = 0;
+        if (height - y == heights[x]) {
+            int r = y + 1;
+            while (r < height && !isOccupied(x, r)) {
+                r++;
+            }
+            setHeight(x, height - r);
+        }
+        while (top < height && rowCounts[top] == 0) {
+            top++;
+        }
+    }
+
+    /**
+     * 用 src[offset..offset+width) 的颜色整体改写第 y 行，0 表示空。
+     * 供只镜像远端棋盘的客户端使用，本地对局不需要。
+     */
+    public void setRow(int y, byte[] src, int offset) {
+        for (int x = 0; x < width; x++) {
+            int c = src[offset + x];
+            if (c != 0) {
+                set(x, y, c);
+            } else {
+                unset(x, y);
+            }
+        }
+    }
+
+    /**
+     * 从底部插入 lines 行垃圾行：除 hole 列外全部填上 color，原有内容整体上移。
+     * @return 有非空行被挤出棋盘顶部时返回 true
+     */
+    public boolean insertGarbage(int lines, int hole, int color) {
+        lines = Math.min(lines, height);
+        boolean overflow = top < lines;
+        int keep = height - lines;
+        System.arraycopy(words, lines * wordsPerRow, words, 0, keep * wordsPerRow);
+        System.arraycopy(rowCounts, lines, rowCounts, 0, keep);
+        System.arraycopy(colors, lines * width, colors, 0, keep * width);
+        Arrays.fill(words, keep * wordsPerRow, height * wordsPerRow, 0);
+        Arrays.fill(rowCounts, keep, height, 0);
+        Arrays.fill(colors, keep * width, height * width, (byte) 0);
+        top = Math.max(0, top - lines);
+        if (overflow) {
+            // 被挤掉的格子无法增量扣除，整体重算各列数据
+            rebuildColumns();
+        } else {
+            // 非空列整体上移
+            for (int x = 0; x < width; x++) {
+                if (heights[x] > 0) setHeight(x, heights[x] + lines);
+            }
+        }
+        for (int y = keep; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                if (x != hole) set(x, y, color);
+            }
+        }
+        return overflow;
+    }
+
+    // 从行位图重新统计各列高度和格数
+    private void rebuildColumns() {
+        Arrays.fill(heights, 0);
+        Arrays.fill(columnCounts, 0);
+        cells = 0;
+        top = height;
+        for (int y = 0; y < height; y++) {
+            cells += rowCounts[y];
+            if (rowCounts[y] > 0 && top == height) top = y;
+            for (int x = 0; x < width; x++) {
+                if (isOccupied(x, y)) {
+                    columnCounts[x]++;
+                    if (heights[x] == 0) heights[x] = height - y;
+                }
+            }
+        }
+        aggregateHeight = 0;
+        bumpiness = 0;
+        for (int x = 0; x < width; x++) {
+            aggregateHeight += heights[x];
+            if (x > 0) bumpiness += Math.abs(heights[x] - heights[x - 1]);
+        }
+    }
+
+    // 把 [from, to] 行的颜色复制到同布局的数组里，供渲染快照增量同步
+    public void copyColors(int from, int to, byte[] dest) {
+        System.arraycopy(colors, from * width, dest, from * width, (to - from + 1) * width);
+    }
+
+    // 棋盘内容（占用和颜色）的 64 位摘要，用于回放校验
+    public long contentHash() {
+        long h = 0xcbf29ce484222325L;
+        for (byte c : colors) {
+            h = (h ^ c) * 0x100000001b3L;
+        }
+        return h;
+    }
+
+    // 把方块写入棋盘，棋盘上方的格子直接丢弃
+    public void lock(int shape, int rotation, int x, int y, int color) {
+        for (int i = 0; i < 4; i++) {
+            int cy = y + Block.cellY(shape, rotation, i);
+            if (cy >= 0) set(x + Block.cellX(shape, rotation, i), cy, color);
+        }
+    }
+
+    /**
+     * 方块从 (x, y) 开始能继续下落的行数，(x, y) 必须是合法位置。
+     * 方块每列最低的格子都在该列天际线之上时，距离就是各列间隙的最小值；
+     * 有格子已经塞到悬空部分下面时退回逐行检测。
+     */
+    public int dropDistance(int shape, int rotation, int x, int y) {
+        int[] bottoms = Block.columnBottoms(shape, rotation);
+        int left = x + Block.minX(shape, rotation);
+        int d = Integer.MAX_VALUE;
+        for (int c = 0; c < bottoms.length; c++) {
+            int gap = height - heights[left + c] - 1 - (y + bottoms[c]);
+            if (gap < 0) {
+                return scanDropDistance(shape, rotation, x, y);
+            }
+            if (gap < d) d = gap;
+        }
+        return d;
+    }
+
+    private int scanDropDistance(int shape, int rotation, int x, int y) {
+        int d = 0;
+        while (!collides(shape, rotation, x, y + d + 1)) {
+            d++;
+        }
+        return d;
+    }
+
+    /**
+     * 判断方块平移 (dx, dy) 后是否会越界或与已固定的格子重叠。
+     * 棋盘上方（y < 0）视为空。
+     */
+    public boolean collides(Block block, int dx, int dy) {
+        return collides(block.shape, block.rotation, block.x + dx, block.y + dy);
+    }
+
+    // 用预先算好的行掩码检测：方块最宽 4 列，每行最多跨两个字
+    public boolean collides(int shape, int rotation, int x, int y) {
+        int left = x + Block.minX(shape, rotation);
+        if (left < 0 || x + Block.maxX(shape, rotation) >= width
+                || y + Block.maxY(shape, rotation) >= height) {
+            return true;
+        }
+        int[] masks = Block.rowMasks(shape, rotation);
+        int first = y + Block.minY(shape, rotation);
+        // 整个方块都在堆叠顶部以上时不可能重叠
+        if (first + masks.length <= top) {
+            return false;
+        }
+        int word = left >>> 6;
+        int shift = left & 63;
+        for (int r = 0; r < masks.length; r++) {
+            int row = first + r;
+            if (row < 0) continue;
+            int i = row * wordsPerRow + word;
+            long mask = (long) masks[r] << shift;
+            if ((words[i] & mask) != 0) {
+                return true;
+            }
+            // 跨字的部分，只有 shift 大于 60 且该行确实越过字边界时才读下一个字
+            if (shift > 60) {
+                long spill = (long) masks[r] >>> (64 - shift);
+                if (spill != 0 && (words[i + 1] & spill) != 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // 消除全部满行，供直接修改过棋盘的调用方使用
+    public int clearFullRows() {
+        return clearFullRows(0, height - 1);
+    }
+
+    /**
+     * 只检查 [from, to] 之间的行，有满行时从最低的满行到堆叠顶部做一次分段搬移：
+     * 相邻两个满行之间的一段行整体下移"其下方满行数"行，最后把顶部空出的行清零。
+     * 固定方块后传入方块覆盖的行即可，代价与棋盘高度无关。
+     * @return 消除的行数
+     */
+    public int clearFullRows(int from, int to) {
+        from = Math.max(from, top);
+        to = Math.min(to, height - 1);
+        int count = 0;
+        for (int y = to; y >= from; y--) {
+            if (rowCounts[y] == width) {
+                fullRows[count++] = y;
+            }
+        }
+        if (count == 0) {
+            return 0;
+        }
+        for (int k = 0; k < count; k++) {
+            // 第 k 段：第 k 个满行之上、第 k+1 个满行（或堆叠顶部）之下
+            int segmentBottom = fullRows[k] - 1;
+            int segmentTop = k + 1 < count ? fullRows[k + 1] + 1 : top;
+            int rows = segmentBottom - segmentTop + 1;
+            if (rows > 0) {
+                moveRows(segmentTop, segmentTop + k + 1, rows);
+            }
+        }
+        Arrays.fill(words, top * wordsPerRow, (top + count) * wordsPerRow, 0);
+        Arrays.fill(rowCounts, top, top + count, 0);
+        Arrays.fill(colors, top * width, (top + count) * width, (byte) 0);
+        top += count;
+        // 清掉的行之上可能还留着空行，把 top 挪到真正的最高非空行
+        while (top < height && rowCounts[top] == 0) {
+            top++;
+        }
+        updateColumns(fullRows[count - 1], count);
+        return count;
+    }
+
+    /**
+     * 消行后更新每列数据。满行在每一列都有格子，所以每列最高格子不会低于最高的满行：
+     * 在它之上的列整体下移 count 行；正好落在最高满行上的列，新的最高格子
+     * 只能在原位置下方 count 行及以下，从那里向下找第一个格子。
+     */
+    private void updateColumns(int topFullRow, int count) {
+        cells -= count * width;
+        aggregateHeight = 0;
+        bumpiness = 0;
+        for (int x = 0; x < width; x++) {
+            columnCounts[x] -= count;
+            int h;
+            if (height - heights[x] < topFullRow) {
+                h = heights[x] - count;
+            } else if (columnCounts[x] == 0) {
+                h = 0;
+            } else {
+                int y = topFullRow + count;
+                while (!isOccupied(x, y)) {
+                    y++;
+                }
+                h = height - y;
+            }
+            heights[x] = h;
+            aggregateHeight += h;
+            if (x > 0) bumpiness += Math.abs(h - heights[x - 1]);
+        }
+    }
+
+    private void moveRows(int from, int to, int rows) {
+        System.arraycopy(words, from * wordsPerRow, words, to * wordsPerRow, rows * wordsPerRow);
+        System.arraycopy(rowCounts, from, rowCounts, to, rows);
+        System.arraycopy(colors, from * width, colors, to * width, rows * width);
+    }
+}
@@ -0,0 +1,36 @@
+package tetris;
+
+// 游戏难度设置
+public enum Difficulty {
+    EASY(500, 10, "简单"),
+    MEDIUM(300, 20, "中等"),
+    HARD(150, 30, "进阶");
+
+    private final int initialSpeed;
+    private final int speedReduction;  // 每次消行后下落间隔的缩减量
+    private final String displayName;
+
+    Difficulty(int initialSpeed, int speedReduction, String displayName) {
+        this.initialSpeed = initialSpeed;
+        this.speedReduction = speedReduction;
+        this.displayName = displayName;
+    }
+
+    public int getInitialSpeed() {
+        return initialSpeed;
+    }
+
+    public int getSpeedReduction() {
+        return speedReduction;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    // 按 简单 -> 中等 -> 进阶 -> 简单 的顺序切换
+    public Difficulty next() {
+        Difficulty[] values = values();
+        return values[(ordinal() + 1) % values.length];
+    }
+}
@@ -0,0 +1,172 @@
+package tetris;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 固定步长的游戏循环：逻辑线程以固定频率推进，落后太多时丢弃积压。
+ * 可选的渲染线程独立地按帧率上限主动渲染，并拿到距上一个逻辑步的插值系数。
+ * 两个线程互不等待：慢的绘制不会推迟逻辑步，慢的逻辑也不会卡住绘制。
+ * 没有动画要播放时渲染线程挂起，直到 requestRender() 唤醒。
+ */
+public class GameLoop {
+    private static final int MAX_CATCH_UP_TICKS = 5;  // 落后太多时丢弃积压，防止雪崩
+
+    public interface Listener {
+        // 推进一个逻辑步，在逻辑线程中执行
+        void tick();
+
+        /**
+         * 渲染一帧，在渲染线程中执行，alpha 为距下一个逻辑步的进度。
+         * @return 是否需要继续连续出帧，返回 false 时渲染线程挂起
+         */
+        boolean render(double alpha);
+    }
+
+    private final Listener listener;
+    private final long tickNanos;
+    private final long frameNanos;
+    private final boolean rendering;
+    private final AtomicBoolean renderRequested = new AtomicBoolean();
+    // 非空表示正在运行，停止后旧线程发现自己不再是它就退出
+    private volatile Thread logicThread;
+    private volatile Thread renderThread;
+    // stop() 之后旧线程还可能在执行最后一步；重启时新线程先等它们退出，避免两个逻辑线程同时推进同一个引擎
+    private Thread retiredLogic;
+    private Thread retiredRender;
+    private volatile long lastTickNanos = System.nanoTime();
+
+    /**
+     * @param fpsCap 渲染线程的帧率上限，0 表示不限；小于 0 表示不启动渲染线程，由调用方被动绘制
+     */
+    public GameLoop(Listener listener, int ticksPerSecond, int fpsCap) {
+        this.listener = listener;
+        this.tickNanos = 1_000_000_000L / ticksPerSecond;
+        this.frameNanos = fpsCap > 0 ? 1_000_000_000L / fpsCap : 0;
+        this.rendering = fpsCap >= 0;
+    }
+
+    public synchronized void start() {
+        if (logicThread != null) return;
+        // 在新线程里等旧线程，不阻塞调用 start() 的 EDT
+        Thread oldLogic = retiredLogic;
+        Thread oldRender = retiredRender;
+        Thread t = new Thread(() -> runLogic(oldLogic), "Tetris-Logic");
+        t.setDaemon(true);
+        logicThread = t;
+        t.start();
+        if (rendering) {
+            Thread r = new Thread(() -> runRender(oldRender), "Tetris-Render");
+            r.setDaemon(true);
+            renderThread = r;
+            r.start();
+        }
+    }
+
+    public synchronized void stop() {
+        Thread t = logicThread;
+        Thread r = renderThread;
+        logicThread = null;
+        renderThread = null;
+        if (t != null) retiredLogic = t;
+        if (r != null) retiredRender = r;
+        if (t != null && t != Thread.currentThread()) {
+            t.interrupt();
+        }
+        if (r != null && r != Thread.currentThread()) {
+            r.interrupt();
+        }
+    }
+
+    public boolean isRunning() {
+        return logicThread != null;
+    }
+
+    // 是否由渲染线程主动渲染
+    public boolean isRendering() {
+        return rendering;
+    }
+
+    // 状态有变化或窗口需要重绘时唤醒渲染线程，可在任意线程调用
+    public void requestRender() {
+        renderRequested.set(true);
+        Thread r = renderThread;
+        if (r != null) {
+            LockSupport.unpark(r);
+        }
+    }
+
+    // 等上一轮的线程退出。等待期间被停止也要等完，否则再下一轮的线程会以为前面都已退出
+    private static void awaitExit(Thread previous) {
+        if (previous == null) return;
+        boolean interrupted = false;
+        while (previous.isAlive()) {
+            try {
+                previous.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void runLogic(Thread previous) {
+        awaitExit(previous);
+        Thread self = Thread.currentThread();
+        long next = System.nanoTime();
+        while (logicThread == self) {
+            long now = System.nanoTime();
+            if (now - next > MAX_CATCH_UP_TICKS * tickNanos) {
+                next = now - MAX_CATCH_UP_TICKS * tickNanos;
+            }
+            while (now - next >= 0 && logicThread == self) {
+                listener.tick();
+                lastTickNanos = next;
+                next += tickNanos;
+            }
+            long sleep = next - System.nanoTime();
+            if (sleep > 1_000_000) {
+                try {
+                    Thread.sleep(sleep / 1_000_000, (int) (sleep % 1_000_000));
+                } catch (InterruptedException e) {
+                    return;
+                }
+            } else if (sleep > 0) {
+                Thread.yield();
+            }
+        }
+    }
+
+    private void runRender(Thread previous) {
+        awaitExit(previous);
+        Thread self = Thread.currentThread();
+        long nextFrame = System.nanoTime();
+        while (renderThread == self) {
+            renderRequested.set(false);
+            long now = System.nanoTime();
+            double alpha = Math.min(0.999, Math.max(0, (double) (now - lastTickNanos) / tickNanos));
+            boolean animating = listener.render(alpha);
+            if (!animating && !renderRequested.get()) {
+                // 先置位再 unpark，错过的唤醒会留在许可里，不会睡死
+                LockSupport.park(this);
+                nextFrame = System.nanoTime();
+                continue;
+            }
+            if (frameNanos == 0) {
+                Thread.yield();
+                continue;
+            }
+            nextFrame = Math.max(nextFrame + frameNanos, now);
+            long sleep = nextFrame - System.nanoTime();
+            if (sleep > 1_000_000) {
+                try {
+                    Thread.sleep(sleep / 1_000_000, (int) (sleep % 1_000_000));
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package tetris;
+
+// 一局结束的对局，记入排行榜
+public final class GameRecord {
+    public final int score;
+    public final int lines;
+    public final int pieces;
+    public final Difficulty difficulty;
+    public final long durationMillis;  // 不含暂停的游戏时长
+    public final long seed;
+    public final long endedAt;         // 结束时刻，毫秒时间戳
+
+    public GameRecord(int score, int lines, int pieces, Difficulty difficulty, long durationMillis,
+                      long seed, long endedAt) {
+        this.score = score;
+        this.lines = lines;
+        this.pieces = pieces;
+        this.difficulty = difficulty;
+        this.durationMillis = durationMillis;
+        this.seed = seed;
+        this.endedAt = endedAt;
+    }
+
+    // 排名靠前的在前：得分高的优先，同分时先达成的优先
+    boolean ranksAbove(GameRecord other) {
+        return score != other.score ? score > other.score : endedAt < other.endedAt;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d 分  %d 行  %d:%02d", score, lines,
+                durationMillis / 60_000, durationMillis / 1000 % 60);
+    }
+}
@@ -0,0 +1,43 @@
+package tetris;
+
+/**
+ * 绘制一局游戏需要的只读状态。本地对局由 TetrisEngine 提供，
+ * 对战客户端由按服务器增量更新维护的 RemoteGame 镜像提供。
+ * 渲染快照只通过这个接口读取状态，读取方负责取走脏行记录。
+ */
+public interface GameView {
+    Board getBoard();
+
+    // 没有活动方块时返回 null
+    Block getCurrentBlock();
+
+    Block getNextBlock();
+
+    // 活动方块硬降后的落点 y
+    int getGhostY();
+
+    boolean canMove(Block block, int dx, int dy);
+
+    double getGravityProgress();
+
+    double getGravity();
+
+    int getScore();
+
+    int getPiecesPlaced();
+
+    int getDropInterval();
+
+    long getFrame();
+
+    Difficulty getDifficulty();
+
+    boolean isGameOver();
+
+    // 自上次 clearDirtyRows() 以来变化过的行，没有变化时 min > max
+    int getDirtyMinRow();
+
+    int getDirtyMaxRow();
+
+    void clearDirtyRows();
+}
@@ -0,0 +1,44 @@
+package tetris;
+
+/**
+ * 带权重的棋面评估：总高度、空洞、凹凸度越小越好，消行越多越好。
+ * 权重向量可由 WeightTuner 调优。实例不可变，可以跨线程共享。
+ */
+public class Heuristic {
+    public static final int AGGREGATE_HEIGHT = 0;
+    public static final int LINES = 1;
+    public static final int HOLES = 2;
+    public static final int BUMPINESS = 3;
+    public static final int FEATURE_COUNT = 4;
+
+    public static final double[] DEFAULT_WEIGHTS = {-0.510066, 0.760666, -0.35663, -0.184483};
+
+    private final double[] weights;
+
+    public Heuristic() {
+        this(DEFAULT_WEIGHTS);
+    }
+
+    public Heuristic(double[] weights) {
+        if (weights.length != FEATURE_COUNT) {
+            throw new IllegalArgumentException("权重个数应为 " + FEATURE_COUNT + ": " + weights.length);
+        }
+        this.weights = weights.clone();
+    }
+
+    public double[] getWeights() {
+        return weights.clone();
+    }
+
+    // 消除 lines 行的得分
+    public double lineValue(int lines) {
+        return weights[LINES] * lines;
+    }
+
+    // 评估棋面（不含消行项），各项特征由 Board 增量维护，这里只做加权
+    public double evaluate(Board board) {
+        return weights[AGGREGATE_HEIGHT] * board.getAggregateHeight()
+                + weights[HOLES] * board.getHoles()
+                + weights[BUMPINESS] * board.getBumpiness();
+    }
+}
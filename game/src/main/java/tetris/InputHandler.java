@@ -0,0 +1,170 @@
+package tetris;
+
+import java.util.Arrays;
+
+/**
+ * 输入子系统：在每个逻辑步消费 InputQueue 里的按键事件，记录按下/松开状态，
+ * 并按可配置的 DAS（延迟自动移动）和 ARR（自动重复间隔）产生横向重复移动，
+ * 不再依赖操作系统的按键重复速率。
+ * 同时记录“按键到画面”的延迟：事件生效的时间戳随渲染快照交给绘制线程，
+ * 快照呈现到屏幕时计入直方图。update()/drainStamps()/reset() 在逻辑线程调用，
+ * recordPresented() 在绘制线程调用。
+ */
+public class InputHandler {
+    public static final int LEFT = 0;
+    public static final int RIGHT = 1;
+    public static final int SOFT_DROP = 2;
+    public static final int ROTATE = 3;
+    public static final int HARD_DROP = 4;
+    public static final int ROTATE_CCW = 5;
+    public static final int ACTION_COUNT = 6;
+
+    private static final int MAX_PENDING = 32;
+
+    private final InputQueue queue = new InputQueue(256);
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final boolean[] held = new boolean[ACTION_COUNT];
+    private final int[] heldTicks = new int[ACTION_COUNT];
+    private final long[] pendingStamps = new long[MAX_PENDING];
+    private int pendingCount;
+    private int lastHorizontal = -1;  // 左右同时按住时以后按下的为准
+
+    private int delayedAutoShift = 10;  // 逻辑步数，60Hz 下约 167ms
+    private int autoRepeatRate = 2;     // 逻辑步数，0 表示瞬间移到底
+    private int softDropRate = 1;       // 按住软降时每隔几步下落一格
+
+    // 生产者端（EDT）：按键事件入队
+    public void keyPressed(int action, long nanoTime) {
+        queue.offer(nanoTime, action, true);
+    }
+
+    public void keyReleased(int action, long nanoTime) {
+        queue.offer(nanoTime, action, false);
+    }
+
+    /**
+     * 推进一个逻辑步：先处理新事件（按下立即生效一次），再处理按住不放的重复。
+     * 重复从按下后的下一步开始计，按下的这一步只移动一次。
+     */
+    public void update(TetrisEngine engine) {
+        while (!queue.isEmpty()) {
+            int action = queue.peekAction();
+            boolean pressed = queue.peekPressed();
+            long time = queue.peekTime();
+            queue.remove();
+            if (!pressed) {
+                held[action] = false;
+                if (action == lastHorizontal) {
+                    lastHorizontal = held[LEFT] ? LEFT : held[RIGHT] ? RIGHT : -1;
+                }
+                continue;
+            }
+            if (held[action]) {
+                continue;  // 忽略操作系统的自动重复
+            }
+            held[action] = true;
+            heldTicks[action] = -1;  // 下面的重复计数在按下这一步记为 0，从下一步开始算
+            if (action == LEFT || action == RIGHT) {
+                lastHorizontal = action;
+            }
+            if (apply(engine, action)) {
+                stamp(time);
+            }
+        }
+
+        if (lastHorizontal >= 0) {
+            int ticks = ++heldTicks[lastHorizontal];
+            if (ticks > 0 && ticks >= delayedAutoShift) {
+                if (autoRepeatRate == 0) {
+                    while (apply(engine, lastHorizontal)) {
+                        // 一直移到撞墙
+                    }
+                } else if ((ticks - delayedAutoShift) % autoRepeatRate == 0) {
+                    apply(engine, lastHorizontal);
+                }
+            }
+        }
+        if (held[SOFT_DROP]) {
+            int ticks = ++heldTicks[SOFT_DROP];
+            if (ticks > 0 && ticks % softDropRate == 0) {
+                apply(engine, SOFT_DROP);
+            }
+        }
+    }
+
+    private static boolean apply(TetrisEngine engine, int action) {
+        switch (action) {
+            case LEFT:
+                return engine.moveLeft();
+            case RIGHT:
+                return engine.moveRight();
+            case SOFT_DROP:
+                return engine.softDrop();
+            case ROTATE:
+                return engine.rotate();
+            case ROTATE_CCW:
+                return engine.rotateCounterClockwise();
+            case HARD_DROP:
+                engine.hardDrop();
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void stamp(long time) {
+        if (pendingCount < MAX_PENDING) {
+            pendingStamps[pendingCount++] = time;
+        }
+    }
+
+    /**
+     * 把此前生效、还没交出去的按键时间戳移到 dest[offset..] 里，放不下的丢弃。
+     * @return 复制的个数
+     */
+    public int drainStamps(long[] dest, int offset) {
+        int count = Math.min(pendingCount, dest.length - offset);
+        System.arraycopy(pendingStamps, 0, dest, offset, count);
+        pendingCount = 0;
+        return count;
+    }
+
+    // 一帧已经呈现到屏幕，把这一帧包含的输入计入延迟直方图
+    public void recordPresented(long[] stamps, int count, long nanoTime) {
+        for (int i = 0; i < count; i++) {
+            latency.record(nanoTime - stamps[i]);
+        }
+    }
+
+    // 新游戏或暂停时清空按键状态，避免残留的按住状态继续生效
+    public void reset() {
+        queue.clear();
+        Arrays.fill(held, false);
+        lastHorizontal = -1;
+        pendingCount = 0;
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    public void setDelayedAutoShift(int ticks) {
+        delayedAutoShift = Math.max(1, ticks);
+    }
+
+    public void setAutoRepeatRate(int ticks) {
+        autoRepeatRate = Math.max(0, ticks);
+    }
+
+    public void setSoftDropRate(int ticks) {
+        softDropRate = Math.max(1, ticks);
+    }
+
+    public int getDelayedAutoShift() {
+        return delayedAutoShift;
+    }
+
+    public int getAutoRepeatRate() {
+        return autoRepeatRate;
+    }
+}
@@ -0,0 +1,65 @@
+package tetris;
+
+/**
+ * 带时间戳的按键事件队列：单生产者（EDT）单消费者（逻辑线程）的环形缓冲区。
+ * 时间戳与动作分别存放在原始类型数组里，入队出队都不分配对象。
+ * 队列满时丢弃新事件。
+ */
+public class InputQueue {
+    private final long[] times;
+    private final int[] codes;
+    private final int mask;
+    private volatile long head;  // 下一个要读的位置，只由消费者写
+    private volatile long tail;  // 下一个要写的位置，只由生产者写
+
+    public InputQueue(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        times = new long[size];
+        codes = new int[size];
+        mask = size - 1;
+    }
+
+    /**
+     * @param nanoTime 事件发生时刻（System.nanoTime 时基）
+     * @param action   InputHandler 中的动作编号
+     * @return 队列已满时返回 false
+     */
+    public boolean offer(long nanoTime, int action, boolean pressed) {
+        long t = tail;
+        if (t - head == times.length) {
+            return false;
+        }
+        int index = (int) t & mask;
+        times[index] = nanoTime;
+        codes[index] = pressed ? action : ~action;
+        tail = t + 1;
+        return true;
+    }
+
+    public boolean isEmpty() {
+        return head == tail;
+    }
+
+    // 以下三个方法只能由消费者调用，先 isEmpty() 再读队首，最后 remove()
+    public long peekTime() {
+        return times[(int) head & mask];
+    }
+
+    public int peekAction() {
+        int code = codes[(int) head & mask];
+        return code >= 0 ? code : ~code;
+    }
+
+    public boolean peekPressed() {
+        return codes[(int) head & mask] >= 0;
+    }
+
+    public void remove() {
+        head = head + 1;
+    }
+
+    // 丢弃所有未处理的事件，只能由消费者调用
+    public void clear() {
+        head = tail;
+    }
+}
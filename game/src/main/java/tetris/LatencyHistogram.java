@@ -0,0 +1,85 @@
+package tetris;
+
+import java.util.Arrays;
+
+/**
+ * 对数-线性分桶的延迟直方图：每个 2 的幂区间再等分成 16 个桶，
+ * 相对误差约 6%，记录只是一次数组自增，不分配对象。
+ * 单线程写入；其他线程读取时可能看到略旧的数据，仅用于展示。
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int RANGES = 64 - SUB_BUCKET_BITS;
+
+    private final long[] counts = new long[RANGES * SUB_BUCKETS];
+    private long total;
+    private long sum;
+    private long max;
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts[bucket(nanos)]++;
+        total++;
+        sum += nanos;
+        if (nanos > max) max = nanos;
+    }
+
+    public void reset() {
+        Arrays.fill(counts, 0);
+        total = 0;
+        sum = 0;
+        max = 0;
+    }
+
+    public long getCount() {
+        return total;
+    }
+
+    public long getMax() {
+        return max;
+    }
+
+    public double getMean() {
+        return total == 0 ? 0 : (double) sum / total;
+    }
+
+    // 返回第 p 百分位所在桶的上界（纳秒）
+    public long percentile(double p) {
+        if (total == 0) return 0;
+        long rank = (long) Math.ceil(p / 100.0 * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= Math.max(1, rank)) {
+                return Math.min(max, upperBound(i));
+            }
+        }
+        return max;
+    }
+
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int range = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS + 1;
+        int sub = (int) (value >>> (range - 1)) & (SUB_BUCKETS - 1);
+        return range * SUB_BUCKETS + sub;
+    }
+
+    private static long upperBound(int index) {
+        int range = index / SUB_BUCKETS;
+        int sub = index % SUB_BUCKETS;
+        if (range == 0) {
+            return sub;
+        }
+        return ((long) (SUB_BUCKETS + sub + 1) << (range - 1)) - 1;
+    }
+
+    // 形如 "n=120 p50=8.1ms p90=..."，用于日志和统计输出
+    public String summary() {
+        return String.format("n=%d 平均=%.1fms p50=%.1fms p90=%.1fms p99=%.1fms 最大=%.1fms",
+                total, getMean() / 1e6, percentile(50) / 1e6, percentile(90) / 1e6,
+                percentile(99) / 1e6, max / 1e6);
+    }
+}
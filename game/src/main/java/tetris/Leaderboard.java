@@ -0,0 +1,450 @@
+package tetris;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * 本地排行榜。每局结束的对局先追加到日志 scores-代号.log，定期压缩成索引 index.bin：
+ * 索引保存每个难度的前 K 名和累计局数，压缩后换用下一代的空日志，旧日志移进 archive/ 目录保留，
+ * 每一局的记录都不会丢，用 history() 可以按时间顺序读出全部历史。
+ * 启动时只读索引和最新一代日志里压缩之后追加的少量记录，不必重放全部历史。
+ *
+ * 查询走内存里每个难度一份的前 K 名数组，写时复制，任意线程读取都不加锁、不碰磁盘。
+ * 追加和压缩都在后台单线程执行器里按提交顺序进行，EDT 从不等待磁盘。
+ * 写线程另外维护一份与磁盘内容一致的索引，压缩时写的是它，不会把还在排队的记录写进索引。
+ *
+ * 日志记录（大端，定长 RECORD_SIZE 字节）:
+ *   long 结束时刻, long 种子, long 时长毫秒, int 得分, int 消行, int 方块数, byte 难度, int 前面各字段的 CRC32
+ * 索引文件（版本 1）:
+ *   magic "TLB1", short 版本, long 日志代号, byte 难度数, 每个难度: long 局数, short 条数, 各条记录（不含 CRC）,
+ *   最后是 int 之前全部字节的 CRC32
+ * 日志末尾写了一半的记录在启动时截掉；索引先写临时文件再原子改名。
+ *
+ * 用法: java tetris.Leaderboard [目录]              打印各难度的排行
+ *       java tetris.Leaderboard --history [目录]    按时间顺序打印全部对局
+ */
+public class Leaderboard {
+    static final int INDEX_MAGIC = 0x544C4231;  // "TLB1"
+    static final int VERSION = 1;
+    static final int RECORD_SIZE = 8 + 8 + 8 + 4 + 4 + 4 + 1 + 4;
+    public static final int DEFAULT_TOP = 10;
+    private static final int COMPACT_EVERY = 256;  // 日志里攒够这么多条就压缩一次
+    private static final String INDEX_FILE = "index.bin";
+    private static final String ARCHIVE_DIR = "archive";
+
+    private final Path directory;
+    private final int capacity;
+    private final ExecutorService writer;
+
+    // 查询用：每个难度按名次排好的前 K 名，数组发布后不再修改
+    private volatile GameRecord[][] top;
+    private final long[] games;
+
+    // 以下只由写线程访问
+    private GameRecord[][] durableTop;
+    private final long[] durableGames;
+    private long generation;
+    private FileChannel log;
+    private int logRecords;
+    private final ByteBuffer recordBuffer = ByteBuffer.allocate(RECORD_SIZE);
+
+    private Leaderboard(Path directory, int capacity) {
+        this.directory = directory;
+        this.capacity = capacity;
+        int difficulties = Difficulty.values().length;
+        this.top = new GameRecord[difficulties][0];
+        this.durableTop = new GameRecord[difficulties][0];
+        this.games = new long[difficulties];
+        this.durableGames = new long[difficulties];
+        this.writer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "leaderboard-writer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * 打开（或新建）目录里的排行榜：读索引，再读最新一代日志里压缩后追加的记录。
+     * @param capacity 每个难度保留的名次数 K
+     */
+    public static Leaderboard open(Path directory, int capacity) throws IOException {
+        if (capacity < 1 || capacity > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("排行榜名次数必须在 1 到 " + Short.MAX_VALUE + " 之间: " + capacity);
+        }
+        Files.createDirectories(directory);
+        Leaderboard board = new Leaderboard(directory, capacity);
+        board.load();
+        return board;
+    }
+
+    private void load() throws IOException {
+        try {
+            readIndex(ByteBuffer.wrap(Files.readAllBytes(directory.resolve(INDEX_FILE))));
+        } catch (NoSuchFileException e) {
+            generation = 0;
+        }
+        archiveStaleLogs();
+
+        // 重放压缩之后追加的记录，末尾不完整或校验不过的部分截掉
+        Path file = logFile(generation);
+        log = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer data = ByteBuffer.allocate((int) Math.min(Integer.MAX_VALUE, log.size()));
+        while (data.hasRemaining() && log.read(data) >= 0) {
+            // 读满为止
+        }
+        data.flip();
+        long valid = 0;
+        while (data.remaining() >= RECORD_SIZE) {
+            GameRecord record = decodeRecord(data);
+            if (record == null) break;
+            valid += RECORD_SIZE;
+            durableTop[record.difficulty.ordinal()] = insert(durableTop[record.difficulty.ordinal()], record);
+            durableGames[record.difficulty.ordinal()]++;
+            logRecords++;
+        }
+        if (valid < log.size()) {
+            System.err.println("排行榜日志末尾有 " + (log.size() - valid) + " 字节损坏，已截掉");
+            log.truncate(valid);
+        }
+        log.position(valid);
+        top = copy(durableTop);
+        System.arraycopy(durableGames, 0, games, 0, games.length);
+        if (logRecords >= COMPACT_EVERY) {
+            writer.execute(this::compactQuietly);
+        }
+    }
+
+    private void readIndex(ByteBuffer data) throws IOException {
+        int end = data.limit() - 4;
+        if (end < 4 + 2 + 8 + 1) {
+            throw new IOException("排行榜索引太短");
+        }
+        CRC32 crc = new CRC32();
+        ByteBuffer body = data.duplicate();
+        body.limit(end);
+        crc.update(body);
+        if ((int) crc.getValue() != data.getInt(end) || data.getInt() != INDEX_MAGIC) {
+            throw new IOException("排行榜索引损坏");
+        }
+        int version = data.getShort();
+        if (version != VERSION) {
+            throw new IOException("不支持的排行榜索引版本: " + version);
+        }
+        generation = data.getLong();
+        int difficulties = data.get();
+        for (int d = 0; d < difficulties; d++) {
+            long count = data.getLong();
+            int n = data.getShort();
+            GameRecord[] list = new GameRecord[0];
+            for (int i = 0; i < n; i++) {
+                list = insert(list, readFields(data));
+            }
+            if (d < durableTop.length) {
+                durableTop[d] = list;
+                durableGames[d] = count;
+            }
+        }
+    }
+
+    /**
+     * 目录里只留当前代号的日志。压缩改名索引之后、归档之前退出时，旧代日志已经并进了索引，
+     * 在这里补做归档；更新的代号是索引改名前就退出时新建的空日志，还没启用，直接删掉。
+     */
+    private void archiveStaleLogs() throws IOException {
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "scores-*.log")) {
+            for (Path file : files) {
+                long g = generationOf(file);
+                if (g < generation) {
+                    archive(g);
+                } else if (g > generation && Files.size(file) == 0) {
+                    Files.delete(file);
+                }
+            }
+        }
+    }
+
+    private Path logFile(long generation) {
+        return directory.resolve("scores-" + generation + ".log");
+    }
+
+    // 文件名里的代号，不是日志文件名时返回 -1
+    private static long generationOf(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith("scores-") || !name.endsWith(".log")) return -1;
+        try {
+            return Long.parseLong(name.substring("scores-".length(), name.length() - ".log".length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    // 已经并进索引的一代日志移进归档目录，内容不再改动
+    private void archive(long generation) throws IOException {
+        Path archive = directory.resolve(ARCHIVE_DIR);
+        Files.createDirectories(archive);
+        Path from = logFile(generation);
+        Files.move(from, archive.resolve(from.getFileName()), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * 按时间顺序读出目录里记入过的全部对局：先是归档的各代日志，再是当前日志。
+     * 只在查询历史时调用，会读完全部文件；排行榜正在别的进程里写入时可能读不到最后几条。
+     */
+    public static List<GameRecord> history(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        Path archive = directory.resolve(ARCHIVE_DIR);
+        if (Files.isDirectory(archive)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(archive, "scores-*.log")) {
+                for (Path file : files) {
+                    if (generationOf(file) >= 0) segments.add(file);
+                }
+            }
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "scores-*.log")) {
+            for (Path file : files) {
+                if (generationOf(file) >= 0) segments.add(file);
+            }
+        }
+        segments.sort(Comparator.comparingLong(Leaderboard::generationOf));
+        List<GameRecord> records = new ArrayList<>();
+        for (Path file : segments) {
+            ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(file));
+            GameRecord record;
+            while (data.remaining() >= RECORD_SIZE && (record = decodeRecord(data)) != null) {
+                records.add(record);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * 记入一局结束的对局：内存索引立即更新，落盘交给后台线程。可在任意线程调用。
+     */
+    public void record(GameRecord record) {
+        synchronized (this) {
+            int d = record.difficulty.ordinal();
+            GameRecord[] list = insert(top[d], record);
+            if (list != top[d]) {
+                GameRecord[][] next = top.clone();
+                next[d] = list;
+                top = next;
+            }
+            games[d]++;
+        }
+        writer.execute(() -> append(record));
+    }
+
+    // 某个难度的前 K 名，按名次排列；返回的列表不会再变化
+    public List<GameRecord> top(Difficulty difficulty) {
+        return Collections.unmodifiableList(Arrays.asList(top[difficulty.ordinal()]));
+    }
+
+    // 某个难度累计记入的局数
+    public synchronized long getGamesPlayed(Difficulty difficulty) {
+        return games[difficulty.ordinal()];
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    // 在后台立即压缩一次
+    public void compact() {
+        writer.execute(this::compactQuietly);
+    }
+
+    /**
+     * 等排队的写盘完成后关闭日志，最多等 timeoutMillis。
+     */
+    public void close(long timeoutMillis) throws InterruptedException {
+        writer.execute(() -> {
+            try {
+                log.close();
+            } catch (IOException e) {
+                System.err.println("排行榜日志关闭失败: " + e.getMessage());
+            }
+        });
+        writer.shutdown();
+        writer.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // 以下在写线程中执行
+
+    private void append(GameRecord record) {
+        try {
+            recordBuffer.clear();
+            writeFields(recordBuffer, record);
+            CRC32 crc = new CRC32();
+            crc.update(recordBuffer.array(), 0, recordBuffer.position());
+            recordBuffer.putInt((int) crc.getValue());
+            recordBuffer.flip();
+            while (recordBuffer.hasRemaining()) {
+                log.write(recordBuffer);
+            }
+        } catch (IOException e) {
+            System.err.println("排行榜写入失败: " + e.getMessage());
+            return;
+        }
+        int d = record.difficulty.ordinal();
+        durableTop[d] = insert(durableTop[d], record);
+        durableGames[d]++;
+        if (++logRecords >= COMPACT_EVERY) {
+            compactQuietly();
+        }
+    }
+
+    private void compactQuietly() {
+        try {
+            compactNow();
+        } catch (IOException e) {
+            System.err.println("排行榜压缩失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 把写线程的索引连同下一代日志代号原子地写成 index.bin，然后换用下一代的空日志，旧日志归档。
+     * 改名之前退出时旧索引和旧日志仍然完整；改名之后、归档之前退出时旧日志在下次启动时归档。
+     */
+    private void compactNow() throws IOException {
+        long next = generation + 1;
+        int size = 4 + 2 + 8 + 1 + 4;
+        for (GameRecord[] list : durableTop) {
+            size += 8 + 2 + list.length * (RECORD_SIZE - 4);
+        }
+        ByteBuffer data = ByteBuffer.allocate(size);
+        data.putInt(INDEX_MAGIC);
+        data.putShort((short) VERSION);
+        data.putLong(next);
+        data.put((byte) durableTop.length);
+        for (int d = 0; d < durableTop.length; d++) {
+            data.putLong(durableGames[d]);
+            data.putShort((short) durableTop[d].length);
+            for (GameRecord record : durableTop[d]) {
+                writeFields(data, record);
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(data.array(), 0, data.position());
+        data.putInt((int) crc.getValue());
+        data.flip();
+
+        FileChannel nextLog = FileChannel.open(logFile(next), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            ReplayRecorder.write(directory.resolve(INDEX_FILE), data);
+        } catch (IOException e) {
+            nextLog.close();
+            Files.deleteIfExists(logFile(next));
+            throw e;
+        }
+        log.close();
+        log = nextLog;
+        long previous = generation;
+        generation = next;
+        logRecords = 0;
+        archive(previous);
+    }
+
+    // 插入一条记录，没进前 K 名时返回原数组，否则返回新数组
+    private GameRecord[] insert(GameRecord[] list, GameRecord record) {
+        int rank = list.length;
+        while (rank > 0 && record.ranksAbove(list[rank - 1])) {
+            rank--;
+        }
+        if (rank >= capacity) return list;
+        int length = Math.min(capacity, list.length + 1);
+        GameRecord[] result = new GameRecord[length];
+        System.arraycopy(list, 0, result, 0, rank);
+        result[rank] = record;
+        System.arraycopy(list, rank, result, rank + 1, length - rank - 1);
+        return result;
+    }
+
+    private static GameRecord[][] copy(GameRecord[][] lists) {
+        GameRecord[][] result = new GameRecord[lists.length][];
+        for (int i = 0; i < lists.length; i++) {
+            result[i] = lists[i].clone();
+        }
+        return result;
+    }
+
+    private static void writeFields(ByteBuffer out, GameRecord record) {
+        out.putLong(record.endedAt);
+        out.putLong(record.seed);
+        out.putLong(record.durationMillis);
+        out.putInt(record.score);
+        out.putInt(record.lines);
+        out.putInt(record.pieces);
+        out.put((byte) record.difficulty.ordinal());
+    }
+
+    private static GameRecord readFields(ByteBuffer in) throws IOException {
+        long endedAt = in.getLong();
+        long seed = in.getLong();
+        long duration = in.getLong();
+        int score = in.getInt();
+        int lines = in.getInt();
+        int pieces = in.getInt();
+        int difficulty = in.get();
+        if (difficulty < 0 || difficulty >= Difficulty.values().length) {
+            throw new IOException("排行榜数据损坏: 难度 " + difficulty);
+        }
+        return new GameRecord(score, lines, pieces, Difficulty.values()[difficulty], duration, seed, endedAt);
+    }
+
+    // 校验不过时返回 null
+    private static GameRecord decodeRecord(ByteBuffer in) {
+        int start = in.position();
+        CRC32 crc = new CRC32();
+        ByteBuffer body = in.duplicate();
+        body.limit(start + RECORD_SIZE - 4);
+        crc.update(body);
+        if ((int) crc.getValue() != in.getInt(start + RECORD_SIZE - 4)) {
+            return null;
+        }
+        try {
+            GameRecord record = readFields(in);
+            in.position(start + RECORD_SIZE);
+            return record;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--history")) {
+            Path directory = Paths.get(args.length > 1 ? args[1] : "leaderboard");
+            for (GameRecord record : history(directory)) {
+                System.out.printf("%s  %s%n", record.difficulty.getDisplayName(), record);
+            }
+            return;
+        }
+        Path directory = Paths.get(args.length > 0 ? args[0] : "leaderboard");
+        Leaderboard board = open(directory, DEFAULT_TOP);
+        for (Difficulty difficulty : Difficulty.values()) {
+            System.out.println(difficulty.getDisplayName() + "（共 " + board.getGamesPlayed(difficulty) + " 局）");
+            List<GameRecord> list = board.top(difficulty);
+            for (int i = 0; i < list.size(); i++) {
+                System.out.printf("  %2d. %s%n", i + 1, list.get(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package tetris;
+
+import javax.swing.*;
+import java.awt.*;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * 对战客户端：连接 MatchServer，等服务器配好对手后并排显示自己和对手的棋盘。
+ * 客户端不运行游戏逻辑，两块棋盘都是 RemoteGame 镜像，由网络线程按 STATE 增量更新；
+ * 按键通过 INPUT 消息发给服务器。
+ *
+ * 用法: java tetris.MatchClient [--host 主机] [--port P]
+ */
+public class MatchClient extends JFrame {
+    private final SocketChannel channel;
+    private final MatchConnection connection;
+    private final ByteBuffer inputFrame = ByteBuffer.allocate(16);
+    private final boolean[] held = new boolean[InputHandler.ACTION_COUNT];
+    private final JLabel status = new JLabel("等待对手加入…", JLabel.CENTER);
+    private final JPanel boards = new JPanel(new GridLayout(1, 2, 10, 0));
+    private RemoteGame[] games;
+    private TetrisPanel[] panels;
+    private int self;
+    private long inputSeq;
+    private volatile boolean ended;
+
+    public MatchClient(SocketChannel channel) {
+        this.channel = channel;
+        this.connection = new MatchConnection(channel, 1024);
+        setTitle("俄罗斯方块 - 对战");
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setLayout(new BorderLayout(10, 10));
+        getContentPane().setBackground(new Color(40, 44, 52));
+
+        status.setFont(new Font("微软雅黑", Font.BOLD, 22));
+        status.setForeground(Color.WHITE);
+        status.setBorder(BorderFactory.createEmptyBorder(10, 0, 0, 0));
+        boards.setBackground(new Color(40, 44, 52));
+        boards.setBorder(BorderFactory.createEmptyBorder(0, 10, 10, 10));
+        add(status, BorderLayout.NORTH);
+        add(boards, BorderLayout.CENTER);
+
+        setSize(1100, 700);
+        setLocationRelativeTo(null);
+        setVisible(true);
+    }
+
+    // 网络线程：阻塞读取服务器消息直到连接关闭
+    private void receive() {
+        try {
+            while (connection.read(this::handleFrame)) {
+                // 每读一次就处理完其中的全部帧
+            }
+        } catch (IOException | RuntimeException e) {
+            System.err.println("对战连接出错: " + e.getMessage());
+        }
+        if (!ended) {
+            SwingUtilities.invokeLater(() -> status.setText("连接已断开"));
+        }
+    }
+
+    private void handleFrame(int type, ByteBuffer payload) {
+        switch (type) {
+            case MatchProtocol.MATCH_START:
+                self = payload.get();
+                int width = payload.getShort();
+                int height = payload.getShort();
+                startMatch(width, height);
+                break;
+            case MatchProtocol.STATE: {
+                int player = payload.get();
+                MatchProtocol.readVarint(payload);  // 输入确认只有压测用得到
+                games[player].apply(payload);
+                panels[player].publishView();
+                break;
+            }
+            case MatchProtocol.MATCH_END: {
+                int winner = payload.get() & 0xFF;
+                ended = true;
+                String text = winner == MatchProtocol.DRAW ? "平局" : winner == self ? "你赢了！" : "你输了";
+                SwingUtilities.invokeLater(() -> status.setText(text));
+                break;
+            }
+            default:
+                throw new IllegalStateException("对战数据损坏: 未知消息 " + type);
+        }
+    }
+
+    // 收到 MATCH_START 后在 EDT 上建好两块棋盘，建好之后网络线程才开始发布快照
+    private void startMatch(int width, int height) {
+        games = new RemoteGame[] {new RemoteGame(width, height), new RemoteGame(width, height)};
+        panels = new TetrisPanel[2];
+        try {
+            SwingUtilities.invokeAndWait(() -> {
+                for (int i = 0; i < 2; i++) {
+                    boolean mine = i == self;
+                    panels[i] = new TetrisPanel(games[i], mine ? this::sendInput : null);
+                    panels[i].setBorder(BorderFactory.createLineBorder(
+                            mine ? new Color(50, 205, 50) : new Color(100, 100, 100), 3));
+                }
+                // 自己的棋盘总在左边
+                boards.add(panels[self]);
+                boards.add(panels[1 - self]);
+                boards.revalidate();
+                status.setText("对战开始");
+                panels[self].requestFocusInWindow();
+            });
+        } catch (InterruptedException | InvocationTargetException e) {
+            throw new IllegalStateException("无法创建对战界面", e);
+        }
+    }
+
+    // EDT 上调用；按住不放时操作系统的重复按键不再发送，DAS 由服务器处理
+    private void sendInput(int action, boolean pressed) {
+        if (held[action] == pressed) return;
+        held[action] = pressed;
+        inputFrame.clear();
+        int start = MatchProtocol.beginFrame(inputFrame, MatchProtocol.INPUT);
+        inputFrame.put((byte) action);
+        inputFrame.put((byte) (pressed ? 1 : 0));
+        MatchProtocol.writeVarint(inputFrame, ++inputSeq);
+        MatchProtocol.endFrame(inputFrame, start);
+        inputFrame.flip();
+        try {
+            // 阻塞模式下一次写完，消息只有几个字节
+            while (inputFrame.hasRemaining()) {
+                channel.write(inputFrame);
+            }
+        } catch (IOException e) {
+            status.setText("连接已断开");
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        System.setProperty("file.encoding", "UTF-8");
+        String host = "localhost";
+        int port = MatchProtocol.DEFAULT_PORT;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--host":
+                    host = args[++i];
+                    break;
+                case "--port":
+                    port = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("未知参数: " + args[i]);
+            }
+        }
+        SocketChannel channel = SocketChannel.open(new InetSocketAddress(host, port));
+        channel.socket().setTcpNoDelay(true);
+        SwingUtilities.invokeLater(() -> {
+            MatchClient client = new MatchClient(channel);
+            Thread t = new Thread(client::receive, "Match-Network");
+            t.setDaemon(true);
+            t.start();
+        });
+    }
+}
@@ -0,0 +1,112 @@
+package tetris;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/**
+ * 一条对战连接：SocketChannel 加上按帧拆包的读缓冲和待发送的写缓冲。
+ * 服务器、压测机器人（非阻塞）和图形客户端（阻塞）共用。不是线程安全的。
+ */
+public class MatchConnection {
+    // 收到一个完整的帧，payload 的 position 到 limit 是载荷，处理完不必读完
+    public interface FrameHandler {
+        void frame(int type, ByteBuffer payload);
+    }
+
+    private final SocketChannel channel;
+    private final ByteBuffer in = ByteBuffer.allocate(MatchProtocol.MAX_FRAME + 2);
+    private final ByteBuffer out;
+    private boolean closing;  // 写完剩余数据后关闭
+
+    /**
+     * @param outCapacity 写缓冲大小，对端读得太慢、积压超过它时 send() 返回 false
+     */
+    public MatchConnection(SocketChannel channel, int outCapacity) {
+        this.channel = channel;
+        this.out = ByteBuffer.allocate(outCapacity);
+    }
+
+    public SocketChannel getChannel() {
+        return channel;
+    }
+
+    /**
+     * 读一次 socket，把其中完整的帧依次交给 handler。
+     * @return 对端已关闭时返回 false
+     */
+    public boolean read(FrameHandler handler) throws IOException {
+        if (channel.read(in) < 0) {
+            return false;
+        }
+        in.flip();
+        while (in.remaining() >= 2) {
+            int length = in.getShort(in.position()) & 0xFFFF;
+            if (length == 0) {
+                throw new IOException("对战数据损坏: 空帧");
+            }
+            if (in.remaining() < 2 + length) {
+                break;
+            }
+            int end = in.position() + 2 + length;
+            in.position(in.position() + 2);
+            int type = in.get() & 0xFF;
+            int limit = in.limit();
+            in.limit(end);
+            handler.frame(type, in);
+            in.limit(limit);
+            in.position(end);
+        }
+        in.compact();
+        return true;
+    }
+
+    /**
+     * 把一个完整的帧（从 position 到 limit）放进写缓冲，不改动 frame 本身。
+     * @return 积压太多放不下时返回 false，调用方应当断开这个慢客户端
+     */
+    public boolean send(ByteBuffer frame) {
+        if (out.remaining() < frame.remaining()) {
+            return false;
+        }
+        out.put(frame.duplicate());
+        return true;
+    }
+
+    // 直接在写缓冲里编码一帧，剩余空间不足 size 时返回 null
+    public ByteBuffer reserve(int size) {
+        return out.remaining() >= size ? out : null;
+    }
+
+    /**
+     * 尽量写出缓冲的数据，非阻塞模式下可能只写出一部分。
+     * @return 全部写完时返回 true
+     */
+    public boolean flush() throws IOException {
+        if (out.position() == 0) return true;
+        out.flip();
+        channel.write(out);
+        out.compact();
+        return out.position() == 0;
+    }
+
+    public boolean hasPendingOutput() {
+        return out.position() > 0;
+    }
+
+    public void closeAfterFlush() {
+        closing = true;
+    }
+
+    public boolean isClosing() {
+        return closing;
+    }
+
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // 关闭失败也无事可做
+        }
+    }
+}
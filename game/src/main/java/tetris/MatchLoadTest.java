@@ -0,0 +1,269 @@
+package tetris;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 对战服务器压测：一个线程用一个 Selector 驱动大量机器人客户端，两两被服务器配成对局。
+ * 机器人随机按下并松开方向、旋转和硬降键，统计按键到服务器回发带确认的 STATE 的延迟，
+ * 以及按各自棋盘帧数推算的服务器实际逻辑步频率。对局结束后机器人立即重连，负载保持不变。
+ *
+ * 用法: java tetris.MatchLoadTest [--host 主机] [--port P] [--bots N] [--seconds S]
+ *                                 [--apm 每分钟操作数] [--local 分片数]
+ * --local 在本进程里启动一个服务器（随机端口），忽略 --host 和 --port。
+ */
+public class MatchLoadTest {
+    private static final int STAMP_RING = 256;  // 每个机器人记住最近这么多次输入的发送时间
+    private static final int OUT_CAPACITY = 4096;
+    private static final int[] ACTIONS = {
+            InputHandler.LEFT, InputHandler.RIGHT, InputHandler.ROTATE,
+            InputHandler.LEFT, InputHandler.RIGHT, InputHandler.HARD_DROP
+    };
+
+    private String host = "localhost";
+    private int port = MatchProtocol.DEFAULT_PORT;
+    private int botCount = 200;
+    private int seconds = 30;
+    private int actionsPerMinute = 180;
+    private int localShards = 0;
+
+    private final SplitMix64 random = new SplitMix64(System.nanoTime());
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final ByteBuffer frame = ByteBuffer.allocate(16);
+    private final List<Bot> bots = new ArrayList<>();
+    private Selector selector;
+    private long playerTicks;
+    private long states;
+    private long bytesIn;
+    private long matchesEnded;
+    private long reconnects;
+
+    public static void main(String[] args) throws IOException {
+        MatchLoadTest test = new MatchLoadTest();
+        test.parseArgs(args);
+        test.run();
+    }
+
+    private void parseArgs(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--host":
+                    host = args[++i];
+                    break;
+                case "--port":
+                    port = Integer.parseInt(args[++i]);
+                    break;
+                case "--bots":
+                    botCount = Integer.parseInt(args[++i]);
+                    break;
+                case "--seconds":
+                    seconds = Integer.parseInt(args[++i]);
+                    break;
+                case "--apm":
+                    actionsPerMinute = Integer.parseInt(args[++i]);
+                    break;
+                case "--local":
+                    localShards = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("未知参数: " + args[i]);
+            }
+        }
+        if (botCount < 2 || botCount % 2 != 0) {
+            throw new IllegalArgumentException("机器人数必须是不小于 2 的偶数: " + botCount);
+        }
+    }
+
+    private void run() throws IOException {
+        MatchServer server = null;
+        if (localShards > 0) {
+            server = new MatchServer(0, localShards, TetrisEngine.BOARD_WIDTH, TetrisEngine.BOARD_HEIGHT);
+            server.start();
+            host = "localhost";
+            port = server.getPort();
+        }
+        selector = Selector.open();
+        for (int i = 0; i < botCount; i++) {
+            bots.add(connect());
+        }
+        System.out.printf("%d 个机器人连接 %s:%d, 每分钟 %d 次操作, 持续 %d 秒%n",
+                botCount, host, port, actionsPerMinute, seconds);
+
+        long interval = 60_000_000_000L / Math.max(1, actionsPerMinute) / 2;  // 按下和松开各占一半
+        long start = System.nanoTime();
+        long end = start + seconds * 1_000_000_000L;
+        long nextReport = start + 1_000_000_000L;
+        long reportTicks = 0;
+        while (true) {
+            long now = System.nanoTime();
+            if (now - end >= 0) break;
+            selector.select(1);
+            handleKeys();
+            now = System.nanoTime();
+            for (int i = 0; i < bots.size(); i++) {
+                Bot bot = bots.get(i);
+                if (bot.closed) {
+                    bots.set(i, connect());
+                    reconnects++;
+                    continue;
+                }
+                if (bot.started && now - bot.nextAction >= 0) {
+                    bot.act(now);
+                    bot.nextAction = now + interval / 2 + random.nextInt((int) Math.min(Integer.MAX_VALUE, interval));
+                }
+                bot.flush();
+            }
+            if (now - nextReport >= 0) {
+                System.out.printf("对局逻辑步 %d/s (满速 %d/s) | 按键到状态 p99 %.1f ms%n",
+                        (playerTicks - reportTicks) / 2, botCount / 2 * TetrisEngine.TICKS_PER_SECOND,
+                        latency.percentile(99) / 1e6);
+                reportTicks = playerTicks;
+                nextReport += 1_000_000_000L;
+            }
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+        System.out.printf("对局逻辑步 平均 %.0f/s (满速 %d/s) | 状态 %.0f/s | 接收 %.1f KB/s | "
+                        + "结束对局 %d | 重连 %d%n",
+                playerTicks / 2 / elapsed, botCount / 2 * TetrisEngine.TICKS_PER_SECOND, states / elapsed,
+                bytesIn / 1024.0 / elapsed, matchesEnded / 2, reconnects);
+        System.out.println("按键到状态延迟: " + latency.summary());
+        for (Bot bot : bots) {
+            bot.close();
+        }
+        selector.close();
+        if (server != null) {
+            server.stop();
+        }
+    }
+
+    private Bot connect() throws IOException {
+        SocketChannel channel = SocketChannel.open();
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        Bot bot = new Bot(channel);
+        if (channel.connect(new InetSocketAddress(host, port))) {
+            bot.key = channel.register(selector, SelectionKey.OP_READ, bot);
+        } else {
+            bot.key = channel.register(selector, SelectionKey.OP_CONNECT, bot);
+        }
+        return bot;
+    }
+
+    private void handleKeys() {
+        Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+        while (it.hasNext()) {
+            SelectionKey key = it.next();
+            it.remove();
+            Bot bot = (Bot) key.attachment();
+            try {
+                if (key.isConnectable()) {
+                    bot.connection.getChannel().finishConnect();
+                    key.interestOps(SelectionKey.OP_READ);
+                } else if (key.isReadable() && !bot.connection.read(bot)) {
+                    bot.close();
+                }
+            } catch (IOException | RuntimeException e) {
+                bot.close();
+            }
+        }
+    }
+
+    private final class Bot implements MatchConnection.FrameHandler {
+        private final MatchConnection connection;
+        private final long[] sentAt = new long[STAMP_RING];
+        private SelectionKey key;
+        private boolean started;
+        private boolean closed;
+        private int self;
+        private long seq;
+        private long acked;
+        private long lastFrame = -1;
+        private long nextAction;
+        private int heldAction = -1;
+
+        Bot(SocketChannel channel) {
+            connection = new MatchConnection(channel, OUT_CAPACITY);
+        }
+
+        @Override
+        public void frame(int type, ByteBuffer payload) {
+            bytesIn += payload.remaining() + 3;
+            switch (type) {
+                case MatchProtocol.MATCH_START:
+                    self = payload.get();
+                    started = true;
+                    nextAction = System.nanoTime();
+                    break;
+                case MatchProtocol.STATE: {
+                    states++;
+                    int player = payload.get();
+                    if (player != self) break;
+                    long ack = MatchProtocol.readVarint(payload);
+                    long frameCount = MatchProtocol.readVarint(payload);
+                    long now = System.nanoTime();
+                    for (long s = Math.max(acked + 1, seq - STAMP_RING + 1); s <= ack; s++) {
+                        latency.record(now - sentAt[(int) (s % STAMP_RING)]);
+                    }
+                    acked = Math.max(acked, ack);
+                    if (lastFrame >= 0) playerTicks += frameCount - lastFrame;
+                    lastFrame = frameCount;
+                    break;
+                }
+                case MatchProtocol.MATCH_END:
+                    matchesEnded++;
+                    started = false;
+                    break;
+                default:
+                    throw new IllegalStateException("对战数据损坏: 未知消息 " + type);
+            }
+        }
+
+        // 松开上一次按下的键，或者随机按下一个新键
+        void act(long now) {
+            if (heldAction >= 0) {
+                send(heldAction, false, now);
+                heldAction = -1;
+            } else {
+                heldAction = ACTIONS[random.nextInt(ACTIONS.length)];
+                send(heldAction, true, now);
+            }
+        }
+
+        private void send(int action, boolean pressed, long now) {
+            seq++;
+            sentAt[(int) (seq % STAMP_RING)] = now;
+            frame.clear();
+            int start = MatchProtocol.beginFrame(frame, MatchProtocol.INPUT);
+            frame.put((byte) action);
+            frame.put((byte) (pressed ? 1 : 0));
+            MatchProtocol.writeVarint(frame, seq);
+            MatchProtocol.endFrame(frame, start);
+            frame.flip();
+            if (!connection.send(frame)) {
+                close();
+            }
+        }
+
+        void flush() {
+            if (closed || !connection.hasPendingOutput()) return;
+            try {
+                connection.flush();
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        void close() {
+            closed = true;
+            if (key != null) key.cancel();
+            connection.close();
+        }
+    }
+}
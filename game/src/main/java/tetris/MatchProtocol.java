@@ -0,0 +1,120 @@
+package tetris;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 对战协议。TCP 上的每一帧为 [ushort 长度][byte 类型][载荷]，长度不含自身的两个字节。
+ *
+ * 客户端 → 服务器
+ *   INPUT        byte 动作 (InputHandler 编号), byte 是否按下, varint 输入序号
+ * 服务器 → 客户端
+ *   MATCH_START  byte 自己的玩家序号, short 棋盘宽, short 棋盘高
+ *   STATE        byte 玩家序号, varint 该玩家已处理的最大输入序号, varint 帧数, byte 标志,
+ *                [有活动方块时: byte 形状, byte 朝向, zigzag varint x, zigzag varint y],
+ *                byte 下一块形状 (NO_SHAPE 表示没有), varint 得分, varint 方块数, varint 待收垃圾行,
+ *                varint 变化行数, 每行: varint 行号, 行程编码 (byte 颜色, varint 长度)... 直到凑满一行
+ *   MATCH_END    byte 胜者序号 (DRAW 表示平局)
+ *
+ * STATE 是相对上一次发给同一连接的状态的增量：只带内容确实变了的行，
+ * 双方都从空棋盘开始，TCP 保证按序送达。
+ */
+public final class MatchProtocol {
+    public static final int DEFAULT_PORT = 7777;
+    public static final int MAX_FRAME = 0xFFFF;
+
+    public static final int INPUT = 1;
+    public static final int MATCH_START = 2;
+    public static final int STATE = 3;
+    public static final int MATCH_END = 4;
+
+    public static final int FLAG_BLOCK = 1;
+    public static final int FLAG_GAME_OVER = 2;
+    public static final int NO_SHAPE = 0xFF;
+    public static final int DRAW = 0xFF;
+
+    // 整块棋盘都变化时一帧 STATE 也放得下
+    public static final int MAX_BOARD_WIDTH = 64;
+    public static final int MAX_BOARD_HEIGHT = 256;
+
+    private MatchProtocol() {
+    }
+
+    /**
+     * 在 out 的当前位置开始一帧，先占住长度字段。
+     * @return 帧的起始位置，交给 endFrame()
+     */
+    public static int beginFrame(ByteBuffer out, int type) {
+        int start = out.position();
+        out.putShort((short) 0);
+        out.put((byte) type);
+        return start;
+    }
+
+    public static void endFrame(ByteBuffer out, int start) {
+        out.putShort(start, (short) (out.position() - start - 2));
+    }
+
+    public static void writeVarint(ByteBuffer out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        out.put((byte) value);
+    }
+
+    public static long readVarint(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    public static long zigzag(int value) {
+        return ((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL;
+    }
+
+    public static int unzigzag(long value) {
+        int v = (int) value;
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    // 行程编码一行颜色，空行只占两个字节
+    public static void writeRow(ByteBuffer out, byte[] colors, int offset, int width) {
+        int x = 0;
+        while (x < width) {
+            byte color = colors[offset + x];
+            int run = 1;
+            while (x + run < width && colors[offset + x + run] == color) {
+                run++;
+            }
+            out.put(color);
+            writeVarint(out, run);
+            x += run;
+        }
+    }
+
+    public static void readRow(ByteBuffer in, byte[] dest, int offset, int width) {
+        int x = 0;
+        while (x < width) {
+            byte color = in.get();
+            int run = (int) readVarint(in);
+            if (run <= 0 || x + run > width) {
+                throw new IllegalStateException("对战数据损坏: 行程长度 " + run);
+            }
+            for (int i = 0; i < run; i++) {
+                dest[offset + x + i] = color;
+            }
+            x += run;
+        }
+    }
+
+    // 最坏情况下一帧 STATE 的长度，每格一个颜色加一个长度
+    public static int maxStateSize(int width, int height) {
+        return 64 + height * (3 + 2 * width);
+    }
+}
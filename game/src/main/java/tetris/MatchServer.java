@@ -0,0 +1,615 @@
+package tetris;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 无界面的对战服务器。接入线程把连上来的客户端两两配成一局，轮流交给若干个分片线程；
+ * 每个分片一个 Selector、一个线程，独占自己的对局：读输入、以 60Hz 推进所有对局、
+ * 把棋盘增量写回去，全程非阻塞，不加锁，一台机器可以同时承载数千局。
+ *
+ * 对局规则：两名玩家用同一个种子开局，方块序列相同。一次消 2/3/4 行分别给对手送
+ * 1/2/4 行垃圾行，先抵消自己待收的垃圾行；待收的垃圾行在下一次没有消行的固定后插入，
+ * 同一批垃圾行的缺口在同一列。先被顶出棋盘的一方输，随后服务器关闭两条连接。
+ * 按键由服务器端的 InputHandler 处理，DAS/ARR 以服务器为准。
+ *
+ * 用法: java tetris.MatchServer [--port P] [--shards N] [--width W] [--height H] [--stats 秒]
+ */
+public class MatchServer {
+    private static final long TICK_NANOS = 1_000_000_000L / TetrisEngine.TICKS_PER_SECOND;
+    private static final int MAX_CATCH_UP_TICKS = 5;   // 落后太多时丢弃积压，防止雪崩
+    private static final int OUT_CAPACITY = 256 * 1024; // 积压超过它的客户端被断开
+    private static final long CLOSE_TIMEOUT_NANOS = 5_000_000_000L;  // 对局结束后最多等这么久让对端读完
+
+    private final int width;
+    private final int height;
+    private final ServerSocketChannel server;
+    private final Shard[] shards;
+    private final SplitMix64 seeds = new SplitMix64(System.nanoTime());  // 只由接入线程使用
+    private final ByteBuffer probe = ByteBuffer.allocate(1);              // 只由接入线程使用
+    private volatile boolean running;
+    private Thread acceptor;
+
+    public MatchServer(int port, int shardCount, int width, int height) throws IOException {
+        if (width < 4 || width > MatchProtocol.MAX_BOARD_WIDTH) {
+            throw new IllegalArgumentException("对战棋盘宽度必须在 4 到 " + MatchProtocol.MAX_BOARD_WIDTH
+                    + " 之间: " + width);
+        }
+        if (height < 4 || height > MatchProtocol.MAX_BOARD_HEIGHT) {
+            throw new IllegalArgumentException("对战棋盘高度必须在 4 到 " + MatchProtocol.MAX_BOARD_HEIGHT
+                    + " 之间: " + height);
+        }
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("分片数必须大于 0: " + shardCount);
+        }
+        this.width = width;
+        this.height = height;
+        server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(port), 1024);
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+    // 实际监听的端口，构造时传 0 由系统分配
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        for (int i = 0; i < shards.length; i++) {
+            Thread t = new Thread(shards[i], "Match-Shard-" + i);
+            t.setDaemon(true);
+            t.start();
+        }
+        acceptor = new Thread(this::acceptLoop, "Match-Acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public synchronized void stop() {
+        running = false;
+        try {
+            server.close();
+        } catch (IOException e) {
+            // 接入线程会随 accept 失败退出
+        }
+        for (Shard shard : shards) {
+            shard.selector.wakeup();
+        }
+    }
+
+    // 阻塞接入，凑够两个连接就开一局，对局按轮转分给各分片
+    private void acceptLoop() {
+        SocketChannel waiting = null;
+        int next = 0;
+        long matchId = 0;
+        while (running) {
+            SocketChannel channel;
+            try {
+                channel = server.accept();
+                channel.configureBlocking(false);
+                channel.socket().setTcpNoDelay(true);
+            } catch (IOException e) {
+                if (running) System.err.println("接入失败: " + e.getMessage());
+                continue;
+            }
+            if (waiting == null || !isAlive(waiting)) {
+                waiting = channel;
+                continue;
+            }
+            Shard shard = shards[next];
+            next = (next + 1) % shards.length;
+            shard.submit(new Match(++matchId, waiting, channel, seeds.nextLong()));
+            waiting = null;
+        }
+    }
+
+    /**
+     * 等待配对的连接是否还连着。开局前客户端不发任何数据，非阻塞地读一次：
+     * 读到 -1 或出错说明对端已断开，读到数据说明对端不守协议，两种情况都关掉连接。
+     */
+    private boolean isAlive(SocketChannel channel) {
+        if (!channel.isOpen()) return false;
+        probe.clear();
+        try {
+            if (channel.read(probe) == 0) return true;
+        } catch (IOException e) {
+            // 按断开处理
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            // 已经不可用，忽略
+        }
+        return false;
+    }
+
+    /**
+     * 各分片统计的汇总，差值由调用方按时间窗口计算。
+     * @return {进行中的对局, 已结束的对局, 累计对局逻辑步, 累计发送字节, 累计接收字节}
+     */
+    public long[] totals() {
+        long[] totals = new long[5];
+        for (Shard shard : shards) {
+            totals[0] += shard.activeMatches;
+            totals[1] += shard.finishedMatches;
+            totals[2] += shard.matchTicks;
+            totals[3] += shard.bytesOut;
+            totals[4] += shard.bytesIn;
+        }
+        return totals;
+    }
+
+    // 最近一秒各分片推进一个逻辑步（全部对局）耗时 p99 的最大值，毫秒
+    public double getTickTimeP99() {
+        double max = 0;
+        for (Shard shard : shards) {
+            max = Math.max(max, shard.tickP99Millis);
+        }
+        return max;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = MatchProtocol.DEFAULT_PORT;
+        int shardCount = Runtime.getRuntime().availableProcessors();
+        int width = TetrisEngine.BOARD_WIDTH;
+        int height = TetrisEngine.BOARD_HEIGHT;
+        int statsSeconds = 5;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port":
+                    port = Integer.parseInt(args[++i]);
+                    break;
+                case "--shards":
+                    shardCount = Integer.parseInt(args[++i]);
+                    break;
+                case "--width":
+                    width = Integer.parseInt(args[++i]);
+                    break;
+                case "--height":
+                    height = Integer.parseInt(args[++i]);
+                    break;
+                case "--stats":
+                    statsSeconds = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("未知参数: " + args[i]);
+            }
+        }
+        MatchServer server = new MatchServer(port, shardCount, width, height);
+        server.start();
+        System.out.printf("对战服务器已启动: 端口 %d, %d 个分片, 棋盘 %dx%d%n",
+                server.getPort(), shardCount, width, height);
+        long[] last = server.totals();
+        while (true) {
+            Thread.sleep(statsSeconds * 1000L);
+            long[] now = server.totals();
+            System.out.printf("对局 %d 进行中 / %d 已结束 | 逻辑步 %.0f/s | 单步耗时 p99 %.2f ms | "
+                            + "发送 %.1f KB/s 接收 %.1f KB/s%n",
+                    now[0], now[1], (double) (now[2] - last[2]) / statsSeconds, server.getTickTimeP99(),
+                    (now[3] - last[3]) / 1024.0 / statsSeconds, (now[4] - last[4]) / 1024.0 / statsSeconds);
+            last = now;
+        }
+    }
+
+    /**
+     * 一个分片：一个线程、一个 Selector 和它独占的对局。
+     * 统计字段只由分片线程写，其他线程读到的值可能稍旧。
+     */
+    private final class Shard implements Runnable {
+        private final Selector selector;
+        private final ConcurrentLinkedQueue<Match> incoming = new ConcurrentLinkedQueue<>();
+        private final List<Match> matches = new ArrayList<>();
+        private final ByteBuffer scratch = ByteBuffer.allocate(MatchProtocol.maxStateSize(width, height));
+        private final int[] changedRows = new int[height];
+        private final LatencyHistogram tickTimes = new LatencyHistogram();
+        private long windowStart = System.nanoTime();
+
+        private volatile int activeMatches;
+        private volatile long finishedMatches;
+        private volatile long matchTicks;
+        private volatile long bytesOut;
+        private volatile long bytesIn;
+        private volatile double tickP99Millis;
+
+        Shard() {
+            try {
+                selector = Selector.open();
+            } catch (IOException e) {
+                throw new IllegalStateException("无法创建 Selector", e);
+            }
+        }
+
+        void submit(Match match) {
+            incoming.offer(match);
+            selector.wakeup();
+        }
+
+        @Override
+        public void run() {
+            long next = System.nanoTime();
+            while (running) {
+                try {
+                    long wait = next - System.nanoTime();
+                    if (wait >= 1_000_000) {
+                        selector.select(wait / 1_000_000);
+                    } else {
+                        selector.selectNow();
+                    }
+                } catch (IOException e) {
+                    System.err.println("Selector 出错: " + e.getMessage());
+                    break;
+                }
+                Match match;
+                while ((match = incoming.poll()) != null) {
+                    match.begin(this);
+                }
+                handleKeys();
+
+                long now = System.nanoTime();
+                if (now - next >= 0) {
+                    if (now - next > MAX_CATCH_UP_TICKS * TICK_NANOS) {
+                        next = now - MAX_CATCH_UP_TICKS * TICK_NANOS;
+                    }
+                    while (now - next >= 0) {
+                        tickAll();
+                        next += TICK_NANOS;
+                    }
+                    flushAll();
+                }
+            }
+            for (Match m : matches) {
+                for (Player p : m.players) {
+                    p.connection.close();
+                }
+            }
+        }
+
+        private void handleKeys() {
+            Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+            while (it.hasNext()) {
+                SelectionKey key = it.next();
+                it.remove();
+                Player player = (Player) key.attachment();
+                if (key.isValid() && key.isReadable()) {
+                    player.read();
+                }
+                if (key.isValid() && key.isWritable()) {
+                    player.flush();
+                }
+            }
+        }
+
+        private void tickAll() {
+            long start = System.nanoTime();
+            Iterator<Match> it = matches.iterator();
+            while (it.hasNext()) {
+                Match match = it.next();
+                match.closeIfOverdue(start);
+                if (match.isFinished()) {
+                    it.remove();
+                    finishedMatches++;
+                    continue;
+                }
+                match.tick();
+            }
+            activeMatches = matches.size();
+            matchTicks += matches.size();
+            long end = System.nanoTime();
+            tickTimes.record(end - start);
+            if (end - windowStart >= 1_000_000_000L) {
+                tickP99Millis = tickTimes.percentile(99) / 1e6;
+                tickTimes.reset();
+                windowStart = end;
+            }
+        }
+
+        private void flushAll() {
+            for (Match match : matches) {
+                for (Player p : match.players) {
+                    if (p.connection.hasPendingOutput() || p.connection.isClosing()) {
+                        p.flush();
+                    }
+                }
+            }
+        }
+    }
+
+    private final class Match {
+        private final long id;
+        private final Player[] players = new Player[2];
+        private final SplitMix64 random;
+        private final long seed;
+        private Shard shard;
+        private boolean over;
+        private long endedAt;
+
+        Match(long id, SocketChannel a, SocketChannel b, long seed) {
+            this.id = id;
+            this.seed = seed;
+            this.random = new SplitMix64(seed ^ id);
+            players[0] = new Player(this, 0, a);
+            players[1] = new Player(this, 1, b);
+        }
+
+        // 在分片线程中注册连接、开局并通知双方
+        void begin(Shard shard) {
+            this.shard = shard;
+            shard.matches.add(this);
+            for (Player p : players) {
+                p.engine.start(seed);
+                try {
+                    p.key = p.connection.getChannel().register(shard.selector, SelectionKey.OP_READ, p);
+                } catch (ClosedChannelException e) {
+                    p.disconnect();
+                    continue;
+                }
+                ByteBuffer out = p.connection.reserve(16);
+                int start = MatchProtocol.beginFrame(out, MatchProtocol.MATCH_START);
+                out.put((byte) p.index);
+                out.putShort((short) width);
+                out.putShort((short) height);
+                MatchProtocol.endFrame(out, start);
+            }
+        }
+
+        void tick() {
+            if (over) return;
+            for (Player p : players) {
+                p.update();
+            }
+            for (Player p : players) {
+                broadcastState(p);
+            }
+            boolean lost0 = players[0].engine.isGameOver();
+            boolean lost1 = players[1].engine.isGameOver();
+            if (lost0 || lost1) {
+                end(lost0 && lost1 ? MatchProtocol.DRAW : lost0 ? 1 : 0);
+            }
+        }
+
+        Player opponent(Player p) {
+            return players[1 - p.index];
+        }
+
+        int nextHole() {
+            return random.nextInt(width);
+        }
+
+        // 一名玩家的增量状态发给双方，编码一次、复制到两个写缓冲
+        private void broadcastState(Player p) {
+            ByteBuffer out = shard.scratch;
+            out.clear();
+            if (!p.encodeState(out, shard.changedRows)) return;
+            out.flip();
+            for (Player receiver : players) {
+                if (receiver.connection.isClosing() || !receiver.connection.getChannel().isOpen()) continue;
+                if (receiver.connection.send(out)) {
+                    shard.bytesOut += out.remaining();
+                } else {
+                    System.err.println("对局 " + id + " 的玩家 " + receiver.index + " 接收太慢，断开连接");
+                    receiver.disconnect();
+                }
+            }
+        }
+
+        void end(int winner) {
+            if (over) return;
+            over = true;
+            endedAt = System.nanoTime();
+            for (Player p : players) {
+                if (!p.connection.getChannel().isOpen()) continue;
+                ByteBuffer out = p.connection.reserve(8);
+                if (out != null) {
+                    int start = MatchProtocol.beginFrame(out, MatchProtocol.MATCH_END);
+                    out.put((byte) winner);
+                    MatchProtocol.endFrame(out, start);
+                }
+                p.connection.closeAfterFlush();
+            }
+        }
+
+        /**
+         * 结束后连接要等剩余数据写完才关闭。对端不再读取或已经半死时写不完，
+         * 到期后直接关闭，对局和它的引擎、缓冲区才能从分片里移除。
+         */
+        void closeIfOverdue(long now) {
+            if (!over || now - endedAt < CLOSE_TIMEOUT_NANOS) return;
+            for (Player p : players) {
+                if (p.connection.getChannel().isOpen()) {
+                    p.disconnect();
+                }
+            }
+        }
+
+        // 结束且两条连接都已关闭后由分片移除
+        boolean isFinished() {
+            return over && !players[0].connection.getChannel().isOpen()
+                    && !players[1].connection.getChannel().isOpen();
+        }
+    }
+
+    private final class Player implements MatchConnection.FrameHandler {
+        private final Match match;
+        private final int index;
+        private final MatchConnection connection;
+        private final TetrisEngine engine;
+        private final InputHandler input = new InputHandler();
+        private final byte[] current = new byte[width * height];
+        private final byte[] sent = new byte[width * height];  // 客户端已有的棋盘内容
+        private SelectionKey key;
+        private long inputSeq;
+        private int pendingGarbage;
+
+        // 上一次发出的状态，没有变化时不发
+        private long sentSeq = -1;
+        private int sentFlags = -1;
+        private int sentX;
+        private int sentY;
+        private int sentRotation;
+        private int sentShape;
+        private int sentNext;
+        private int sentScore;
+        private int sentPending;
+
+        Player(Match match, int index, SocketChannel channel) {
+            this.match = match;
+            this.index = index;
+            this.connection = new MatchConnection(channel, OUT_CAPACITY);
+            this.engine = new TetrisEngine(PieceGenerator.bag(match.seed), 1, width, height);
+        }
+
+        void read() {
+            try {
+                if (!connection.read(this)) {
+                    disconnect();
+                }
+            } catch (IOException | RuntimeException e) {
+                disconnect();
+            }
+        }
+
+        @Override
+        public void frame(int type, ByteBuffer payload) {
+            match.shard.bytesIn += payload.remaining() + 3;
+            if (type != MatchProtocol.INPUT) {
+                throw new IllegalStateException("对战数据损坏: 未知消息 " + type);
+            }
+            int action = payload.get();
+            boolean pressed = payload.get() != 0;
+            long seq = MatchProtocol.readVarint(payload);
+            if (action < 0 || action >= InputHandler.ACTION_COUNT) {
+                throw new IllegalStateException("对战数据损坏: 未知动作 " + action);
+            }
+            if (pressed) {
+                input.keyPressed(action, System.nanoTime());
+            } else {
+                input.keyReleased(action, System.nanoTime());
+            }
+            inputSeq = Math.max(inputSeq, seq);
+        }
+
+        // 一个逻辑步：按键、重力，固定方块后结算攻击和待收的垃圾行
+        void update() {
+            if (engine.isGameOver()) return;
+            int pieces = engine.getPiecesPlaced();
+            int lines = engine.getLinesCleared();
+            input.update(engine);
+            engine.tick();
+            if (engine.getPiecesPlaced() == pieces) return;
+
+            int attack = engine.takeAttack();
+            int cancel = Math.min(attack, pendingGarbage);
+            pendingGarbage -= cancel;
+            match.opponent(this).pendingGarbage += attack - cancel;
+            if (pendingGarbage > 0 && engine.getLinesCleared() == lines) {
+                engine.addGarbage(pendingGarbage, match.nextHole());
+                pendingGarbage = 0;
+            }
+        }
+
+        /**
+         * 把相对上次发送的变化编码成一帧 STATE，没有变化时不写任何内容。
+         * 只比较引擎标记为脏的行，再逐行与客户端已有的内容比对。
+         */
+        boolean encodeState(ByteBuffer out, int[] changedRows) {
+            int lo = engine.getDirtyMinRow();
+            int hi = engine.getDirtyMaxRow();
+            engine.clearDirtyRows();
+            int changed = 0;
+            if (lo <= hi) {
+                engine.getBoard().copyColors(lo, hi, current);
+                for (int y = lo; y <= hi; y++) {
+                    int from = y * width;
+                    if (Arrays.mismatch(current, from, from + width, sent, from, from + width) >= 0) {
+                        System.arraycopy(current, from, sent, from, width);
+                        changedRows[changed++] = y;
+                    }
+                }
+            }
+            Block block = engine.getCurrentBlock();
+            Block next = engine.getNextBlock();
+            int flags = (block != null ? MatchProtocol.FLAG_BLOCK : 0)
+                    | (engine.isGameOver() ? MatchProtocol.FLAG_GAME_OVER : 0);
+            int x = block != null ? block.x : 0;
+            int y = block != null ? block.y : 0;
+            int rotation = block != null ? block.rotation : 0;
+            int shape = block != null ? block.shape : 0;
+            int nextShape = next != null ? next.shape : MatchProtocol.NO_SHAPE;
+            if (changed == 0 && flags == sentFlags && x == sentX && y == sentY && rotation == sentRotation
+                    && shape == sentShape && nextShape == sentNext && engine.getScore() == sentScore
+                    && pendingGarbage == sentPending && inputSeq == sentSeq) {
+                return false;
+            }
+            sentFlags = flags;
+            sentX = x;
+            sentY = y;
+            sentRotation = rotation;
+            sentShape = shape;
+            sentNext = nextShape;
+            sentScore = engine.getScore();
+            sentPending = pendingGarbage;
+            sentSeq = inputSeq;
+
+            int start = MatchProtocol.beginFrame(out, MatchProtocol.STATE);
+            out.put((byte) index);
+            MatchProtocol.writeVarint(out, inputSeq);
+            MatchProtocol.writeVarint(out, engine.getFrame());
+            out.put((byte) flags);
+            if (block != null) {
+                out.put((byte) shape);
+                out.put((byte) rotation);
+                MatchProtocol.writeVarint(out, MatchProtocol.zigzag(x));
+                MatchProtocol.writeVarint(out, MatchProtocol.zigzag(y));
+            }
+            out.put((byte) nextShape);
+            MatchProtocol.writeVarint(out, engine.getScore());
+            MatchProtocol.writeVarint(out, engine.getPiecesPlaced());
+            MatchProtocol.writeVarint(out, pendingGarbage);
+            MatchProtocol.writeVarint(out, changed);
+            for (int i = 0; i < changed; i++) {
+                int row = changedRows[i];
+                MatchProtocol.writeVarint(out, row);
+                MatchProtocol.writeRow(out, sent, row * width, width);
+            }
+            MatchProtocol.endFrame(out, start);
+            return true;
+        }
+
+        // 写不完的部分等 OP_WRITE 再写；结束的对局写完就关闭
+        void flush() {
+            try {
+                boolean done = connection.flush();
+                if (done && connection.isClosing()) {
+                    disconnect();
+                } else if (key != null && key.isValid()) {
+                    key.interestOps(done ? SelectionKey.OP_READ : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                }
+            } catch (IOException e) {
+                disconnect();
+            }
+        }
+
+        // 断线的一方判负
+        void disconnect() {
+            if (key != null) key.cancel();
+            connection.close();
+            match.end(1 - index);
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package tetris;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * 自定义的 JDK Flight Recorder 事件。录制未开启（或事件被关闭）时，
+ * begin*() 返回 null、其余方法直接返回，不创建任何对象。
+ *
+ * 录制: java -XX:StartFlightRecording=filename=tetris.jfr,settings=profile -jar tetris-game.jar
+ * 查看: jfr print --categories Tetris tetris.jfr
+ */
+public final class PerfEvents {
+    private static final EventType TICK_TYPE = EventType.getEventType(Tick.class);
+    private static final EventType PAINT_TYPE = EventType.getEventType(Paint.class);
+    private static final EventType LINE_CLEAR_TYPE = EventType.getEventType(LineClear.class);
+    private static final EventType GAME_OVER_TYPE = EventType.getEventType(GameOver.class);
+
+    private PerfEvents() {
+    }
+
+    @Name("tetris.Tick")
+    @Label("逻辑步")
+    @Category("Tetris")
+    @Description("一次重力步或自动游戏放置，时长为逻辑处理耗时")
+    public static final class Tick extends Event {
+        @Label("帧号")
+        long frame;
+
+        @Label("下落间隔 (ms)")
+        int dropInterval;
+
+        @Label("节拍抖动")
+        @Description("与上一步的实际间隔减去期望间隔")
+        @Timespan(Timespan.NANOSECONDS)
+        long jitter;
+
+        @Label("固定了方块")
+        boolean locked;
+    }
+
+    @Name("tetris.Paint")
+    @Label("绘制")
+    @Category("Tetris")
+    @Description("一次 paintComponent 或主动渲染的绘制")
+    public static final class Paint extends Event {
+        @Label("方块尺寸 (px)")
+        int blockSize;
+
+        @Label("活动模式")
+        @Description("true 表示固定步长循环里的主动渲染")
+        boolean active;
+    }
+
+    @Name("tetris.LineClear")
+    @Label("消行")
+    @Category("Tetris")
+    public static final class LineClear extends Event {
+        @Label("消除行数")
+        int lines;
+
+        @Label("得分")
+        int score;
+
+        @Label("累计消行")
+        int totalLines;
+
+        @Label("下落间隔 (ms)")
+        int dropInterval;
+    }
+
+    @Name("tetris.GameOver")
+    @Label("游戏结束")
+    @Category("Tetris")
+    public static final class GameOver extends Event {
+        @Label("种子")
+        long seed;
+
+        @Label("得分")
+        int score;
+
+        @Label("消行")
+        int lines;
+
+        @Label("方块数")
+        int pieces;
+
+        @Label("重力步数")
+        long frames;
+    }
+
+    public static Tick beginTick() {
+        if (!TICK_TYPE.isEnabled()) return null;
+        Tick event = new Tick();
+        event.begin();
+        return event;
+    }
+
+    public static void endTick(Tick event, long frame, int dropInterval, long jitter, boolean locked) {
+        if (event == null) return;
+        event.end();
+        if (event.shouldCommit()) {
+            event.frame = frame;
+            event.dropInterval = dropInterval;
+            event.jitter = jitter;
+            event.locked = locked;
+            event.commit();
+        }
+    }
+
+    public static Paint beginPaint() {
+        if (!PAINT_TYPE.isEnabled()) return null;
+        Paint event = new Paint();
+        event.begin();
+        return event;
+    }
+
+    public static void endPaint(Paint event, int blockSize, boolean active) {
+        if (event == null) return;
+        event.end();
+        if (event.shouldCommit()) {
+            event.blockSize = blockSize;
+            event.active = active;
+            event.commit();
+        }
+    }
+
+    public static void lineClear(int lines, int score, int totalLines, int dropInterval) {
+        if (!LINE_CLEAR_TYPE.isEnabled()) return;
+        LineClear event = new LineClear();
+        event.lines = lines;
+        event.score = score;
+        event.totalLines = totalLines;
+        event.dropInterval = dropInterval;
+        event.commit();
+    }
+
+    public static void gameOver(long seed, int score, int lines, int pieces, long frames) {
+        if (!GAME_OVER_TYPE.isEnabled()) return;
+        GameOver event = new GameOver();
+        event.seed = seed;
+        event.score = score;
+        event.lines = lines;
+        event.pieces = pieces;
+        event.frames = frames;
+        event.commit();
+    }
+}
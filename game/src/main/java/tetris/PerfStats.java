@@ -0,0 +1,140 @@
+package tetris;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 轻量的运行时计数器：帧时间、逻辑步节拍抖动、每秒重绘请求数和全进程分配速率。
+ * 按 1 秒的窗口汇总，窗口结束时把结果存成快照供性能浮层显示，然后清零重新统计。
+ * 记录方法只做数组自增和加法；只有滚动窗口时才查询一次线程分配量，
+ * 这次查询本身要分配数组，不需要分配速率时可以关掉。
+ *
+ * recordFrame/roll 在绘制线程调用，recordTick/resetTickClock 在逻辑线程调用，
+ * 节拍抖动由逻辑线程按自己的 1 秒窗口汇总；countRepaint 可以在任意线程调用。
+ */
+public class PerfStats {
+    private static final long WINDOW_NANOS = 1_000_000_000L;
+
+    private final LatencyHistogram frameTimes = new LatencyHistogram();
+    private final LatencyHistogram tickJitter = new LatencyHistogram();
+    private final LongAdder repaints = new LongAdder();
+    private final com.sun.management.ThreadMXBean threadBean;
+
+    private long windowStart = System.nanoTime();
+    private long tickWindowStart = windowStart;
+    private long lastTick = -1;
+    private long lastAllocated = -1;
+    private volatile boolean allocationSampling = true;
+
+    // 上一个完整窗口的快照
+    private volatile double fps;
+    private volatile double frameTimeP99;    // 毫秒
+    private volatile double tickJitterP99;   // 毫秒
+    private volatile double repaintRate;     // 次/秒
+    private volatile double allocationRate;  // MB/秒，不支持时为 -1
+
+    public PerfStats() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+            threadBean = (com.sun.management.ThreadMXBean) bean;
+            threadBean.setThreadAllocatedMemoryEnabled(true);
+        } else {
+            threadBean = null;
+        }
+        allocationRate = -1;
+    }
+
+    // 一帧的绘制耗时
+    public void recordFrame(long nanos) {
+        frameTimes.record(nanos);
+    }
+
+    /**
+     * 记录一个逻辑步的到达时间。
+     * @param expectedNanos 期望的步间隔，通常为 1/TICKS_PER_SECOND
+     * @return 实际间隔减期望间隔（纳秒），本轮第一步返回 0
+     */
+    public long recordTick(long now, long expectedNanos) {
+        long jitter = 0;
+        if (lastTick >= 0) {
+            jitter = now - lastTick - expectedNanos;
+            tickJitter.record(Math.abs(jitter));
+        }
+        lastTick = now;
+        if (now - tickWindowStart >= WINDOW_NANOS) {
+            tickJitterP99 = tickJitter.getCount() == 0 ? 0 : tickJitter.percentile(99) / 1e6;
+            tickJitter.reset();
+            tickWindowStart = now;
+        }
+        return jitter;
+    }
+
+    // 暂停、重新开始后的第一步不计抖动
+    public void resetTickClock() {
+        lastTick = -1;
+    }
+
+    // 关闭后不再查询分配量，分配速率显示为不可用；重新打开后第二个窗口起才有数据
+    public void setAllocationSampling(boolean enabled) {
+        allocationSampling = enabled;
+    }
+
+    public void countRepaint() {
+        repaints.increment();
+    }
+
+    /**
+     * 窗口满 1 秒时生成快照并清零。
+     * @return 快照是否更新
+     */
+    public boolean roll(long now) {
+        long elapsed = now - windowStart;
+        if (elapsed < WINDOW_NANOS) return false;
+        double seconds = elapsed / 1e9;
+        fps = frameTimes.getCount() / seconds;
+        frameTimeP99 = frameTimes.getCount() == 0 ? 0 : frameTimes.percentile(99) / 1e6;
+        repaintRate = repaints.sumThenReset() / seconds;
+        long allocated = allocationSampling ? allocatedBytes() : -1;
+        if (allocated < 0) {
+            allocationRate = -1;
+        } else if (lastAllocated >= 0) {
+            // 线程退出后其分配量不再计入总和，差值可能为负
+            allocationRate = Math.max(0, allocated - lastAllocated) / seconds / (1024 * 1024);
+        }
+        lastAllocated = allocated;
+        frameTimes.reset();
+        windowStart = now;
+        return true;
+    }
+
+    // 所有存活线程累计分配的字节数，不支持时返回 -1
+    private long allocatedBytes() {
+        if (threadBean == null) return -1;
+        long total = 0;
+        for (long bytes : threadBean.getThreadAllocatedBytes(threadBean.getAllThreadIds())) {
+            if (bytes > 0) total += bytes;
+        }
+        return total;
+    }
+
+    public double getFps() {
+        return fps;
+    }
+
+    public double getFrameTimeP99() {
+        return frameTimeP99;
+    }
+
+    public double getTickJitterP99() {
+        return tickJitterP99;
+    }
+
+    public double getRepaintRate() {
+        return repaintRate;
+    }
+
+    public double getAllocationRate() {
+        return allocationRate;
+    }
+}
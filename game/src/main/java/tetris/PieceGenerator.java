@@ -0,0 +1,56 @@
+package tetris;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 方块序列来源。实现必须完全由种子决定，同一种子总是产生同一序列，
+ * 以便回放和并行模拟。
+ */
+public interface PieceGenerator {
+    // 生成器类型编号，写入回放文件
+    int TYPE_UNIFORM = 0;
+    int TYPE_BAG = 1;
+
+    // 返回下一个形状编号 [0, Block.SHAPE_COUNT)
+    int next();
+
+    // 用新种子重新开始序列
+    void reset(long seed);
+
+    // 返回 TYPE_UNIFORM 或 TYPE_BAG，回放时据此重建同样的生成器
+    int getType();
+
+    // 存档：写出全部内部状态，readState() 读回后产生与存档时完全相同的后续序列
+    void writeState(ByteBuffer out);
+
+    void readState(ByteBuffer in);
+
+    // 批量生成，实现可以覆盖以减少逐个调用的开销
+    default void fill(int[] out, int offset, int length) {
+        for (int i = 0; i < length; i++) {
+            out[offset + i] = next();
+        }
+    }
+
+    // 每个形状独立均匀随机，与原来的 Block.randomBlock() 一致
+    static PieceGenerator uniform(long seed) {
+        return new UniformGenerator(seed);
+    }
+
+    // 7-bag：每 7 个方块恰好包含每种形状各一次
+    static PieceGenerator bag(long seed) {
+        return new BagGenerator(seed);
+    }
+
+    // 按类型编号创建生成器
+    static PieceGenerator create(int type, long seed) {
+        switch (type) {
+            case TYPE_UNIFORM:
+                return uniform(seed);
+            case TYPE_BAG:
+                return bag(seed);
+            default:
+                throw new IllegalArgumentException("未知生成器类型: " + type);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package tetris;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 带预览的方块队列。内部是一个环形缓冲区，余量不足时一次性向生成器
+ * 批量补充，而不是每取一个方块就调用一次生成器。
+ */
+public class PieceQueue {
+    private final PieceGenerator generator;
+    private final int lookahead;
+    private final int[] buffer;
+    private final int mask;
+    private int head;
+    private int size;
+
+    public PieceQueue(PieceGenerator generator, int lookahead) {
+        if (lookahead < 1) {
+            throw new IllegalArgumentException("预览数量至少为 1: " + lookahead);
+        }
+        this.generator = generator;
+        this.lookahead = lookahead;
+        // 容量取不小于 预览数 + 一批 的 2 的幂，便于用掩码取模
+        int capacity = Integer.highestOneBit(lookahead + Block.SHAPE_COUNT) << 1;
+        this.buffer = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    public PieceGenerator getGenerator() {
+        return generator;
+    }
+
+    public int getLookahead() {
+        return lookahead;
+    }
+
+    // 重新播种并清空队列
+    public void reset(long seed) {
+        generator.reset(seed);
+        head = 0;
+        size = 0;
+        refill();
+    }
+
+    // 取出队首形状
+    public int poll() {
+        int shape = buffer[head];
+        head = (head + 1) & mask;
+        size--;
+        if (size < lookahead) {
+            refill();
+        }
+        return shape;
+    }
+
+    // 查看第 index 个待出形状，index < lookahead
+    public int peek(int index) {
+        return buffer[(head + index) & mask];
+    }
+
+    // 存档：生成器状态加上已生成、尚未取出的形状
+    public void writeState(ByteBuffer out) {
+        generator.writeState(out);
+        out.putShort((short) size);
+        for (int i = 0; i < size; i++) {
+            out.put((byte) buffer[(head + i) & mask]);
+        }
+    }
+
+    public void readState(ByteBuffer in) {
+        generator.readState(in);
+        int count = in.getShort();
+        if (count < lookahead || count > buffer.length) {
+            throw new IllegalStateException("存档损坏: 队列长度 " + count);
+        }
+        head = 0;
+        size = count;
+        for (int i = 0; i < count; i++) {
+            int shape = in.get();
+            if (shape < 0 || shape >= Block.SHAPE_COUNT) {
+                throw new IllegalStateException("存档损坏: 形状 " + shape);
+            }
+            buffer[i] = shape;
+        }
+    }
+
+    // 存档中队列部分的最大字节数，不含生成器状态
+    public int maxStateSize() {
+        return 2 + buffer.length;
+    }
+
+    private void refill() {
+        int free = buffer.length - size;
+        int tail = (head + size) & mask;
+        int first = Math.min(free, buffer.length - tail);
+        generator.fill(buffer, tail, first);
+        if (free > first) {
+            generator.fill(buffer, 0, free - first);
+        }
+        size = buffer.length;
+    }
+}
@@ -0,0 +1,14 @@
+package tetris;
+
+// 方块落点：朝向和游标坐标，可重复使用以避免分配
+public class Placement {
+    public int rotation;
+    public int x;
+    public int y;
+
+    public void set(int rotation, int x, int y) {
+        this.rotation = rotation;
+        this.x = x;
+        this.y = y;
+    }
+}
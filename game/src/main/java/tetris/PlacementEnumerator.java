@@ -0,0 +1,148 @@
+package tetris;
+
+import java.util.Arrays;
+
+/**
+ * 枚举当前方块所有可达的最终落点。从出生位置出发，按玩家能做的操作
+ * （左移、右移、软降、顺时针/逆时针旋转）做广度优先搜索，因此软降后再平移
+ * 滑进悬空结构下方、或者靠踢墙转进去的落点也会被找到。碰撞和踢墙规则与引擎相同。
+ * 所有缓冲区在构造时分配，枚举过程不产生垃圾。
+ *
+ * 棋盘比搜索窗口高时只搜索堆叠顶部附近的一段行：顶部往上 CLEARANCE 行都是空的，
+ * 方块在这段空行里就能做出任意平移和旋转，直接把它移到窗口上沿不会少找落点；
+ * 窗口下沿以下更深的空洞不再搜索。这样大棋盘上的搜索量和缓冲区只与宽度成正比，与高度无关。
+ */
+public class PlacementEnumerator {
+    private static final int X_MARGIN = 2;       // 方块格子相对游标的最大水平偏移
+    private static final int TOP_MARGIN = 4;     // 踢墙可以把游标抬到棋盘顶部以上，更高的状态不再搜索
+    private static final int BOTTOM_MARGIN = 2;  // 方块格子在游标下方的最大偏移，游标最多低于底行这么多
+    private static final int CLEARANCE = 8;      // 窗口在堆叠顶部以上保留的空行数
+    public static final int DEFAULT_WINDOW_ROWS = CLEARANCE + 40;  // 默认窗口行数，再深的空洞不搜索
+
+    private final int height;
+    private final int rows;       // 窗口覆盖的棋盘行数，等于棋盘高度时搜索整个棋盘
+    private final int xSpan;
+    private final int ySpan;
+    private final int[] visited;  // 访问标记，用递增的 stamp 代替每次清零
+    private final int[] queue;
+    private final int[] results;
+    private RotationSystem rotationSystem = RotationSystem.SRS;
+    private int stamp;
+    private int count;
+    private int originY;          // 窗口第一行在棋盘上的行号
+
+    public PlacementEnumerator(int width, int height) {
+        this(width, height, DEFAULT_WINDOW_ROWS);
+    }
+
+    /**
+     * @param windowRows 搜索窗口的行数，不小于棋盘高度时搜索整个棋盘
+     */
+    public PlacementEnumerator(int width, int height, int windowRows) {
+        if (windowRows <= CLEARANCE) {
+            throw new IllegalArgumentException("搜索窗口至少要有 " + (CLEARANCE + 1) + " 行: " + windowRows);
+        }
+        this.height = height;
+        this.rows = Math.min(height, windowRows);
+        this.xSpan = width + 2 * X_MARGIN;
+        this.ySpan = TOP_MARGIN + rows + BOTTOM_MARGIN;
+        int states = Block.ROTATIONS * xSpan * ySpan;
+        visited = new int[states];
+        queue = new int[states];
+        results = new int[states];
+    }
+
+    // 应与引擎使用的旋转系统一致，否则枚举出的落点可能到不了
+    public void setRotationSystem(RotationSystem rotationSystem) {
+        this.rotationSystem = rotationSystem;
+    }
+
+    /**
+     * 从 (rotation, x, y) 出发枚举落点。起点本身不合法时结果为空。
+     * @return 落点个数，用 rotation(i)/x(i)/y(i) 读取
+     */
+    public int enumerate(Board board, int shape, int rotation, int x, int y) {
+        count = 0;
+        if (y < -TOP_MARGIN) {
+            return 0;
+        }
+        originY = 0;
+        if (rows < height) {
+            originY = Math.max(0, board.getTop() - CLEARANCE);
+            // 窗口上沿以上全是空行，直接落到上沿
+            y = Math.max(y, originY);
+        }
+        if (y >= originY + rows + BOTTOM_MARGIN || board.collides(shape, rotation, x, y)) {
+            return 0;
+        }
+        if (++stamp == Integer.MAX_VALUE) {
+            Arrays.fill(visited, 0);
+            stamp = 1;
+        }
+        int head = 0;
+        int tail = 0;
+        int start = encode(rotation, x, y);
+        visited[start] = stamp;
+        queue[tail++] = start;
+        while (head < tail) {
+            int state = queue[head++];
+            int r = state / (xSpan * ySpan);
+            int cx = (state / ySpan) % xSpan - X_MARGIN;
+            int cy = state % ySpan - TOP_MARGIN + originY;
+            if (board.collides(shape, r, cx, cy + 1)) {
+                results[count++] = state;
+            } else {
+                tail = visit(board, shape, r, cx, cy + 1, tail);
+            }
+            tail = visit(board, shape, r, cx - 1, cy, tail);
+            tail = visit(board, shape, r, cx + 1, cy, tail);
+            tail = rotate(board, shape, r, cx, cy, RotationSystem.CLOCKWISE, tail);
+            tail = rotate(board, shape, r, cx, cy, RotationSystem.COUNTER_CLOCKWISE, tail);
+        }
+        return count;
+    }
+
+    // 与 RotationSystem.rotate() 相同：取第一个不碰撞的踢墙偏移
+    private int rotate(Board board, int shape, int rotation, int x, int y, int direction, int tail) {
+        int to = (rotation + (direction == RotationSystem.CLOCKWISE ? 1 : 3)) & 3;
+        int[] tests = rotationSystem.kicks(shape, rotation, direction);
+        for (int i = 0; i < tests.length; i += 2) {
+            int kx = x + tests[i];
+            int ky = y + tests[i + 1];
+            if (!board.collides(shape, to, kx, ky)) {
+                return visit(board, shape, to, kx, ky, tail);
+            }
+        }
+        return tail;
+    }
+
+    private int visit(Board board, int shape, int rotation, int x, int y, int tail) {
+        if (x < -X_MARGIN || x >= xSpan - X_MARGIN
+                || y < originY - TOP_MARGIN || y >= originY + rows + BOTTOM_MARGIN) {
+            return tail;
+        }
+        int state = encode(rotation, x, y);
+        if (visited[state] == stamp || board.collides(shape, rotation, x, y)) {
+            return tail;
+        }
+        visited[state] = stamp;
+        queue[tail] = state;
+        return tail + 1;
+    }
+
+    private int encode(int rotation, int x, int y) {
+        return (rotation * xSpan + x + X_MARGIN) * ySpan + y - originY + TOP_MARGIN;
+    }
+
+    public int rotation(int i) {
+        return results[i] / (xSpan * ySpan);
+    }
+
+    public int x(int i) {
+        return (results[i] / ySpan) % xSpan - X_MARGIN;
+    }
+
+    public int y(int i) {
+        return results[i] % ySpan - TOP_MARGIN + originY;
+    }
+}
@@ -0,0 +1,19 @@
+package tetris;
+
+/**
+ * 自动游戏策略：给定引擎当前状态，为当前方块选一个落点。
+ * 实现可以有内部状态，但每个实例只在一个线程里使用。
+ */
+public interface PlacementPolicy {
+    /**
+     * 选择落点并写入 out。out.rotation/out.x/out.y 是方块游标最终所在的位置，
+     * 引擎会从那里继续硬降。
+     * @return 找不到合法落点时返回 false
+     */
+    boolean choose(TetrisEngine engine, Placement out);
+
+    // 同一局面总是选同一落点时返回 true，这样的策略在同一方块序列上重复跑只会得到同一局
+    default boolean isDeterministic() {
+        return false;
+    }
+}
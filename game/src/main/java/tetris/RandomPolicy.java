@@ -0,0 +1,30 @@
+package tetris;
+
+// 随机选择朝向和列，主要用作批量模拟的基准线
+public class RandomPolicy implements PlacementPolicy {
+    private final SplitMix64 random;
+
+    public RandomPolicy(long seed) {
+        random = new SplitMix64(seed);
+    }
+
+    @Override
+    public boolean choose(TetrisEngine engine, Placement out) {
+        Block block = engine.getCurrentBlock();
+        Board board = engine.getBoard();
+        int rotation = random.nextInt(Block.ROTATIONS);
+        int minX = -Block.minX(block.shape, rotation);
+        int maxX = board.getWidth() - 1 - Block.maxX(block.shape, rotation);
+        // 从随机列开始向右找第一个放得下的位置
+        int span = maxX - minX + 1;
+        int start = random.nextInt(span);
+        for (int i = 0; i < span; i++) {
+            int x = minX + (start + i) % span;
+            if (!board.collides(block.shape, rotation, x, block.y)) {
+                out.set(rotation, x, block.y);
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,180 @@
+package tetris;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 对战客户端里一块远端棋盘的镜像：按服务器发来的 STATE 增量更新，
+ * 只用于显示，不运行任何游戏逻辑。由网络线程独占访问。
+ */
+public class RemoteGame implements GameView {
+    private final Board board;
+    private final byte[] row;
+    private final Block currentBlock = new Block(0);
+    private final Block nextBlock = new Block(0);
+    private boolean hasBlock;
+    private boolean hasNext;
+    private long frame;
+    private int score;
+    private int piecesPlaced;
+    private int pendingGarbage;
+    private boolean gameOver;
+    private int dirtyMinRow = 0;
+    private int dirtyMaxRow;
+
+    public RemoteGame(int width, int height) {
+        board = new Board(width, height);
+        row = new byte[width];
+        dirtyMaxRow = height - 1;
+    }
+
+    /**
+     * 应用一帧 STATE 中玩家序号和输入序号之后的部分。
+     */
+    public void apply(ByteBuffer in) {
+        long frameNumber = MatchProtocol.readVarint(in);
+        int flags = in.get();
+        boolean block = (flags & MatchProtocol.FLAG_BLOCK) != 0;
+        int shape = 0;
+        int rotation = 0;
+        int blockX = 0;
+        int blockY = 0;
+        if (block) {
+            shape = in.get() & 0xFF;
+            rotation = in.get() & 0xFF;
+            blockX = MatchProtocol.unzigzag(MatchProtocol.readVarint(in));
+            blockY = MatchProtocol.unzigzag(MatchProtocol.readVarint(in));
+            // 形状和朝向直到绘制时才用来查表，先在这里挡住，整帧不生效
+            if (shape >= Block.SHAPE_COUNT) {
+                throw new IllegalStateException("对战数据损坏: 形状 " + shape);
+            }
+            if (rotation >= Block.ROTATIONS) {
+                throw new IllegalStateException("对战数据损坏: 朝向 " + rotation);
+            }
+        }
+        int next = in.get() & 0xFF;
+        if (next != MatchProtocol.NO_SHAPE && next >= Block.SHAPE_COUNT) {
+            throw new IllegalStateException("对战数据损坏: 下一块形状 " + next);
+        }
+
+        frame = frameNumber;
+        hasBlock = block;
+        gameOver = (flags & MatchProtocol.FLAG_GAME_OVER) != 0;
+        if (hasBlock) {
+            currentBlock.reset(shape);
+            currentBlock.rotation = rotation;
+            currentBlock.x = blockX;
+            currentBlock.y = blockY;
+        }
+        hasNext = next != MatchProtocol.NO_SHAPE;
+        if (hasNext) {
+            nextBlock.reset(next);
+        }
+        score = (int) MatchProtocol.readVarint(in);
+        piecesPlaced = (int) MatchProtocol.readVarint(in);
+        pendingGarbage = (int) MatchProtocol.readVarint(in);
+        int rows = (int) MatchProtocol.readVarint(in);
+        for (int i = 0; i < rows; i++) {
+            int y = (int) MatchProtocol.readVarint(in);
+            if (y < 0 || y >= board.getHeight()) {
+                throw new IllegalStateException("对战数据损坏: 行号 " + y);
+            }
+            MatchProtocol.readRow(in, row, 0, row.length);
+            board.setRow(y, row, 0);
+            markDirtyRows(y, y);
+        }
+    }
+
+    private void markDirtyRows(int from, int to) {
+        dirtyMinRow = Math.min(dirtyMinRow, Math.max(0, from));
+        dirtyMaxRow = Math.max(dirtyMaxRow, Math.min(board.getHeight() - 1, to));
+    }
+
+    // 服务器已排给这个玩家、还没插入棋盘的垃圾行
+    public int getPendingGarbage() {
+        return pendingGarbage;
+    }
+
+    @Override
+    public Board getBoard() {
+        return board;
+    }
+
+    @Override
+    public Block getCurrentBlock() {
+        return hasBlock ? currentBlock : null;
+    }
+
+    @Override
+    public Block getNextBlock() {
+        return hasNext ? nextBlock : null;
+    }
+
+    @Override
+    public int getGhostY() {
+        if (!hasBlock || gameOver) return currentBlock.y;
+        return currentBlock.y + board.dropDistance(currentBlock.shape, currentBlock.rotation,
+                currentBlock.x, currentBlock.y);
+    }
+
+    @Override
+    public boolean canMove(Block block, int dx, int dy) {
+        return !board.collides(block, dx, dy);
+    }
+
+    // 位置由服务器逐帧给出，客户端不做下落插值
+    @Override
+    public double getGravityProgress() {
+        return 0;
+    }
+
+    @Override
+    public double getGravity() {
+        return 0;
+    }
+
+    @Override
+    public int getScore() {
+        return score;
+    }
+
+    @Override
+    public int getPiecesPlaced() {
+        return piecesPlaced;
+    }
+
+    @Override
+    public int getDropInterval() {
+        return Difficulty.EASY.getInitialSpeed();
+    }
+
+    @Override
+    public long getFrame() {
+        return frame;
+    }
+
+    @Override
+    public Difficulty getDifficulty() {
+        return Difficulty.EASY;
+    }
+
+    @Override
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    @Override
+    public int getDirtyMinRow() {
+        return dirtyMinRow;
+    }
+
+    @Override
+    public int getDirtyMaxRow() {
+        return dirtyMaxRow;
+    }
+
+    @Override
+    public void clearDirtyRows() {
+        dirtyMinRow = Integer.MAX_VALUE;
+        dirtyMaxRow = -1;
+    }
+}
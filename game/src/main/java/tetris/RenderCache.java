@@ -0,0 +1,144 @@
+package tetris;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * 绘制缓存：每种颜色、每个方块尺寸一张预渲染的方块贴图，
+ * 以及包含网格、边框和信息区框架的静态背景图。格子贴图另外拼成一张贴图集，
+ * 大量格子连续绘制时都从同一张源图取，不用在几十张小图之间切换。
+ * 只有组件尺寸（从而方块尺寸）变化时才重建。
+ */
+public class RenderCache {
+    // 颜色编号 0..7 与 Color.getHSBColor(编号 * 0.1, ...) 对应，最后一个是对战垃圾行的灰色
+    public static final int COLOR_COUNT = TetrisEngine.GARBAGE_COLOR + 1;
+    private static final Color GARBAGE = new Color(128, 128, 128);
+
+    private static final Color HIGHLIGHT = new Color(255, 255, 255, 100);
+    private static final Color SHADOW = new Color(0, 0, 0, 100);
+
+    // 把不随游戏状态变化的内容画进背景图
+    public interface BackgroundPainter {
+        void paint(Graphics g, int width, int height, int blockSize);
+    }
+
+    private final BackgroundPainter backgroundPainter;
+    private final BufferedImage[] cellTiles = new BufferedImage[COLOR_COUNT];
+    private final BufferedImage[] previewTiles = new BufferedImage[COLOR_COUNT];
+    private final BufferedImage[] ghostTiles = new BufferedImage[COLOR_COUNT];
+    private BufferedImage cellAtlas;  // 各颜色的格子贴图从左到右排成一行
+    private BufferedImage background;
+    private int width = -1;
+    private int height = -1;
+    private int blockSize = -1;
+
+    public RenderCache(BackgroundPainter backgroundPainter) {
+        this.backgroundPainter = backgroundPainter;
+    }
+
+    /**
+     * 确保缓存与当前尺寸一致，尺寸未变时什么也不做。
+     */
+    public void validate(GraphicsConfiguration gc, int width, int height, int blockSize) {
+        if (width == this.width && height == this.height && blockSize == this.blockSize) {
+            return;
+        }
+        this.width = width;
+        this.height = height;
+        if (blockSize != this.blockSize) {
+            this.blockSize = blockSize;
+            buildTiles(gc);
+        }
+        background = createImage(gc, Math.max(1, width), Math.max(1, height), Transparency.OPAQUE);
+        Graphics g = background.getGraphics();
+        backgroundPainter.paint(g, width, height, blockSize);
+        g.dispose();
+    }
+
+    public void invalidate() {
+        width = -1;
+        height = -1;
+        blockSize = -1;
+    }
+
+    public BufferedImage getBackground() {
+        return background;
+    }
+
+    // 棋盘格子贴图，四周各留 1 像素露出网格线
+    public BufferedImage getCellTile(int colorIndex) {
+        return cellTiles[colorIndex];
+    }
+
+    // 预览区贴图，左上角对齐，尺寸比格子小 2 像素
+    public BufferedImage getPreviewTile(int colorIndex) {
+        return previewTiles[colorIndex];
+    }
+
+    // 幽灵方块贴图：半透明底色加同色边框
+    public BufferedImage getGhostTile(int colorIndex) {
+        return ghostTiles[colorIndex];
+    }
+
+    // 从贴图集把一个格子画到 (x, y)，效果与 getCellTile 相同
+    public void drawCell(Graphics g, int colorIndex, int x, int y) {
+        int size = blockSize;
+        int sx = colorIndex * size;
+        g.drawImage(cellAtlas, x, y, x + size, y + size, sx, 0, sx + size, size, null);
+    }
+
+    public int getBlockSize() {
+        return blockSize;
+    }
+
+    private void buildTiles(GraphicsConfiguration gc) {
+        int size = Math.max(1, blockSize);
+        cellAtlas = createImage(gc, size * COLOR_COUNT, size, Transparency.TRANSLUCENT);
+        Graphics atlas = cellAtlas.getGraphics();
+        for (int i = 0; i < COLOR_COUNT; i++) {
+            Color color = i == TetrisEngine.GARBAGE_COLOR ? GARBAGE
+                    : Color.getHSBColor((float) (i * 0.1), 0.8f, 0.9f);
+            cellTiles[i] = createImage(gc, size, size, Transparency.TRANSLUCENT);
+            Graphics g = cellTiles[i].getGraphics();
+            paintTile(g, color, 1, blockSize - 2);
+            g.dispose();
+            atlas.drawImage(cellTiles[i], i * size, 0, null);
+
+            previewTiles[i] = createImage(gc, size, size, Transparency.TRANSLUCENT);
+            g = previewTiles[i].getGraphics();
+            paintTile(g, color, 0, blockSize - 3);
+            g.dispose();
+
+            ghostTiles[i] = createImage(gc, size, size, Transparency.TRANSLUCENT);
+            g = ghostTiles[i].getGraphics();
+            g.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), 50));
+            g.fillRect(1, 1, blockSize - 2, blockSize - 2);
+            g.setColor(new Color(color.getRed(), color.getGreen(), color.getBlue(), 160));
+            g.drawRect(1, 1, blockSize - 3, blockSize - 3);
+            g.dispose();
+        }
+        atlas.dispose();
+    }
+
+    // 填充色块后加左上高光和右下阴影，far 是右/下边线的坐标
+    private static void paintTile(Graphics g, Color color, int near, int far) {
+        g.setColor(color);
+        g.fillRect(near, near, far - near + 1, far - near + 1);
+
+        g.setColor(HIGHLIGHT);
+        g.drawLine(near, near, near, far);
+        g.drawLine(near, near, far, near);
+
+        g.setColor(SHADOW);
+        g.drawLine(far, near, far, far);
+        g.drawLine(near, far, far, far);
+    }
+
+    private static BufferedImage createImage(GraphicsConfiguration gc, int width, int height, int transparency) {
+        if (gc != null) {
+            return gc.createCompatibleImage(width, height, transparency);
+        }
+        int type = transparency == Transparency.OPAQUE ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB;
+        return new BufferedImage(width, height, type);
+    }
+}
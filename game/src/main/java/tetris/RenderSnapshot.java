@@ -0,0 +1,195 @@
+package tetris;
+
+/**
+ * 渲染快照：逻辑线程在每个逻辑步之后把绘制需要的全部状态复制到这里，绘制线程只读快照，
+ * 不再接触引擎。对战客户端由网络线程从 RemoteGame 复制。快照对象由 SnapshotBuffer 轮换复用，从发布到被绘制线程交还之前内容不变。
+ * 棋盘颜色按行增量复制，只补上这个槽位上次写入以来变化过的行。
+ */
+public final class RenderSnapshot {
+    // 一份快照最多携带的按键时间戳，超出的不计入延迟统计
+    static final int MAX_INPUT_STAMPS = 32;
+
+    private final int width;
+    private final int height;
+    private final byte[] cells;
+    private final Block block = new Block(0);
+    private final Block nextBlock = new Block(0);
+    private final long[] inputStamps = new long[MAX_INPUT_STAMPS];
+
+    private long seq;
+    private long publishNanos;
+    private int top;
+    private int dirtyMinRow;
+    private int dirtyMaxRow;
+    private boolean hasBlock;
+    private boolean hasNext;
+    private int ghostY;
+    private boolean canFall;
+    private double gravityProgress;
+    private double gravity;
+    private int score;
+    private int piecesPlaced;
+    private int dropInterval;
+    private long frame;
+    private Difficulty difficulty;
+    private boolean gameOver;
+    private boolean paused;
+    private boolean replaying;
+    private int inputCount;
+
+    RenderSnapshot(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.cells = new byte[width * height];
+        this.top = height;
+        this.dirtyMinRow = 0;
+        this.dirtyMaxRow = height - 1;
+        this.difficulty = Difficulty.EASY;
+    }
+
+    /**
+     * 从引擎或远端镜像复制状态，只能由写快照的线程调用。
+     * @param copyFrom   需要从棋盘复制的第一行，copyFrom > copyTo 表示不用复制
+     * @param keepStamps 上一份写进这个槽位的快照没被取走时为 true，保留它的按键时间戳
+     */
+    void capture(GameView engine, int copyFrom, int copyTo, long seq, int dirtyMinRow, int dirtyMaxRow,
+                 boolean paused, boolean replaying, InputHandler input, boolean keepStamps) {
+        Board board = engine.getBoard();
+        if (copyFrom <= copyTo) {
+            board.copyColors(copyFrom, copyTo, cells);
+        }
+        this.seq = seq;
+        this.publishNanos = System.nanoTime();
+        this.top = board.getTop();
+        this.dirtyMinRow = dirtyMinRow;
+        this.dirtyMaxRow = dirtyMaxRow;
+
+        Block current = engine.getCurrentBlock();
+        hasBlock = current != null;
+        if (hasBlock) {
+            block.set(current);
+            ghostY = engine.getGhostY();
+            canFall = engine.canMove(current, 0, 1);
+        }
+        Block next = engine.getNextBlock();
+        hasNext = next != null;
+        if (hasNext) {
+            nextBlock.set(next);
+        }
+        gravityProgress = engine.getGravityProgress();
+        gravity = engine.getGravity();
+        score = engine.getScore();
+        piecesPlaced = engine.getPiecesPlaced();
+        dropInterval = engine.getDropInterval();
+        frame = engine.getFrame();
+        difficulty = engine.getDifficulty();
+        gameOver = engine.isGameOver();
+        this.paused = paused;
+        this.replaying = replaying;
+
+        if (!keepStamps) inputCount = 0;
+        inputCount += input.drainStamps(inputStamps, inputCount);
+    }
+
+    // 发布序号，从 1 开始递增
+    public long getSeq() {
+        return seq;
+    }
+
+    // 发布时刻（System.nanoTime 时基）
+    public long getPublishNanos() {
+        return publishNanos;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getCell(int x, int y) {
+        return cells[y * width + x];
+    }
+
+    // 最高的非空行，棋盘为空时等于 getHeight()
+    public int getTop() {
+        return top;
+    }
+
+    /**
+     * 相对于绘制线程上一次取到的快照，棋盘上可能变化过的行；没有变化时 min > max。
+     * 中间被跳过的快照的变化也计入在内。
+     */
+    public int getDirtyMinRow() {
+        return dirtyMinRow;
+    }
+
+    public int getDirtyMaxRow() {
+        return dirtyMaxRow;
+    }
+
+    // 活动方块的副本，没有活动方块时为 null；调用方不得修改
+    public Block getCurrentBlock() {
+        return hasBlock ? block : null;
+    }
+
+    public Block getNextBlock() {
+        return hasNext ? nextBlock : null;
+    }
+
+    public int getGhostY() {
+        return ghostY;
+    }
+
+    // 活动方块下方是否还有空间，决定是否做下落插值
+    public boolean canFall() {
+        return hasBlock && canFall;
+    }
+
+    public double getGravityProgress() {
+        return gravityProgress;
+    }
+
+    public double getGravity() {
+        return gravity;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getPiecesPlaced() {
+        return piecesPlaced;
+    }
+
+    public int getDropInterval() {
+        return dropInterval;
+    }
+
+    public long getFrame() {
+        return frame;
+    }
+
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    public boolean isGameOver() {
+        return gameOver;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public boolean isReplaying() {
+        return replaying;
+    }
+
+    // 本快照（以及被跳过的前几份快照）里生效的按键时间戳，呈现后计入延迟
+    void recordPresented(InputHandler input, long nanoTime) {
+        input.recordPresented(inputStamps, inputCount, nanoTime);
+    }
+}
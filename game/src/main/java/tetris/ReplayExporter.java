@@ -0,0 +1,331 @@
+package tetris;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.ByteArrayOutputStream;
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 无界面导出回放：按固定帧率把一局录像逐帧画成图片，输出 PNG 序列，或一条原始 RGB 流交给编码器。
+ * 绘制直接复用 TetrisPanel 的代码，每个绘制线程一块自己的离屏面板，格子尺寸任意。
+ *
+ * 流水线分三段：回放线程按时间轴推进引擎，把每帧要画的状态复制进一份 RenderSnapshot；
+ * 线程池并行绘制并编码；主线程按帧序号依次取结果写出。帧槽位数量由内存预算算出，
+ * 槽位用完时回放线程阻塞，等写出的帧把槽位还回来，所以不管录像多长内存占用都有上限。
+ *
+ * 时间轴与界面回放一致：固定步长录像每步 1/60 秒，默认模式录像每步一个下落间隔。
+ *
+ * 用法: java -Djava.awt.headless=true tetris.ReplayExporter 录像.trp [--format png|rgb] [--out 目录或文件]
+ *           [--size 格子像素] [--fps 帧率] [--start 秒] [--seconds 秒] [--threads T] [--memory MB]
+ * rgb 格式的 --out 为 - 时写到标准输出，例如:
+ *   java tetris.ReplayExporter 录像.trp --format rgb --out - | ffmpeg -f rawvideo -pix_fmt rgb24 -s 宽x高 -r 60 -i - 输出.mp4
+ */
+public class ReplayExporter {
+    public static final String PNG = "png";
+    public static final String RGB = "rgb";
+    private static final double HOLD_SECONDS = 2;  // 对局结束后终局画面停留的时长
+
+    // 一帧在流水线里的全部数据，槽位循环复用
+    private static final class Frame {
+        final RenderSnapshot snapshot;
+        final ByteArrayOutputStream data;
+        long index;
+
+        Frame(int width, int height, int capacity) {
+            snapshot = new RenderSnapshot(width, height);
+            data = new ByteArrayOutputStream(capacity);
+        }
+    }
+
+    // 绘制线程各自的面板和画布，只在所属线程使用
+    private final class Renderer {
+        final TetrisPanel panel;
+        final BufferedImage image;
+        final Graphics2D graphics;
+        final int[] pixels;
+        final byte[] rgb;
+
+        Renderer() {
+            panel = new TetrisPanel(player.createEngine(), null);
+            panel.setSize(imageWidth, imageHeight);
+            image = new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_RGB);
+            graphics = image.createGraphics();
+            pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            rgb = RGB.equals(format) ? new byte[imageWidth * imageHeight * 3] : null;
+        }
+
+        void render(Frame frame) {
+            panel.renderSnapshot(graphics, frame.snapshot);
+            frame.data.reset();
+            if (rgb == null) {
+                try {
+                    ImageIO.write(image, PNG, frame.data);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return;
+            }
+            for (int i = 0, j = 0; i < pixels.length; i++) {
+                int p = pixels[i];
+                rgb[j++] = (byte) (p >>> 16);
+                rgb[j++] = (byte) (p >>> 8);
+                rgb[j++] = (byte) p;
+            }
+            frame.data.write(rgb, 0, rgb.length);
+        }
+    }
+
+    private final ReplayPlayer player;
+    private final String format;
+    private final int imageWidth;
+    private final int imageHeight;
+    private final int fps;
+    private final int threads;
+    private final int slots;
+    private final InputHandler noInput = new InputHandler();  // 快照要求一个输入源，回放没有按键
+    private final ThreadLocal<Renderer> renderers = ThreadLocal.withInitial(Renderer::new);
+
+    /**
+     * @param blockSize   格子像素，至少为 TetrisPanel.MIN_BLOCK_SIZE，保证整块棋盘都在画面里
+     * @param memoryBytes 在途帧和各线程画布合计的内存预算
+     */
+    public ReplayExporter(ReplayPlayer player, String format, int blockSize, int fps, int threads, long memoryBytes) {
+        if (!PNG.equals(format) && !RGB.equals(format)) {
+            throw new IllegalArgumentException("未知输出格式: " + format);
+        }
+        if (blockSize < TetrisPanel.MIN_BLOCK_SIZE) {
+            throw new IllegalArgumentException("格子至少 " + TetrisPanel.MIN_BLOCK_SIZE + " 像素");
+        }
+        if (fps <= 0 || threads <= 0) {
+            throw new IllegalArgumentException("帧率和线程数必须为正");
+        }
+        this.player = player;
+        this.format = format;
+        this.fps = fps;
+        this.threads = threads;
+        // 与游戏窗口同样的布局：棋盘右边留 5 格信息区；格子太小时保证信息框不被截掉
+        imageWidth = (player.getWidth() + 5) * blockSize;
+        imageHeight = Math.max(player.getHeight() * blockSize, 250);
+
+        // 每帧最多占一张原始 RGB 图，每个绘制线程另有一张 int 画布；PNG 压缩后一般小得多
+        long frameBytes = (long) imageWidth * imageHeight * 3;
+        long canvasBytes = (long) imageWidth * imageHeight * 4 * threads;
+        long count = Math.min((memoryBytes - canvasBytes) / frameBytes, threads * 4L);
+        if (count < 2) {
+            throw new IllegalArgumentException("内存预算太小: " + imageWidth + "x" + imageHeight + " 的画面、"
+                    + threads + " 个线程至少需要 " + (canvasBytes + 2 * frameBytes + (1 << 20) - 1) / (1 << 20) + " MB");
+        }
+        slots = (int) count;
+    }
+
+    public int getImageWidth() {
+        return imageWidth;
+    }
+
+    public int getImageHeight() {
+        return imageHeight;
+    }
+
+    /**
+     * 导出 [startSeconds, startSeconds + seconds) 这一段，seconds 为负表示一直到终局画面停留结束。
+     * PNG 格式下 sink 依次收到每一帧的序号和编码后的文件内容，rgb 格式下收到原始像素。
+     * @return 导出的帧数
+     */
+    public long export(double startSeconds, double seconds, FrameSink sink)
+            throws IOException, InterruptedException {
+        BlockingQueue<Frame> free = new ArrayBlockingQueue<>(slots);
+        for (int i = 0; i < slots; i++) {
+            free.add(new Frame(player.getWidth(), player.getHeight(),
+                    RGB.equals(format) ? imageWidth * imageHeight * 3 : 0));
+        }
+        // 按提交顺序排队的绘制结果，null 结果表示回放已放完
+        BlockingQueue<Future<Frame>> pending = new ArrayBlockingQueue<>(slots + 1);
+        AtomicInteger threadIds = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "export-render-" + threadIds.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        Thread producer = new Thread(() -> produce(startSeconds, seconds, free, pending, pool), "export-replay");
+        producer.setDaemon(true);
+        producer.start();
+
+        long written = 0;
+        try {
+            while (true) {
+                Frame frame = pending.take().get();
+                if (frame == null) break;
+                sink.write(frame.index, frame.data);
+                written++;
+                free.put(frame);
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) throw ((UncheckedIOException) cause).getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IllegalStateException("导出失败", cause);
+        } finally {
+            producer.interrupt();
+            pool.shutdownNow();
+        }
+        return written;
+    }
+
+    // 写出一帧的去处，只在调用 export() 的线程上调用
+    public interface FrameSink {
+        void write(long index, ByteArrayOutputStream data) throws IOException;
+    }
+
+    // 回放线程：按时间轴推进引擎，每到一个输出时刻取一个空槽位复制状态，交给线程池绘制
+    private void produce(double startSeconds, double seconds, BlockingQueue<Frame> free,
+                         BlockingQueue<Future<Frame>> pending, ExecutorService pool) {
+        try {
+            TetrisEngine engine = player.createEngine();
+            player.start(engine);
+            long startNanos = (long) (startSeconds * 1e9);
+            long endNanos = seconds < 0 ? Long.MAX_VALUE : startNanos + (long) (seconds * 1e9);
+            long index = 0;
+            long clock = 0;  // 当前状态开始显示的时刻
+            long holdUntil = -1;
+            boolean more = true;
+            while (true) {
+                // 当前状态一直显示到下一步发生；放完后终局画面再停留一会儿
+                long until = more ? clock + stepNanos(engine) : holdUntil;
+                while (true) {
+                    long time = startNanos + index * 1_000_000_000L / fps;
+                    if (time >= until || time >= endNanos) break;
+                    Frame frame = free.take();
+                    frame.snapshot.capture(engine, 0, engine.getBoard().getHeight() - 1, index + 1, 0,
+                            engine.getBoard().getHeight() - 1, false, true, noInput, false);
+                    frame.index = index++;
+                    pending.put(CompletableFuture.supplyAsync(() -> {
+                        renderers.get().render(frame);
+                        return frame;
+                    }, pool));
+                }
+                if (!more || startNanos + index * 1_000_000_000L / fps >= endNanos) break;
+                clock = until;
+                more = player.advance(engine);
+                if (!more) {
+                    holdUntil = clock + (long) (HOLD_SECONDS * 1e9);
+                }
+            }
+            pending.put(CompletableFuture.completedFuture(null));
+        } catch (InterruptedException e) {
+            // 写出方出错后中断了回放线程
+        } catch (RuntimeException | Error e) {
+            pending.offer(CompletableFuture.failedFuture(e));
+        }
+    }
+
+    // 下一步之前这一步的时长，与 TetrisPanel 回放的节奏相同
+    private long stepNanos(TetrisEngine engine) {
+        int kind = player.getFrameKind();
+        if (kind == ReplayRecorder.FRAME_STEP || kind == ReplayRecorder.FRAME_IDLE) {
+            return engine.getDropInterval() * 1_000_000L;
+        }
+        return 1_000_000_000L / TetrisEngine.TICKS_PER_SECOND;
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        System.setProperty("java.awt.headless", "true");
+        String input = null;
+        String format = PNG;
+        String out = null;
+        int blockSize = 30;
+        int fps = TetrisEngine.TICKS_PER_SECOND;
+        double start = 0;
+        double seconds = -1;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long memory = 256;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--format":
+                    format = args[++i];
+                    break;
+                case "--out":
+                    out = args[++i];
+                    break;
+                case "--size":
+                    blockSize = Integer.parseInt(args[++i]);
+                    break;
+                case "--fps":
+                    fps = Integer.parseInt(args[++i]);
+                    break;
+                case "--start":
+                    start = Double.parseDouble(args[++i]);
+                    break;
+                case "--seconds":
+                    seconds = Double.parseDouble(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--memory":
+                    memory = Long.parseLong(args[++i]);
+                    break;
+                default:
+                    if (args[i].startsWith("--") || input != null) {
+                        throw new IllegalArgumentException("未知参数: " + args[i]);
+                    }
+                    input = args[i];
+            }
+        }
+        if (input == null) {
+            System.out.println("用法: java tetris.ReplayExporter 录像.trp [--format png|rgb] [--out 目录或文件] [--size 格子像素]");
+            System.out.println("         [--fps 帧率] [--start 秒] [--seconds 秒] [--threads T] [--memory MB]");
+            return;
+        }
+
+        ReplayPlayer player = ReplayPlayer.open(Paths.get(input));
+        ReplayExporter exporter = new ReplayExporter(player, format, blockSize, fps, threads, memory << 20);
+        boolean toStdout = "-".equals(out);
+        PrintStream log = toStdout ? System.err : System.out;  // 标准输出留给像素流
+        long startTime = System.nanoTime();
+        long frames;
+        if (PNG.equals(format)) {
+            Path dir = Paths.get(out != null ? out : "frames");
+            Files.createDirectories(dir);
+            frames = exporter.export(start, seconds, (index, data) -> {
+                try (OutputStream file = Files.newOutputStream(dir.resolve(String.format("frame_%06d.png", index)))) {
+                    data.writeTo(file);
+                }
+            });
+            out = dir.toString();
+        } else {
+            if (out == null) out = "frames.rgb";
+            // PrintStream 会吞掉写入错误，管道断开时要能停下来
+            try (OutputStream stream = toStdout ? new FileOutputStream(FileDescriptor.out)
+                    : Files.newOutputStream(Paths.get(out))) {
+                frames = exporter.export(start, seconds, (index, data) -> data.writeTo(stream));
+            }
+        }
+        double elapsed = (System.nanoTime() - startTime) / 1e9;
+        log.printf("导出 %d 帧 (%dx%d, %d 帧/秒) 到 %s，耗时 %.2f s (%.0f 帧/秒)%n", frames,
+                exporter.getImageWidth(), exporter.getImageHeight(), fps, toStdout ? "标准输出" : out,
+                elapsed, frames / elapsed);
+        if (RGB.equals(format)) {
+            log.printf("编码: ffmpeg -f rawvideo -pix_fmt rgb24 -s %dx%d -r %d -i %s 输出.mp4%n",
+                    exporter.getImageWidth(), exporter.getImageHeight(), fps, toStdout ? "-" : out);
+        }
+    }
+}
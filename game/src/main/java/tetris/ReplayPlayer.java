@@ -0,0 +1,400 @@
+package tetris;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * 回放 ReplayRecorder 录下的对局。可以在界面里逐帧推进（advance），
+ * 也可以无界面地一口气放完（playToEnd），最后把棋盘和得分与录制时的终局摘要比对。
+ *
+ * 命令行批量校验: java tetris.ReplayPlayer [--threads T] 文件或目录...
+ * 目录下所有 .trp 文件在 ForkJoinPool 上并行重放。
+ */
+public class ReplayPlayer {
+    private final ByteBuffer data;
+    private final int generatorType;
+    private final int lookahead;
+    private final int width;
+    private final int height;
+    private final long seed;
+    private final Difficulty difficulty;
+    private final double gravity;
+    private final RotationSystem rotationSystem;
+    private final int headerSize;
+
+    // 终局摘要
+    private final long frames;
+    private final int score;
+    private final int lines;
+    private final int pieces;
+    private final int dropInterval;
+    private final boolean gameOver;
+    private final long boardHash;
+
+    // 播放进度
+    private boolean ended;
+    private long nextFrame;
+    private int nextAction;
+    private int frameKind;
+    private long desyncFrame = -1;  // 第一个没能生效的操作所在帧，-1 表示没有
+
+    public ReplayPlayer(ByteBuffer data) throws IOException {
+        this.data = data.duplicate();
+        if (this.data.remaining() < ReplayRecorder.V1_HEADER_SIZE + 1 + ReplayRecorder.FOOTER_SIZE
+                || this.data.getInt() != ReplayRecorder.MAGIC) {
+            throw new IOException("不是回放文件");
+        }
+        int version = this.data.getShort();
+        if (version < 1 || version > ReplayRecorder.VERSION) {
+            throw new IOException("不支持的回放版本: " + version);
+        }
+        // 文件头里的每个字段都先校验，损坏的文件在打开时就报 IOException，不留到建引擎时才出错
+        generatorType = this.data.get();
+        if (generatorType != PieceGenerator.TYPE_UNIFORM && generatorType != PieceGenerator.TYPE_BAG) {
+            throw new IOException("回放文件损坏: 未知生成器类型 " + generatorType);
+        }
+        lookahead = this.data.get();
+        if (lookahead < 1) {
+            throw new IOException("回放文件损坏: 预览数量 " + lookahead);
+        }
+        width = this.data.getShort();
+        height = this.data.getShort();
+        if (width < 1 || width > Board.MAX_WIDTH || height < 1 || height > Board.MAX_HEIGHT) {
+            throw new IOException("回放文件损坏: 棋盘尺寸 " + width + "x" + height);
+        }
+        seed = this.data.getLong();
+        difficulty = Difficulty.values()[checkIndex(this.data.get(), Difficulty.values().length, "难度")];
+        gravity = this.data.getDouble();
+        if (!(gravity >= 0 && gravity <= TetrisEngine.MAX_GRAVITY)) {
+            throw new IOException("回放文件损坏: 重力 " + gravity);
+        }
+        // 1 版录像时旋转还不踢墙
+        rotationSystem = version >= 2
+                ? RotationSystem.values()[checkIndex(this.data.get(), RotationSystem.values().length, "旋转系统")]
+                : RotationSystem.NONE;
+        headerSize = this.data.position();
+
+        // 摘要定长，放在文件末尾
+        int footer = this.data.limit() - ReplayRecorder.FOOTER_SIZE;
+        frames = this.data.getLong(footer);
+        score = this.data.getInt(footer + 8);
+        lines = this.data.getInt(footer + 12);
+        pieces = this.data.getInt(footer + 16);
+        dropInterval = this.data.getInt(footer + 20);
+        gameOver = this.data.get(footer + 24) != 0;
+        boardHash = this.data.getLong(footer + 25);
+        this.data.limit(footer);
+    }
+
+    private static int checkIndex(int index, int count, String field) throws IOException {
+        if (index < 0 || index >= count) {
+            throw new IOException("回放文件损坏: 未知" + field + " " + index);
+        }
+        return index;
+    }
+
+    // 以只读方式映射整个文件
+    public static ReplayPlayer open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new ReplayPlayer(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    // 按录制时的生成器、预览数和棋盘尺寸创建一个新引擎
+    public TetrisEngine createEngine() {
+        return new TetrisEngine(PieceGenerator.create(generatorType, seed), lookahead, width, height);
+    }
+
+    /**
+     * 把引擎调成录制时的规则并开始这一局。引擎上若挂着录制器，调用方应先摘掉。
+     */
+    public void start(TetrisEngine engine) {
+        Board board = engine.getBoard();
+        if (board.getWidth() != width || board.getHeight() != height) {
+            throw new IllegalArgumentException("棋盘尺寸不匹配: 录像为 " + width + "x" + height
+                    + ", 引擎为 " + board.getWidth() + "x" + board.getHeight());
+        }
+        if (engine.getGenerator().getType() != generatorType || engine.getPreviewCount() != lookahead) {
+            engine.setGenerator(PieceGenerator.create(generatorType, seed), lookahead);
+        }
+        engine.setDifficulty(difficulty);
+        engine.setGravity(gravity);
+        engine.setRotationSystem(rotationSystem);
+        engine.start(seed);
+        data.position(headerSize);
+        ended = false;
+        nextFrame = 0;
+        frameKind = ReplayRecorder.FRAME_NONE;
+        desyncFrame = -1;
+        readEvent();
+    }
+
+    /**
+     * 执行当前帧上的全部操作，再推进一个重力步。
+     * @return 回放已经结束时返回 false
+     */
+    public boolean advance(TetrisEngine engine) {
+        while (!ended && nextFrame == engine.getFrame()) {
+            apply(engine);
+            readEvent();
+        }
+        if (engine.isGameOver() || (ended && engine.getFrame() >= frames)) {
+            return false;
+        }
+        if (!ended && nextFrame < engine.getFrame()) {
+            throw new IllegalStateException("回放数据损坏: 事件帧 " + nextFrame + " 早于当前帧 " + engine.getFrame());
+        }
+        switch (frameKind) {
+            case ReplayRecorder.FRAME_STEP:
+                engine.step();
+                break;
+            case ReplayRecorder.FRAME_TICK:
+                engine.tick();
+                break;
+            case ReplayRecorder.FRAME_IDLE:
+                engine.skipFrame();
+                break;
+            default:
+                throw new IllegalStateException("回放数据损坏: 第 " + engine.getFrame() + " 帧之前没有重力驱动方式");
+        }
+        return true;
+    }
+
+    // 不限速地放完整局
+    public void playToEnd(TetrisEngine engine) {
+        start(engine);
+        while (advance(engine)) {
+            // 逐帧推进直到结束
+        }
+    }
+
+    /**
+     * 与录制时的终局摘要比对。
+     * @return 完全一致时返回 null，否则返回第一处差异的说明
+     */
+    public String verify(TetrisEngine engine) {
+        if (desyncFrame >= 0) {
+            return "第 " + desyncFrame + " 帧的操作没有生效";
+        }
+        if (engine.getFrame() != frames) {
+            return "帧数 " + engine.getFrame() + " != " + frames;
+        }
+        if (engine.getScore() != score) {
+            return "得分 " + engine.getScore() + " != " + score;
+        }
+        if (engine.getLinesCleared() != lines) {
+            return "消行 " + engine.getLinesCleared() + " != " + lines;
+        }
+        if (engine.getPiecesPlaced() != pieces) {
+            return "方块数 " + engine.getPiecesPlaced() + " != " + pieces;
+        }
+        if (engine.getDropInterval() != dropInterval) {
+            return "下落间隔 " + engine.getDropInterval() + " != " + dropInterval;
+        }
+        if (engine.isGameOver() != gameOver) {
+            return "游戏结束状态不一致";
+        }
+        if (engine.getBoard().contentHash() != boardHash) {
+            return "终局棋盘不一致";
+        }
+        return null;
+    }
+
+    private void readEvent() {
+        int b = data.get() & 0xFF;
+        nextAction = b & 0x0F;
+        if (nextAction == ReplayRecorder.END) {
+            ended = true;
+            return;
+        }
+        long delta = b >>> 4;
+        if (delta == 15) {
+            delta += readVarint();
+        }
+        nextFrame += delta;
+    }
+
+    private void apply(TetrisEngine engine) {
+        boolean applied = true;
+        switch (nextAction) {
+            case ReplayRecorder.LEFT:
+                applied = engine.moveLeft();
+                break;
+            case ReplayRecorder.RIGHT:
+                applied = engine.moveRight();
+                break;
+            case ReplayRecorder.SOFT_DROP:
+                applied = engine.softDrop();
+                break;
+            case ReplayRecorder.ROTATE:
+                applied = engine.rotate();
+                break;
+            case ReplayRecorder.ROTATE_CCW:
+                applied = engine.rotateCounterClockwise();
+                break;
+            case ReplayRecorder.HARD_DROP:
+                applied = !engine.isGameOver();
+                engine.hardDrop();
+                break;
+            case ReplayRecorder.PLACE: {
+                int rotation = data.get();
+                int x = unzigzag(readVarint());
+                int y = unzigzag(readVarint());
+                applied = engine.place(rotation, x, y);
+                break;
+            }
+            case ReplayRecorder.DIFFICULTY:
+                engine.setDifficulty(Difficulty.values()[data.get()]);
+                break;
+            case ReplayRecorder.GRAVITY:
+                engine.setGravity(data.getDouble());
+                break;
+            case ReplayRecorder.FRAME_KIND:
+                frameKind = data.get();
+                break;
+            case ReplayRecorder.GARBAGE: {
+                int lines = (int) readVarint();
+                int hole = (int) readVarint();
+                applied = !engine.isGameOver();
+                engine.addGarbage(lines, hole);
+                break;
+            }
+            default:
+                throw new IllegalStateException("回放数据损坏: 未知动作 " + nextAction);
+        }
+        if (!applied && desyncFrame < 0) {
+            desyncFrame = nextFrame;
+        }
+    }
+
+    private long readVarint() {
+        long value = 0;
+        int shift = 0;
+        int b;
+        do {
+            b = data.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static int unzigzag(long value) {
+        int v = (int) value;
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    public RotationSystem getRotationSystem() {
+        return rotationSystem;
+    }
+
+    public long getFrames() {
+        return frames;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    // 录制时的重力驱动方式，界面回放据此决定节奏
+    public int getFrameKind() {
+        return frameKind;
+    }
+
+    // 重放并校验一个文件，返回 null 表示一致
+    private static String check(Path file, long[] totalFrames, int index) {
+        try {
+            ReplayPlayer player = open(file);
+            TetrisEngine engine = player.createEngine();
+            player.playToEnd(engine);
+            totalFrames[index] = engine.getFrame();
+            String mismatch = player.verify(engine);
+            return mismatch == null ? null : file + ": " + mismatch;
+        } catch (IOException | RuntimeException e) {
+            return file + ": " + e.getMessage();
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        int threads = Runtime.getRuntime().availableProcessors();
+        List<Path> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--threads")) {
+                threads = Integer.parseInt(args[++i]);
+                continue;
+            }
+            Path path = Paths.get(args[i]);
+            if (Files.isDirectory(path)) {
+                try (Stream<Path> walk = Files.walk(path)) {
+                    files.addAll(walk.filter(p -> p.toString().endsWith(ReplayRecorder.EXTENSION))
+                            .sorted()
+                            .collect(Collectors.toList()));
+                }
+            } else {
+                files.add(path);
+            }
+        }
+        if (files.isEmpty()) {
+            System.out.println("用法: java tetris.ReplayPlayer [--threads T] 文件或目录...");
+            return;
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        long start = System.nanoTime();
+        String[] failures;
+        long[] totalFrames = new long[files.size()];
+        try {
+            failures = pool.submit(() -> IntStream.range(0, files.size())
+                    .parallel()
+                    .mapToObj(i -> check(files.get(i), totalFrames, i))
+                    .toArray(String[]::new)).get();
+        } finally {
+            pool.shutdown();
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        int failed = 0;
+        long frameSum = 0;
+        for (int i = 0; i < failures.length; i++) {
+            frameSum += totalFrames[i];
+            if (failures[i] != null) {
+                failed++;
+                System.out.println("不一致 " + failures[i]);
+            }
+        }
+        System.out.printf("回放: %d  通过: %d  不一致: %d  耗时: %.2f s  (%.0f 局/秒, %.0f 帧/秒)%n",
+                failures.length, failures.length - failed, failed, seconds,
+                failures.length / seconds, frameSum / seconds);
+        if (failed > 0) {
+            System.exit(1);
+        }
+    }
+}
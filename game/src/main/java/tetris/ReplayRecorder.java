@@ -0,0 +1,240 @@
+package tetris;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 把一局游戏录成紧凑的二进制回放：文件头记录种子和规则参数，之后是按重力步
+ * 打时间戳的操作事件，最后是用于校验的终局摘要。只记录成功生效的操作，
+ * 同样的种子重放这些操作必然得到同样的棋盘和得分。
+ *
+ * 文件格式（大端，版本 3；3 版只多了 FRAME_IDLE 这种驱动方式，布局与 2 版相同）:
+ *   头部  magic "TRP1", short 版本, byte 生成器类型, byte 预览数, short 棋盘宽, short 棋盘高,
+ *         long 种子, byte 难度, double 固定重力, byte 旋转系统（2 版起；1 版没有这个字节，按不踢墙重放）
+ *   事件  byte (动作 | min(帧差, 15) << 4)，帧差不小于 15 时后跟 varint(帧差 - 15)，再跟动作参数
+ *   结束  byte END，之后是定长的终局摘要（FOOTER_SIZE 字节）:
+ *         long 总帧数, int 得分, int 消行, int 方块数, int 下落间隔, byte 是否结束, long 棋盘摘要
+ *
+ * 录制期间写入堆上缓冲区，一局结束后由后台线程经 FileChannel 写到目录里
+ * （先写临时文件再原子改名）；不指定目录时只保留在内存中。
+ */
+public class ReplayRecorder {
+    static final int MAGIC = 0x54525031;  // "TRP1"
+    static final int VERSION = 3;
+    static final int HEADER_SIZE = 4 + 2 + 1 + 1 + 2 + 2 + 8 + 1 + 8 + 1;
+    static final int V1_HEADER_SIZE = HEADER_SIZE - 1;
+    static final int FOOTER_SIZE = 8 + 4 + 4 + 4 + 4 + 1 + 8;
+    public static final String EXTENSION = ".trp";
+
+    // 事件动作编号，占一个字节的低 4 位
+    public static final int LEFT = 0;
+    public static final int RIGHT = 1;
+    public static final int SOFT_DROP = 2;
+    public static final int ROTATE = 3;
+    public static final int HARD_DROP = 4;
+    public static final int PLACE = 5;       // 参数: byte 朝向, zigzag varint x, zigzag varint y
+    public static final int DIFFICULTY = 6;  // 参数: byte 难度序号
+    public static final int GRAVITY = 7;     // 参数: double 每步下落格数
+    public static final int FRAME_KIND = 8;  // 参数: byte 重力步的驱动方式
+    public static final int GARBAGE = 9;     // 参数: varint 行数, varint 缺口列
+    public static final int ROTATE_CCW = 10;
+    public static final int END = 15;
+
+    // 重力步的驱动方式：计时器模式调用 step()，固定步长模式调用 tick()，
+    // 自动游戏每放一块调用 skipFrame()，只推进帧号不施加重力，回放时按下落间隔的节奏推进
+    public static final int FRAME_NONE = 0;
+    public static final int FRAME_STEP = 1;
+    public static final int FRAME_TICK = 2;
+    public static final int FRAME_IDLE = 3;
+
+    private static final int SHORT_DELTA = 15;
+
+    private final Path directory;
+    private ExecutorService writer;
+    private ByteBuffer buffer = ByteBuffer.allocate(4096);
+    private boolean recording;
+    private long lastFrame;
+    private long seed;
+    private int fileCounter;
+    private ByteBuffer lastReplay;
+
+    // 只录在内存中，用 getLastReplay() 取出
+    public ReplayRecorder() {
+        this(null);
+    }
+
+    public ReplayRecorder(Path directory) {
+        this.directory = directory;
+    }
+
+    public boolean isRecording() {
+        return recording;
+    }
+
+    // 由 TetrisEngine.start() 调用，此时棋盘和队列已按种子重置
+    void begin(TetrisEngine engine) {
+        buffer.clear();
+        recording = true;
+        lastFrame = 0;
+        seed = engine.getSeed();
+        Board board = engine.getBoard();
+        ensureCapacity(HEADER_SIZE);
+        buffer.putInt(MAGIC);
+        buffer.putShort((short) VERSION);
+        buffer.put((byte) engine.getGenerator().getType());
+        buffer.put((byte) engine.getPreviewCount());
+        buffer.putShort((short) board.getWidth());
+        buffer.putShort((short) board.getHeight());
+        buffer.putLong(seed);
+        buffer.put((byte) engine.getDifficulty().ordinal());
+        buffer.putDouble(engine.getGravityOverride());
+        buffer.put((byte) engine.getRotationSystem().ordinal());
+    }
+
+    void record(long frame, int action) {
+        if (!recording) return;
+        writeEvent(frame, action);
+    }
+
+    void recordPlace(long frame, int rotation, int x, int y) {
+        if (!recording) return;
+        writeEvent(frame, PLACE);
+        buffer.put((byte) rotation);
+        writeVarint(zigzag(x));
+        writeVarint(zigzag(y));
+    }
+
+    void recordDifficulty(long frame, Difficulty difficulty) {
+        if (!recording) return;
+        writeEvent(frame, DIFFICULTY);
+        buffer.put((byte) difficulty.ordinal());
+    }
+
+    void recordGravity(long frame, double cellsPerTick) {
+        if (!recording) return;
+        writeEvent(frame, GRAVITY);
+        buffer.putDouble(cellsPerTick);
+    }
+
+    void recordFrameKind(long frame, int kind) {
+        if (!recording) return;
+        writeEvent(frame, FRAME_KIND);
+        buffer.put((byte) kind);
+    }
+
+    void recordGarbage(long frame, int lines, int hole) {
+        if (!recording) return;
+        writeEvent(frame, GARBAGE);
+        writeVarint(lines);
+        writeVarint(hole);
+    }
+
+    /**
+     * 写入结束标记和终局摘要。由引擎在游戏结束或中途重开时调用。
+     */
+    void finish(TetrisEngine engine) {
+        if (!recording) return;
+        recording = false;
+        ensureCapacity(1 + FOOTER_SIZE);
+        buffer.put((byte) END);
+        buffer.putLong(engine.getFrame());
+        buffer.putInt(engine.getScore());
+        buffer.putInt(engine.getLinesCleared());
+        buffer.putInt(engine.getPiecesPlaced());
+        buffer.putInt(engine.getDropInterval());
+        buffer.put((byte) (engine.isGameOver() ? 1 : 0));
+        buffer.putLong(engine.getBoard().contentHash());
+
+        // 录制缓冲区下一局还要复用，交出去的是一份拷贝
+        byte[] bytes = new byte[buffer.position()];
+        buffer.flip();
+        buffer.get(bytes);
+        lastReplay = ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+        if (directory != null) {
+            Path file = directory.resolve(String.format("replay-%tY%<tm%<td-%<tH%<tM%<tS-%d-%016x%s",
+                    System.currentTimeMillis(), fileCounter++, seed, EXTENSION));
+            writer().execute(() -> {
+                try {
+                    write(file, ByteBuffer.wrap(bytes));
+                } catch (IOException e) {
+                    System.err.println("回放写入失败: " + file + " (" + e.getMessage() + ")");
+                }
+            });
+        }
+    }
+
+    // 最近一局完整的回放数据，只读；还没有录完任何一局时为 null
+    public ByteBuffer getLastReplay() {
+        return lastReplay == null ? null : lastReplay.duplicate();
+    }
+
+    /**
+     * 经 FileChannel 把回放写到文件，先写临时文件再原子改名，
+     * 进程中途退出也不会留下半个文件。
+     */
+    public static void write(Path file, ByteBuffer data) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (data.hasRemaining()) {
+                channel.write(data);
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private ExecutorService writer() {
+        if (writer == null) {
+            writer = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "replay-writer");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return writer;
+    }
+
+    // 帧差相对上一个事件，绝大多数事件只占 1 字节
+    private void writeEvent(long frame, int action) {
+        ensureCapacity(32);
+        long delta = frame - lastFrame;
+        lastFrame = frame;
+        if (delta < SHORT_DELTA) {
+            buffer.put((byte) (action | delta << 4));
+        } else {
+            buffer.put((byte) (action | SHORT_DELTA << 4));
+            writeVarint(delta - SHORT_DELTA);
+        }
+    }
+
+    private void writeVarint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    private static long zigzag(int value) {
+        return ((value << 1) ^ (value >> 31)) & 0xFFFFFFFFL;
+    }
+
+    private void ensureCapacity(int bytes) {
+        if (buffer.remaining() >= bytes) return;
+        ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+        buffer.flip();
+        larger.put(buffer);
+        buffer = larger;
+    }
+}
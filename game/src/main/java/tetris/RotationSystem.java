@@ -0,0 +1,128 @@
+package tetris;
+
+/**
+ * 旋转系统：按 [形状][起始朝向][方向] 查表得到依次尝试的踢墙偏移 (dx, dy)，
+ * 第一个不碰撞的偏移生效。Block 的朝向都是绕 (0,0) 格旋转得到的，
+ * I 和 O 绕自身中心旋转所需的平移已并入每张表的第一项，因此它们转起来不会晃动。
+ * 全部表在类加载时算好，旋转只是查表加几次 collides()，不创建任何对象。
+ */
+public enum RotationSystem {
+    SRS("SRS"),          // 标准旋转系统，踢墙表与现代规则一致
+    CLASSIC("经典"),     // 原地、右一格、左一格（I 再试左右两格）、上一格
+    NONE("无踢墙");      // 绕 (0,0) 格旋转且不踢墙，1 版回放按此重放
+
+    public static final int CLOCKWISE = 0;
+    public static final int COUNTER_CLOCKWISE = 1;
+
+    // 形状序号，与 Block.SHAPES 的顺序一致
+    private static final int O = 3;
+    private static final int I = 6;
+
+    // Block 的 0 号朝向对应的 SRS 朝向 (0/R/2/L)：JLSTZ 平的一面朝上，相当于 SRS 的 2
+    private static final int[] SRS_STATE = {2, 2, 2, 1, 2, 2, 0};
+
+    // SRS 的偏移表 [SRS 朝向][测试序号] -> (x, y)，y 向上；踢墙偏移 = 起始朝向的偏移 - 目标朝向的偏移
+    private static final int[][][] JLSTZ_OFFSETS = {
+        {{0, 0}, {0, 0}, {0, 0}, {0, 0}, {0, 0}},
+        {{0, 0}, {1, 0}, {1, -1}, {0, 2}, {1, 2}},
+        {{0, 0}, {0, 0}, {0, 0}, {0, 0}, {0, 0}},
+        {{0, 0}, {-1, 0}, {-1, -1}, {0, 2}, {-1, 2}},
+    };
+    private static final int[][][] I_OFFSETS = {
+        {{0, 0}, {-1, 0}, {2, 0}, {-1, 0}, {2, 0}},
+        {{-1, 0}, {0, 0}, {0, 0}, {0, 1}, {0, -2}},
+        {{-1, 1}, {1, 1}, {-2, 1}, {1, 0}, {-2, 0}},
+        {{0, 1}, {0, 1}, {0, 1}, {0, -1}, {0, 2}},
+    };
+    private static final int[][][] O_OFFSETS = {
+        {{0, 0}},
+        {{0, -1}},
+        {{-1, -1}},
+        {{-1, 0}},
+    };
+
+    private final String displayName;
+    // [形状][起始朝向][方向] -> {dx0, dy0, dx1, dy1, ...}，y 向下，与棋盘坐标一致
+    private final int[][][][] kicks = new int[Block.SHAPE_COUNT][Block.ROTATIONS][2][];
+
+    // 枚举常量先于上面的静态表初始化，所以踢墙表在这里而不是构造器里生成
+    static {
+        for (RotationSystem system : values()) {
+            for (int s = 0; s < Block.SHAPE_COUNT; s++) {
+                for (int r = 0; r < Block.ROTATIONS; r++) {
+                    system.kicks[s][r][CLOCKWISE] = system.buildKicks(s, r, (r + 1) & 3);
+                    system.kicks[s][r][COUNTER_CLOCKWISE] = system.buildKicks(s, r, (r + 3) & 3);
+                }
+            }
+        }
+    }
+
+    RotationSystem(String displayName) {
+        this.displayName = displayName;
+    }
+
+    private int[] buildKicks(int shape, int from, int to) {
+        switch (this) {
+            case SRS:
+                return srsKicks(shape, from, to);
+            case CLASSIC: {
+                int[] center = srsKicks(shape, from, to);
+                int cx = center[0];
+                int cy = center[1];
+                if (shape == O) {
+                    return new int[] {cx, cy};
+                }
+                if (shape == I) {
+                    return new int[] {cx, cy, cx + 1, cy, cx - 1, cy, cx + 2, cy, cx - 2, cy, cx, cy - 1};
+                }
+                return new int[] {cx, cy, cx + 1, cy, cx - 1, cy, cx, cy - 1};
+            }
+            default:
+                return new int[] {0, 0};
+        }
+    }
+
+    private static int[] srsKicks(int shape, int from, int to) {
+        int[][][] offsets = shape == I ? I_OFFSETS : shape == O ? O_OFFSETS : JLSTZ_OFFSETS;
+        int[][] a = offsets[(from + SRS_STATE[shape]) & 3];
+        int[][] b = offsets[(to + SRS_STATE[shape]) & 3];
+        int[] result = new int[a.length * 2];
+        for (int i = 0; i < a.length; i++) {
+            result[i * 2] = a[i][0] - b[i][0];
+            result[i * 2 + 1] = b[i][1] - a[i][1];  // 表里 y 向上，翻成向下
+        }
+        return result;
+    }
+
+    public String getDisplayName() {
+        return displayName;
+    }
+
+    /**
+     * 从 from 朝 direction 旋转时依次尝试的偏移 {dx0, dy0, dx1, dy1, ...}。
+     * 共享的只读表，调用方不得修改。
+     */
+    int[] kicks(int shape, int from, int direction) {
+        return kicks[shape][from][direction];
+    }
+
+    /**
+     * 在 board 上旋转 block：依次尝试踢墙偏移，第一个不碰撞的生效并改写 block。
+     * @return 所有偏移都碰撞时返回 false，此时 block 不变
+     */
+    public boolean rotate(Board board, Block block, int direction) {
+        int to = (block.rotation + (direction == CLOCKWISE ? 1 : 3)) & 3;
+        int[] tests = kicks[block.shape][block.rotation][direction];
+        for (int i = 0; i < tests.length; i += 2) {
+            int x = block.x + tests[i];
+            int y = block.y + tests[i + 1];
+            if (!board.collides(block.shape, to, x, y)) {
+                block.rotation = to;
+                block.x = x;
+                block.y = y;
+                return true;
+            }
+        }
+        return false;
+    }
+}
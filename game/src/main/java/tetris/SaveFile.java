@@ -0,0 +1,159 @@
+package tetris;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+/**
+ * 存档：把一局进行中的游戏完整写成紧凑的二进制快照，下次启动时直接恢复，
+ * 不使用 Java 序列化。
+ *
+ * 文件格式（大端，版本 2）:
+ *   头部  magic "TSV1", short 版本, short 棋盘宽, short 棋盘高, byte 生成器类型, byte 预览数
+ *   状态  见 TetrisEngine.writeState()：种子、帧数、难度、旋转系统（2 版起）、下落间隔、重力、得分、
+ *         当前方块的形状/朝向/位置、生成器的随机数状态和已生成的队列、堆叠顶部以下的棋盘
+ *   结尾  int 之前全部字节的 CRC32，写到一半的文件不会被当成有效存档
+ *
+ * 编码在拥有引擎的线程上进行（几百字节，微秒级）；写盘交给后台线程，
+ * 先写临时文件再原子改名，自动存档不会卡住逻辑线程或 EDT。
+ */
+public class SaveFile {
+    static final int MAGIC = 0x54535631;  // "TSV1"
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 4 + 2 + 2 + 2 + 1 + 1;
+    public static final String EXTENSION = ".tsv";
+
+    private final Path file;
+    private ExecutorService writer;
+    private ByteBuffer buffer = ByteBuffer.allocate(1024);  // 只由编码线程使用
+
+    public SaveFile(Path file) {
+        this.file = file;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public boolean exists() {
+        return Files.isRegularFile(file);
+    }
+
+    /**
+     * 编码引擎的当前状态并在后台写盘，只能在拥有引擎的线程调用。
+     * @return 写完（或失败）时完成；写盘按调用顺序进行
+     */
+    public CompletableFuture<Void> save(TetrisEngine engine) {
+        byte[] bytes = encode(engine);
+        return CompletableFuture.runAsync(() -> {
+            try {
+                ReplayRecorder.write(file, ByteBuffer.wrap(bytes));
+            } catch (IOException e) {
+                System.err.println("存档写入失败: " + file + " (" + e.getMessage() + ")");
+            }
+        }, writer());
+    }
+
+    // 对局结束后删掉存档，下次启动不再恢复；与 save() 的写盘保持先后顺序
+    public CompletableFuture<Void> delete() {
+        return CompletableFuture.runAsync(() -> {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                System.err.println("存档删除失败: " + file + " (" + e.getMessage() + ")");
+            }
+        }, writer());
+    }
+
+    // 编码成一份独立的字节数组，编码缓冲区本身下次复用
+    byte[] encode(TetrisEngine engine) {
+        Board board = engine.getBoard();
+        int size = HEADER_SIZE + engine.maxStateSize() + 4;
+        if (buffer.capacity() < size) {
+            buffer = ByteBuffer.allocate(Math.max(size, buffer.capacity() * 2));
+        }
+        buffer.clear();
+        buffer.putInt(MAGIC);
+        buffer.putShort((short) VERSION);
+        buffer.putShort((short) board.getWidth());
+        buffer.putShort((short) board.getHeight());
+        buffer.put((byte) engine.getGenerator().getType());
+        buffer.put((byte) engine.getPreviewCount());
+        engine.writeState(buffer);
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putInt((int) crc.getValue());
+        byte[] bytes = new byte[buffer.position()];
+        buffer.flip();
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * 读取存档并创建一个恢复到存档时刻的引擎。
+     * @return 文件不存在时返回 null
+     * @throws IOException 读取失败或存档损坏、版本不支持
+     */
+    public TetrisEngine load() throws IOException {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        return decode(ByteBuffer.wrap(bytes));
+    }
+
+    public static TetrisEngine decode(ByteBuffer data) throws IOException {
+        if (data.remaining() < HEADER_SIZE + 4) {
+            throw new IOException("存档太短");
+        }
+        int end = data.limit() - 4;
+        CRC32 crc = new CRC32();
+        ByteBuffer body = data.duplicate();
+        body.limit(end);
+        crc.update(body);
+        if ((int) crc.getValue() != data.getInt(end)) {
+            throw new IOException("存档校验失败");
+        }
+        if (data.getInt() != MAGIC) {
+            throw new IOException("不是存档文件");
+        }
+        int version = data.getShort();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("不支持的存档版本: " + version);
+        }
+        try {
+            int width = data.getShort();
+            int height = data.getShort();
+            int type = data.get();
+            int lookahead = data.get();
+            TetrisEngine engine = new TetrisEngine(PieceGenerator.create(type, 0), lookahead, width, height);
+            data.limit(end);
+            engine.readState(data, version);
+            if (data.hasRemaining()) {
+                throw new IllegalStateException("存档末尾有多余数据");
+            }
+            return engine;
+        } catch (RuntimeException e) {
+            throw new IOException("存档损坏: " + e.getMessage(), e);
+        }
+    }
+
+    private synchronized ExecutorService writer() {
+        if (writer == null) {
+            writer = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "save-writer");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+        return writer;
+    }
+}
@@ -0,0 +1,144 @@
+package tetris;
+
+/**
+ * 搜索型自动玩家：枚举当前方块全部可达落点，并借助预览方块向前多看几层，
+ * 选出评估值最高的落点。同一棋面在不同分支里反复出现时由置换表去重。
+ * 搜索用的棋盘和枚举器都按层预先分配，单步决策不产生垃圾。
+ *
+ * 每多看一层，落点数就按棋盘宽度成倍增加；棋盘宽于 MAX_LOOKAHEAD_WIDTH 列时只搜当前方块，
+ * 单步决策在最大的棋盘上也只要几十毫秒，不会卡住逻辑线程。
+ */
+public class SearchPolicy implements PlacementPolicy {
+    public static final int DEFAULT_DEPTH = 2;
+    private static final int DEFAULT_TABLE_SIZE = 1 << 16;
+    private static final double LOSS = -1e9;
+    public static final int MAX_LOOKAHEAD_WIDTH = 32;
+
+    private final Heuristic heuristic;
+    private final int maxDepth;
+    private final TranspositionTable table;
+    private ZobristTable zobrist;
+    private PlacementEnumerator[] enumerators;
+    private Board[] scratch;
+    private int[] shapes;
+    private RotationSystem rotationSystem;
+    private int depth;
+    private long evaluations;
+
+    public SearchPolicy() {
+        this(new Heuristic(), DEFAULT_DEPTH, DEFAULT_TABLE_SIZE);
+    }
+
+    public SearchPolicy(Heuristic heuristic, int depth, int tableSize) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("搜索深度至少为 1: " + depth);
+        }
+        this.heuristic = heuristic;
+        this.maxDepth = depth;
+        this.table = new TranspositionTable(tableSize);
+    }
+
+    // 棋盘尺寸第一次确定时分配每层的暂存结构；只搜一层时不需要置换表的哈希键
+    private void ensureCapacity(Board board) {
+        if (scratch != null && scratch[0].getWidth() == board.getWidth()
+                && scratch[0].getHeight() == board.getHeight()) {
+            return;
+        }
+        int plies = board.getWidth() > MAX_LOOKAHEAD_WIDTH ? 1 : maxDepth;
+        zobrist = plies > 1 ? new ZobristTable(board.getWidth(), board.getHeight(), maxDepth, 0x5EED) : null;
+        enumerators = new PlacementEnumerator[plies];
+        scratch = new Board[plies];
+        for (int i = 0; i < plies; i++) {
+            enumerators[i] = new PlacementEnumerator(board.getWidth(), board.getHeight());
+            scratch[i] = new Board(board.getWidth(), board.getHeight());
+        }
+        shapes = new int[plies];
+        rotationSystem = null;
+        table.clear();
+    }
+
+    @Override
+    public boolean isDeterministic() {
+        return true;
+    }
+
+    @Override
+    public boolean choose(TetrisEngine engine, Placement out) {
+        Block block = engine.getCurrentBlock();
+        if (block == null) return false;
+        Board board = engine.getBoard();
+        ensureCapacity(board);
+        if (engine.getRotationSystem() != rotationSystem) {
+            // 可达落点随旋转系统变化，置换表里的旧结果不再适用
+            rotationSystem = engine.getRotationSystem();
+            for (PlacementEnumerator e : enumerators) {
+                e.setRotationSystem(rotationSystem);
+            }
+            table.clear();
+        }
+
+        // 第一层是当前方块，其后依次是预览队列里的方块
+        depth = Math.min(enumerators.length, 1 + engine.getPreviewCount());
+        shapes[0] = block.shape;
+        for (int i = 1; i < depth; i++) {
+            shapes[i] = engine.getPreviewShape(i - 1);
+        }
+
+        PlacementEnumerator enumerator = enumerators[0];
+        int n = enumerator.enumerate(board, block.shape, block.rotation, block.x, block.y);
+        double best = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < n; i++) {
+            double value = evaluatePlacement(board, 0, enumerator.rotation(i), enumerator.x(i), enumerator.y(i));
+            if (value > best) {
+                best = value;
+                out.set(enumerator.rotation(i), enumerator.x(i), enumerator.y(i));
+            }
+        }
+        return n > 0;
+    }
+
+    // 把第 ply 层的方块放到指定位置，返回该分支的评估值
+    private double evaluatePlacement(Board parent, int ply, int rotation, int x, int y) {
+        Board next = scratch[ply];
+        next.copyFrom(parent);
+        int shape = shapes[ply];
+        next.lock(shape, rotation, x, y, shape + 1);
+        int lines = next.clearFullRows(y + Block.minY(shape, rotation), y + Block.maxY(shape, rotation));
+        evaluations++;
+        double rest = ply + 1 < depth ? search(next, ply + 1) : heuristic.evaluate(next);
+        return heuristic.lineValue(lines) + rest;
+    }
+
+    // 第 ply 层方块在给定棋面上能取得的最好评估值
+    private double search(Board board, int ply) {
+        int shape = shapes[ply];
+        // 键里包含从这一层到最深层的全部方块，保证同一键对应同一棵子树
+        long key = zobrist.hash(board);
+        for (int k = ply; k < depth; k++) {
+            key ^= zobrist.pieceKey(shapes[k], depth - k);
+        }
+        double cached = table.get(key);
+        if (!Double.isNaN(cached)) {
+            return cached;
+        }
+        PlacementEnumerator enumerator = enumerators[ply];
+        int n = enumerator.enumerate(board, shape, 0,
+                TetrisEngine.spawnX(board.getWidth()), TetrisEngine.SPAWN_Y);
+        double best = LOSS;  // 新方块无处可放即为游戏结束
+        for (int i = 0; i < n; i++) {
+            double value = evaluatePlacement(board, ply, enumerator.rotation(i), enumerator.x(i), enumerator.y(i));
+            if (value > best) best = value;
+        }
+        table.put(key, best);
+        return best;
+    }
+
+    // 已评估的落点总数，用于统计吞吐量
+    public long getEvaluations() {
+        return evaluations;
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+}
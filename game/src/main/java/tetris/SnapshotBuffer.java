@@ -0,0 +1,100 @@
+package tetris;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 单写单读的三缓冲：逻辑线程写好 back 后与 middle 原子交换完成发布；
+ * 绘制线程取快照时，middle 有新内容就与自己手里的 front 交换，否则继续用 front。
+ * 双方都不加锁、不分配对象，写线程永远不会碰到读线程正在用的快照。
+ *
+ * 写线程还记录每个槽位缺了哪些行，以及最近发布的每份快照各自改了哪些行，
+ * 从而只复制变化的行，并给读线程算出相对它上一份快照的累计变化。
+ */
+public class SnapshotBuffer {
+    private static final int FRESH = 4;    // middle 里的快照还没被读线程取走
+    private static final int INDEX = 3;
+    private static final int HISTORY = 16; // 读线程落后更多份时按整块棋盘都变了处理
+
+    private final RenderSnapshot[] slots = new RenderSnapshot[3];
+    private final AtomicInteger middle = new AtomicInteger(1);
+    private final int height;
+
+    // 以下只由写线程访问
+    private int back = 0;
+    private boolean keepStamps;
+    private long seq;
+    private final int[] staleMin = new int[3];
+    private final int[] staleMax = new int[3];
+    private final int[] historyMin = new int[HISTORY];
+    private final int[] historyMax = new int[HISTORY];
+
+    // 只由读线程访问
+    private int front = 2;
+
+    // 读线程最近取到的序号，写线程据此决定要累计多少份变化
+    private volatile long consumedSeq;
+
+    public SnapshotBuffer(int width, int height) {
+        this.height = height;
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new RenderSnapshot(width, height);
+            staleMin[i] = 0;
+            staleMax[i] = height - 1;
+        }
+    }
+
+    /**
+     * 从引擎（或远端镜像）生成一份快照并发布，只能由写线程调用。会清掉它的脏行记录。
+     */
+    public void publish(GameView engine, boolean paused, boolean replaying, InputHandler input) {
+        int lo = engine.getDirtyMinRow();
+        int hi = engine.getDirtyMaxRow();
+        engine.clearDirtyRows();
+        if (lo <= hi) {
+            for (int i = 0; i < slots.length; i++) {
+                staleMin[i] = Math.min(staleMin[i], lo);
+                staleMax[i] = Math.max(staleMax[i], hi);
+            }
+        }
+        seq++;
+        int h = (int) (seq % HISTORY);
+        historyMin[h] = lo;
+        historyMax[h] = hi;
+
+        // 累计读线程上一份快照之后的全部变化；读得到的 consumedSeq 只会偏小，结果偏保守
+        int dirtyMin = Integer.MAX_VALUE;
+        int dirtyMax = -1;
+        long consumed = consumedSeq;
+        if (seq - consumed > HISTORY) {
+            dirtyMin = 0;
+            dirtyMax = height - 1;
+        } else {
+            for (long s = consumed + 1; s <= seq; s++) {
+                int k = (int) (s % HISTORY);
+                dirtyMin = Math.min(dirtyMin, historyMin[k]);
+                dirtyMax = Math.max(dirtyMax, historyMax[k]);
+            }
+        }
+
+        slots[back].capture(engine, staleMin[back], staleMax[back], seq, dirtyMin, dirtyMax,
+                paused, replaying, input, keepStamps);
+        staleMin[back] = Integer.MAX_VALUE;
+        staleMax[back] = -1;
+        int previous = middle.getAndSet(back | FRESH);
+        back = previous & INDEX;
+        // 换回来的快照没被读过，它携带的按键时间戳要并进下一份
+        keepStamps = (previous & FRESH) != 0;
+    }
+
+    /**
+     * 取最新的快照，只能由读线程调用。没有新发布时返回上一次的快照。
+     * 返回的快照在下一次调用 acquire() 之前保持不变。
+     */
+    public RenderSnapshot acquire() {
+        if ((middle.get() & FRESH) != 0) {
+            front = middle.getAndSet(front) & INDEX;
+            consumedSeq = slots[front].getSeq();
+        }
+        return slots[front];
+    }
+}
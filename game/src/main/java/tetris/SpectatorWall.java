@@ -0,0 +1,506 @@
+package tetris;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.VolatileImage;
+import java.util.Arrays;
+
+/**
+ * 观战墙：一个窗口里平铺几十局同时进行的自动对局，用于机器人比赛和展示屏。
+ * 整面墙是一个组件，不是每局一个 TetrisPanel：所有棋盘共用一个逻辑线程、一个渲染线程和一套贴图。
+ *
+ * 每局有自己的 SnapshotBuffer，逻辑线程只给这一步动过的对局发布快照。渲染线程每帧把各局的最新快照
+ * 增量画进一张常驻的显存画布：快照序号没变的棋盘直接跳过，变了的只重画脏行和活动方块新旧位置
+ * 所在的行，再把这些矩形从画布贴到屏幕上。格子都从 RenderCache 的贴图集绘制。
+ *
+ * 用法: java tetris.SpectatorWall [--boards N] [--policy search|random] [--speed 每步操作数]
+ *                                [--fps 帧率上限] [--width W] [--height H]
+ */
+public class SpectatorWall extends JComponent {
+    private static final int GAP = 8;
+    private static final int HEADER = 16;       // 棋盘上方显示编号和得分的一行
+    private static final int MIN_CELL = 2;
+    private static final int GRID_MIN_CELL = 8;  // 格子小于这个尺寸时不画网格线
+    private static final int RESTART_TICKS = 2 * TetrisEngine.TICKS_PER_SECOND;  // 结束后停留这么久再开新局
+
+    private static final Color WALL_BACKGROUND = new Color(40, 44, 52);
+    private static final Color BOARD_BACKGROUND = new Color(30, 30, 30);
+    private static final Color BOARD_BORDER = new Color(100, 100, 100);
+    private static final Color GRID_LINE = new Color(60, 60, 60);
+    private static final Color HEADER_TEXT = new Color(220, 220, 220);
+    private static final Color OVERLAY = new Color(0, 0, 0, 150);
+    private static final Color OVERLAY_TEXT = new Color(255, 100, 100);
+
+    private final int boardWidth;
+    private final int boardHeight;
+    private final Seat[] seats;
+    private final int speed;
+    private final GameLoop gameLoop;
+    private final InputHandler noInput = new InputHandler();  // 机器人对局没有按键，快照要求一个输入源
+    private final RenderCache renderCache = new RenderCache(this::paintBackground);
+    private final PerfStats perf = new PerfStats();
+    private final Font headerFont = new Font("微软雅黑", Font.PLAIN, 12);
+    private volatile boolean fullRedraw = true;
+    private volatile double boardsPerFrame;
+
+    // 以下只由渲染线程访问
+    private VolatileImage canvas;
+    private int layoutWidth = -1;
+    private int layoutHeight = -1;
+    private int cellSize = MIN_CELL;
+    private final Rectangle[] changed;
+    private int changedCount;
+    private final boolean[] rowMask;
+    private long boardsDrawn;
+    private long frames;
+
+    /**
+     * @param policyName 机器人策略，见 BatchRunner.createPolicy
+     * @param speed      每个逻辑步每局执行的操作数（旋转、平移或下移一格）
+     * @param fpsCap     渲染帧率上限，0 表示不限
+     */
+    public SpectatorWall(int boards, String policyName, int speed, int fpsCap, int boardWidth, int boardHeight) {
+        if (boards < 1) {
+            throw new IllegalArgumentException("棋盘数至少为 1: " + boards);
+        }
+        if (speed < 1) {
+            throw new IllegalArgumentException("每步操作数至少为 1: " + speed);
+        }
+        this.boardWidth = boardWidth;
+        this.boardHeight = boardHeight;
+        this.speed = speed;
+        this.seats = new Seat[boards];
+        this.changed = new Rectangle[boards * 2];
+        this.rowMask = new boolean[boardHeight];
+        SplitMix64 seeds = new SplitMix64(System.nanoTime());
+        for (int i = 0; i < boards; i++) {
+            long seed = seeds.nextLong();
+            seats[i] = new Seat(i + 1, new TetrisEngine(PieceGenerator.uniform(seed), 1, boardWidth, boardHeight),
+                    BatchRunner.createPolicy(policyName, seed), seeds);
+            changed[i * 2] = new Rectangle();
+            changed[i * 2 + 1] = new Rectangle();
+        }
+        gameLoop = new GameLoop(new GameLoop.Listener() {
+            @Override
+            public void tick() {
+                logicTick();
+            }
+
+            @Override
+            public boolean render(double alpha) {
+                return renderFrame();
+            }
+        }, TetrisEngine.TICKS_PER_SECOND, Math.max(0, fpsCap));
+        setOpaque(true);
+        setPreferredSize(new Dimension(1280, 800));
+    }
+
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        gameLoop.start();
+    }
+
+    @Override
+    public void removeNotify() {
+        gameLoop.stop();
+        super.removeNotify();
+    }
+
+    // 整面墙由渲染线程画，EDT 收到重绘请求（窗口露出、缩放）时只要求下一帧全部重画
+    @Override
+    protected void paintComponent(Graphics g) {
+        fullRedraw = true;
+        gameLoop.requestRender();
+    }
+
+    public PerfStats getPerfStats() {
+        return perf;
+    }
+
+    // 上一秒平均每帧重画的棋盘数
+    public double getBoardsPerFrame() {
+        return boardsPerFrame;
+    }
+
+    public int getBoardCount() {
+        return seats.length;
+    }
+
+    // 逻辑线程：推进每一局，只给动过的对局发布快照
+    private void logicTick() {
+        perf.recordTick(System.nanoTime(), 1_000_000_000L / TetrisEngine.TICKS_PER_SECOND);
+        boolean any = false;
+        for (Seat seat : seats) {
+            boolean moved = false;
+            for (int i = 0; i < speed; i++) {
+                moved |= seat.advance();
+            }
+            if (moved) {
+                seat.buffer.publish(seat.engine, false, false, noInput);
+                any = true;
+            }
+        }
+        if (any) {
+            gameLoop.requestRender();
+        }
+    }
+
+    /**
+     * 渲染一帧，在渲染线程中执行：把变化增量画进显存画布，只把变化的矩形贴到屏幕。
+     * @return 始终为 false，没有新快照时渲染线程挂起
+     */
+    private boolean renderFrame() {
+        int width = getWidth();
+        int height = getHeight();
+        Graphics g = getGraphics();
+        if (g == null || width <= 0 || height <= 0) return false;
+        long start = System.nanoTime();
+        try {
+            boolean full = fullRedraw;
+            fullRedraw = false;
+            if (layout(width, height)) {
+                full = true;
+            }
+            do {
+                if (canvas == null || canvas.getWidth() != width || canvas.getHeight() != height) {
+                    canvas = createVolatileImage(width, height);
+                    if (canvas == null) return false;
+                    full = true;
+                } else {
+                    int status = canvas.validate(getGraphicsConfiguration());
+                    if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+                        canvas = createVolatileImage(width, height);
+                        if (canvas == null) return false;
+                    }
+                    if (status != VolatileImage.IMAGE_OK) full = true;
+                }
+                Graphics2D cg = canvas.createGraphics();
+                paintChanges(cg, full);
+                cg.dispose();
+                if (full) {
+                    g.drawImage(canvas, 0, 0, null);
+                } else {
+                    for (int i = 0; i < changedCount; i++) {
+                        Rectangle r = changed[i];
+                        g.drawImage(canvas, r.x, r.y, r.x + r.width, r.y + r.height,
+                                r.x, r.y, r.x + r.width, r.y + r.height, null);
+                    }
+                }
+                full = true;  // 画布内容丢失时下一轮整面重画
+            } while (canvas.contentsLost());
+            Toolkit.getDefaultToolkit().sync();
+        } finally {
+            g.dispose();
+        }
+        long now = System.nanoTime();
+        perf.recordFrame(now - start);
+        frames++;
+        if (perf.roll(now)) {
+            boardsPerFrame = frames == 0 ? 0 : (double) boardsDrawn / frames;
+            boardsDrawn = 0;
+            frames = 0;
+        }
+        return false;
+    }
+
+    /**
+     * 按组件尺寸选列数，使格子尽可能大，并重建背景和贴图。
+     * @return 尺寸是否变化（变化后要整面重画）
+     */
+    private boolean layout(int width, int height) {
+        if (width == layoutWidth && height == layoutHeight) return false;
+        layoutWidth = width;
+        layoutHeight = height;
+        int n = seats.length;
+        int bestColumns = 1;
+        int bestCell = 0;
+        for (int columns = 1; columns <= n; columns++) {
+            int rows = (n + columns - 1) / columns;
+            int cellW = ((width - GAP) / columns - GAP) / boardWidth;
+            int cellH = ((height - GAP) / rows - GAP - HEADER) / boardHeight;
+            int cell = Math.min(cellW, cellH);
+            if (cell > bestCell) {
+                bestCell = cell;
+                bestColumns = columns;
+            }
+        }
+        cellSize = Math.max(MIN_CELL, bestCell);
+        int rows = (n + bestColumns - 1) / bestColumns;
+        int slotWidth = boardWidth * cellSize + GAP;
+        int slotHeight = HEADER + boardHeight * cellSize + GAP;
+        int offsetX = Math.max(GAP, (width - bestColumns * slotWidth + GAP) / 2);
+        int offsetY = Math.max(GAP, (height - rows * slotHeight + GAP) / 2);
+        for (int i = 0; i < n; i++) {
+            seats[i].x = offsetX + (i % bestColumns) * slotWidth;
+            seats[i].y = offsetY + (i / bestColumns) * slotHeight + HEADER;
+        }
+        renderCache.invalidate();
+        renderCache.validate(getGraphicsConfiguration(), width, height, cellSize);
+        return true;
+    }
+
+    // 背景图：墙面、每块棋盘的底色、边框和网格线
+    private void paintBackground(Graphics g, int width, int height, int cell) {
+        g.setColor(WALL_BACKGROUND);
+        g.fillRect(0, 0, width, height);
+        int w = boardWidth * cell;
+        int h = boardHeight * cell;
+        for (Seat seat : seats) {
+            g.setColor(BOARD_BACKGROUND);
+            g.fillRect(seat.x, seat.y, w, h);
+            if (cell >= GRID_MIN_CELL) {
+                g.setColor(GRID_LINE);
+                for (int i = 1; i < boardHeight; i++) {
+                    g.drawLine(seat.x, seat.y + i * cell, seat.x + w - 1, seat.y + i * cell);
+                }
+                for (int j = 1; j < boardWidth; j++) {
+                    g.drawLine(seat.x + j * cell, seat.y, seat.x + j * cell, seat.y + h - 1);
+                }
+            }
+            g.setColor(BOARD_BORDER);
+            g.drawRect(seat.x - 1, seat.y - 1, w + 1, h + 1);
+        }
+    }
+
+    /**
+     * 把各局的新快照画进 g，记下变化的矩形；full 时先贴整张背景再画全部棋盘。
+     */
+    private void paintChanges(Graphics g, boolean full) {
+        changedCount = 0;
+        if (full) {
+            g.drawImage(renderCache.getBackground(), 0, 0, null);
+        }
+        for (Seat seat : seats) {
+            RenderSnapshot s = seat.buffer.acquire();
+            if (full || s.getSeq() != seat.drawnSeq) {
+                paintSeat(g, seat, s, full);
+                boardsDrawn++;
+            }
+        }
+    }
+
+    private void paintSeat(Graphics g, Seat seat, RenderSnapshot s, boolean full) {
+        int cell = cellSize;
+        boolean[] rows = rowMask;
+        Arrays.fill(rows, false);
+        boolean all = full || seat.drawnSeq < 0 || s.isGameOver() != seat.drawnGameOver;
+        if (all) {
+            Arrays.fill(rows, true);
+        } else {
+            markRows(s.getDirtyMinRow(), s.getDirtyMaxRow());
+            markRows(seat.pieceTop, seat.pieceBottom);
+        }
+        Block block = s.getCurrentBlock();
+        int pieceTop = 1;
+        int pieceBottom = 0;
+        if (block != null) {
+            pieceTop = block.y + block.minY();
+            pieceBottom = block.y + block.maxY();
+            markRows(pieceTop, pieceBottom);
+        }
+
+        // 按连续的行段恢复背景再画格子
+        Image background = renderCache.getBackground();
+        int minRow = boardHeight;
+        int maxRow = -1;
+        int w = boardWidth * cell;
+        for (int y = 0; y < boardHeight; ) {
+            if (!rows[y]) {
+                y++;
+                continue;
+            }
+            int end = y;
+            while (end + 1 < boardHeight && rows[end + 1]) end++;
+            int top = seat.y + y * cell;
+            int bottom = seat.y + (end + 1) * cell;
+            g.drawImage(background, seat.x, top, seat.x + w, bottom, seat.x, top, seat.x + w, bottom, null);
+            for (int row = Math.max(y, s.getTop()); row <= end; row++) {
+                for (int col = 0; col < boardWidth; col++) {
+                    int color = s.getCell(col, row);
+                    if (color != 0) {
+                        renderCache.drawCell(g, color, seat.x + col * cell, seat.y + row * cell);
+                    }
+                }
+            }
+            if (block != null) {
+                for (int i = 0; i < 4; i++) {
+                    int py = block.y + block.cellY(i);
+                    if (py >= y && py <= end) {
+                        renderCache.drawCell(g, block.shape, seat.x + (block.x + block.cellX(i)) * cell,
+                                seat.y + py * cell);
+                    }
+                }
+            }
+            minRow = Math.min(minRow, y);
+            maxRow = end;
+            y = end + 1;
+        }
+        if (s.isGameOver()) {
+            // 结束状态切换时整块棋盘都重画过，遮罩盖住整块棋盘
+            g.setColor(OVERLAY);
+            g.fillRect(seat.x, seat.y, w, boardHeight * cell);
+            g.setColor(OVERLAY_TEXT);
+            g.setFont(headerFont);
+            FontMetrics fm = g.getFontMetrics();
+            String text = "游戏结束";
+            g.drawString(text, seat.x + (w - fm.stringWidth(text)) / 2, seat.y + boardHeight * cell / 2);
+        }
+        if (maxRow >= 0) {
+            changed[changedCount++].setBounds(seat.x, seat.y + minRow * cell, w, (maxRow - minRow + 1) * cell);
+        }
+
+        if (full || s.getScore() != seat.drawnScore) {
+            int top = seat.y - HEADER;
+            int bottom = seat.y - 1;
+            g.drawImage(background, seat.x - 1, top, seat.x + w + 1, bottom,
+                    seat.x - 1, top, seat.x + w + 1, bottom, null);
+            // 小棋盘上文字可能比棋盘宽，裁到本局的标题栏里
+            g.setClip(seat.x - 1, top, w + 2, HEADER - 1);
+            g.setColor(HEADER_TEXT);
+            g.setFont(headerFont);
+            g.drawString("#" + seat.number + "  " + s.getScore() + " 分", seat.x, bottom - 3);
+            g.setClip(null);
+            changed[changedCount++].setBounds(seat.x - 1, top, w + 2, HEADER - 1);
+            seat.drawnScore = s.getScore();
+        }
+        seat.drawnSeq = s.getSeq();
+        seat.drawnGameOver = s.isGameOver();
+        seat.pieceTop = pieceTop;
+        seat.pieceBottom = pieceBottom;
+    }
+
+    private void markRows(int from, int to) {
+        for (int y = Math.max(0, from); y <= Math.min(boardHeight - 1, to); y++) {
+            rowMask[y] = true;
+        }
+    }
+
+    /**
+     * 一局机器人对局。出块时由策略选定落点，之后每步执行一个操作：先转到目标朝向，
+     * 再平移到目标列，然后逐格下移，到位后固定。操作走不通（被挡住）时直接放到落点。
+     */
+    private static final class Seat {
+        final int number;
+        final TetrisEngine engine;
+        final PlacementPolicy policy;
+        final SplitMix64 seeds;
+        final SnapshotBuffer buffer;
+        final Placement target = new Placement();
+        boolean planned;
+        int idleTicks;
+
+        // 以下只由渲染线程访问
+        int x;
+        int y;
+        long drawnSeq = -1;
+        int drawnScore = -1;
+        boolean drawnGameOver;
+        int pieceTop = 1;
+        int pieceBottom = 0;
+
+        Seat(int number, TetrisEngine engine, PlacementPolicy policy, SplitMix64 seeds) {
+            this.number = number;
+            this.engine = engine;
+            this.policy = policy;
+            this.seeds = seeds;
+            Board board = engine.getBoard();
+            this.buffer = new SnapshotBuffer(board.getWidth(), board.getHeight());
+            engine.start(seeds.nextLong());
+        }
+
+        // 推进一个操作，返回棋面是否有变化
+        boolean advance() {
+            if (engine.isGameOver()) {
+                if (++idleTicks < RESTART_TICKS) return false;
+                idleTicks = 0;
+                planned = false;
+                engine.start(seeds.nextLong());
+                return true;
+            }
+            Block block = engine.getCurrentBlock();
+            if (!planned) {
+                if (!policy.choose(engine, target)) {
+                    engine.hardDrop();
+                    return true;
+                }
+                planned = true;
+            }
+            boolean moved;
+            if (block.rotation != target.rotation) {
+                moved = engine.rotate();
+            } else if (block.x < target.x) {
+                moved = engine.moveRight();
+            } else if (block.x > target.x) {
+                moved = engine.moveLeft();
+            } else if (block.y < target.y) {
+                moved = engine.softDrop();
+            } else {
+                moved = false;
+            }
+            if (!moved) {
+                if (!engine.place(target)) {
+                    engine.hardDrop();
+                }
+                planned = false;
+            }
+            return true;
+        }
+    }
+
+    public static void main(String[] args) {
+        System.setProperty("file.encoding", "UTF-8");
+        int boards = 36;
+        String policy = "search";
+        int speed = 1;
+        int fps = 60;
+        int width = TetrisEngine.BOARD_WIDTH;
+        int height = TetrisEngine.BOARD_HEIGHT;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--boards":
+                    boards = Integer.parseInt(args[++i]);
+                    break;
+                case "--policy":
+                    policy = args[++i];
+                    break;
+                case "--speed":
+                    speed = Integer.parseInt(args[++i]);
+                    break;
+                case "--fps":
+                    fps = Integer.parseInt(args[++i]);
+                    break;
+                case "--width":
+                    width = Integer.parseInt(args[++i]);
+                    break;
+                case "--height":
+                    height = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    throw new IllegalArgumentException("未知参数: " + args[i]);
+            }
+        }
+        SpectatorWall wall = new SpectatorWall(boards, policy, speed, fps, width, height);
+        SwingUtilities.invokeLater(() -> {
+            JFrame frame = new JFrame("俄罗斯方块 - 观战墙");
+            frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+            JLabel status = new JLabel(" ");
+            status.setForeground(Color.WHITE);
+            status.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 13));
+            status.setBorder(BorderFactory.createEmptyBorder(4, 8, 4, 8));
+            frame.getContentPane().setBackground(WALL_BACKGROUND);
+            frame.add(wall, BorderLayout.CENTER);
+            frame.add(status, BorderLayout.SOUTH);
+            // 每秒刷新一次统计，数据来自渲染线程上一秒的窗口
+            new Timer(1000, e -> {
+                PerfStats stats = wall.getPerfStats();
+                status.setText(String.format("%d 局 | FPS %.0f | 帧时间 p99 %.2f ms | 每帧重画 %.1f 块棋盘 | 节拍抖动 p99 %.2f ms",
+                        wall.getBoardCount(), stats.getFps(), stats.getFrameTimeP99(),
+                        wall.getBoardsPerFrame(), stats.getTickJitterP99()));
+            }).start();
+            frame.pack();
+            frame.setLocationRelativeTo(null);
+            frame.setVisible(true);
+        });
+    }
+}
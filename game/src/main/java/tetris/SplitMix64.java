@@ -0,0 +1,34 @@
+package tetris;
+
+/**
+ * 极小的可播种随机数发生器（SplitMix64）。状态只有一个 long，
+ * 不像 java.util.Random 那样需要 CAS，也便于存档和复现。
+ * 不同种子得到的序列彼此独立，适合每个并行工作线程各持一个。
+ */
+public final class SplitMix64 {
+    private long state;
+
+    public SplitMix64(long seed) {
+        this.state = seed;
+    }
+
+    public long nextLong() {
+        long z = (state += 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // 返回 [0, bound) 内的整数，用乘法映射代替取模
+    public int nextInt(int bound) {
+        return (int) (((nextLong() >>> 32) * bound) >>> 32);
+    }
+
+    public long getState() {
+        return state;
+    }
+
+    public void setState(long state) {
+        this.state = state;
+    }
+}
@@ -0,0 +1,562 @@
+package tetris;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 不依赖 Swing/AWT 的游戏核心逻辑：棋盘、当前块、下一块、得分与下落速度。
+ * 实例不是线程安全的：TetrisPanel 只在逻辑线程上驱动它，绘制读的是渲染快照；
+ * 机器人和回归测试可以直接驱动它，无需创建窗口。
+ */
+public class TetrisEngine implements GameView {
+    public static final int BOARD_WIDTH = 10;          // 默认棋盘尺寸
+    public static final int BOARD_HEIGHT = 20;
+    public static final int SPAWN_Y = 0;               // 新方块出现在顶部正中
+    public static final int TICKS_PER_SECOND = 60;     // 固定步长循环的逻辑频率
+    public static final double MAX_GRAVITY = 20;       // 每个逻辑步最多下落 20 格 (20G)
+    private static final int MIN_DROP_INTERVAL = 50;  // 最快速度
+    private static final int DEFAULT_LOOKAHEAD = 1;
+    public static final int GARBAGE_COLOR = Block.SHAPE_COUNT + 1;  // 对战中垃圾行的颜色编号
+    // 对战时一次消掉 n 行送给对手的垃圾行数
+    private static final int[] ATTACK = {0, 0, 1, 2, 4};
+
+    private final Board board;
+    private PieceQueue pieceQueue;
+    private final Block currentBlock = new Block(0);  // 活动方块游标，整局复用
+    private final Block nextBlock = new Block(0);     // 预览用，只读队首形状
+    private long seed;
+    private boolean hasCurrentBlock = false;
+    private int score;
+    private int linesCleared;
+    private int piecesPlaced;
+    private int attack;  // 还没被 takeAttack() 取走的垃圾行数
+    private int dropInterval = Difficulty.EASY.getInitialSpeed();
+    private boolean isGameOver = false;
+    private Difficulty difficulty = Difficulty.EASY;
+    private RotationSystem rotationSystem = RotationSystem.SRS;
+    private double gravityOverride = 0;  // 每个逻辑步下落的格数，0 表示按下落间隔换算
+    private double gravityProgress = 0;  // 当前方块累计的不足一格的下落量
+
+    // 回放录制：frame 是本局已推进的重力步数，事件按它打时间戳
+    private ReplayRecorder recorder;
+    private long frame;
+    private int frameKind = ReplayRecorder.FRAME_NONE;
+
+    // 训练数据导出：每固定一个方块记一条样本，null 表示不导出
+    private TrainingDataWriter.Session exporter;
+
+    // 自上次 clearDirtyRows() 以来棋盘上发生变化的行范围，供界面做局部重绘
+    private int dirtyMinRow = 0;
+    private int dirtyMaxRow;
+
+    public TetrisEngine() {
+        this(PieceGenerator.uniform(System.nanoTime()), DEFAULT_LOOKAHEAD);
+    }
+
+    public TetrisEngine(PieceGenerator generator, int lookahead) {
+        this(generator, lookahead, BOARD_WIDTH, BOARD_HEIGHT);
+    }
+
+    // 自定义棋盘尺寸，用于马拉松/超大棋盘玩法，尺寸上限见 Board
+    public TetrisEngine(PieceGenerator generator, int lookahead, int width, int height) {
+        board = new Board(width, height);
+        pieceQueue = new PieceQueue(generator, lookahead);
+        dirtyMaxRow = height - 1;
+    }
+
+    // 宽为 width 的棋盘上新方块出现的列
+    public static int spawnX(int width) {
+        return width / 2;
+    }
+
+    // 更换方块生成器，下一次 start() 起生效；回放时用来重建录制时的序列
+    public void setGenerator(PieceGenerator generator, int lookahead) {
+        pieceQueue = new PieceQueue(generator, lookahead);
+    }
+
+    public PieceGenerator getGenerator() {
+        return pieceQueue.getGenerator();
+    }
+
+    // 设置后每局都会被录制，传 null 停止录制
+    public void setRecorder(ReplayRecorder recorder) {
+        this.recorder = recorder;
+    }
+
+    public ReplayRecorder getRecorder() {
+        return recorder;
+    }
+
+    // 设置训练数据导出会话，下一次 start() 起按新的一局编号
+    public void setExporter(TrainingDataWriter.Session exporter) {
+        this.exporter = exporter;
+    }
+
+    // 用随机种子开始新游戏
+    public void start() {
+        start(new SplitMix64(System.nanoTime()).nextLong());
+    }
+
+    // 用指定种子开始新游戏，同样的种子和操作序列总会得到同样的对局
+    public void start(long seed) {
+        if (recorder != null && recorder.isRecording()) {
+            // 中途重开的对局也保留录像
+            recorder.finish(this);
+        }
+        this.seed = seed;
+        pieceQueue.reset(seed);
+        board.clear();
+        markDirtyRows(0, board.getHeight() - 1);
+        score = 0;
+        linesCleared = 0;
+        piecesPlaced = 0;
+        attack = 0;
+        dropInterval = difficulty.getInitialSpeed();
+        isGameOver = false;
+        frame = 0;
+        frameKind = ReplayRecorder.FRAME_NONE;
+        if (recorder != null) {
+            recorder.begin(this);
+        }
+        if (exporter != null) {
+            exporter.beginGame();
+        }
+        newBlock();
+    }
+
+    /**
+     * 存档：写出恢复一局所需的全部状态，棋盘只写堆叠顶部以下的行。
+     * 棋盘尺寸、生成器类型和预览数由调用方写在前面，恢复时据此创建引擎。
+     */
+    void writeState(ByteBuffer out) {
+        out.putLong(seed);
+        out.putLong(frame);
+        out.put((byte) frameKind);
+        out.put((byte) difficulty.ordinal());
+        out.put((byte) rotationSystem.ordinal());
+        out.putInt(dropInterval);
+        out.putDouble(gravityOverride);
+        out.putDouble(gravityProgress);
+        out.putInt(score);
+        out.putInt(linesCleared);
+        out.putInt(piecesPlaced);
+        out.putInt(attack);
+        out.put((byte) ((hasCurrentBlock ? 1 : 0) | (isGameOver ? 2 : 0)));
+        out.put((byte) currentBlock.shape);
+        out.put((byte) currentBlock.rotation);
+        out.putInt(currentBlock.x);
+        out.putInt(currentBlock.y);
+        pieceQueue.writeState(out);
+        int top = board.getTop();
+        out.putShort((short) top);
+        for (int y = top; y < board.getHeight(); y++) {
+            for (int x = 0; x < board.getWidth(); x++) {
+                out.put((byte) board.getColor(x, y));
+            }
+        }
+    }
+
+    // writeState() 最多写出的字节数
+    int maxStateSize() {
+        return 96 + pieceQueue.maxStateSize() + board.getWidth() * board.getHeight();
+    }
+
+    /**
+     * 从存档恢复，覆盖当前对局。恢复的对局中途开始，不再录制回放。
+     * 数据不合法时抛出 IllegalStateException，此时引擎状态不确定，应当丢弃。
+     * version 是存档格式版本，1 版没有旋转系统字段，按不踢墙恢复。
+     */
+    void readState(ByteBuffer in, int version) {
+        if (recorder != null && recorder.isRecording()) {
+            recorder.finish(this);
+        }
+        seed = in.getLong();
+        frame = in.getLong();
+        frameKind = in.get();
+        difficulty = Difficulty.values()[in.get()];
+        rotationSystem = version >= 2 ? RotationSystem.values()[in.get()] : RotationSystem.NONE;
+        dropInterval = in.getInt();
+        gravityOverride = in.getDouble();
+        gravityProgress = in.getDouble();
+        score = in.getInt();
+        linesCleared = in.getInt();
+        piecesPlaced = in.getInt();
+        attack = in.getInt();
+        int flags = in.get();
+        hasCurrentBlock = (flags & 1) != 0;
+        isGameOver = (flags & 2) != 0;
+        int shape = in.get();
+        if (shape < 0 || shape >= Block.SHAPE_COUNT) {
+            throw new IllegalStateException("存档损坏: 形状 " + shape);
+        }
+        currentBlock.reset(shape);
+        currentBlock.rotation = in.get() & (Block.ROTATIONS - 1);
+        currentBlock.x = in.getInt();
+        currentBlock.y = in.getInt();
+        pieceQueue.readState(in);
+        nextBlock.reset(pieceQueue.peek(0));
+        board.clear();
+        int top = in.getShort();
+        if (top < 0 || top > board.getHeight()) {
+            throw new IllegalStateException("存档损坏: 堆叠顶部 " + top);
+        }
+        for (int y = top; y < board.getHeight(); y++) {
+            for (int x = 0; x < board.getWidth(); x++) {
+                int color = in.get();
+                if (color != 0) board.set(x, y, color);
+            }
+        }
+        markDirtyRows(0, board.getHeight() - 1);
+    }
+
+    private void newBlock() {
+        currentBlock.reset(pieceQueue.poll());
+        gravityProgress = 0;
+        hasCurrentBlock = true;
+        nextBlock.reset(pieceQueue.peek(0));
+        currentBlock.x = spawnX(board.getWidth());
+        currentBlock.y = SPAWN_Y;
+        if (!canMove(currentBlock, 0, 0)) {
+            endGame();
+        }
+    }
+
+    private void endGame() {
+        isGameOver = true;
+        PerfEvents.gameOver(seed, score, linesCleared, piecesPlaced, frame);
+        if (recorder != null) {
+            recorder.finish(this);
+        }
+    }
+
+    public boolean canMove(Block block, int dx, int dy) {
+        return !board.collides(block, dx, dy);
+    }
+
+    private void mergeBlock() {
+        if (exporter != null) {
+            exporter.beginSample(board, currentBlock, pieceQueue.getLookahead() > 0 ? pieceQueue.peek(0) : -1,
+                    score, linesCleared);
+        }
+        board.lock(currentBlock.shape, currentBlock.rotation, currentBlock.x, currentBlock.y,
+                currentBlock.shape + 1);
+        piecesPlaced++;
+        int top = currentBlock.y + currentBlock.minY();
+        int bottom = currentBlock.y + currentBlock.maxY();
+        markDirtyRows(top, bottom);
+        checkLines(top, bottom);
+        if (exporter != null) {
+            exporter.endSample(score, linesCleared);
+        }
+        newBlock();
+    }
+
+    // 只有刚固定的方块覆盖的行可能变满
+    private void checkLines(int top, int bottom) {
+        int stackTop = board.getTop();
+        int cleared = board.clearFullRows(top, bottom);
+        score += cleared * 100;
+        linesCleared += cleared;
+        attack += ATTACK[Math.min(cleared, ATTACK.length - 1)];
+        if (cleared > 0) {
+            // 消行会让上方直到堆叠顶部的行下移
+            markDirtyRows(stackTop, bottom);
+        }
+
+        // 根据当前难度调整下落速度
+        if (cleared > 0 && dropInterval > MIN_DROP_INTERVAL) {
+            dropInterval -= difficulty.getSpeedReduction();
+        }
+        if (cleared > 0) {
+            PerfEvents.lineClear(cleared, score, linesCleared, dropInterval);
+        }
+    }
+
+    private void markDirtyRows(int from, int to) {
+        dirtyMinRow = Math.min(dirtyMinRow, Math.max(0, from));
+        dirtyMaxRow = Math.max(dirtyMaxRow, Math.min(board.getHeight() - 1, to));
+    }
+
+    // 没有变化时 getDirtyMinRow() > getDirtyMaxRow()
+    public int getDirtyMinRow() {
+        return dirtyMinRow;
+    }
+
+    public int getDirtyMaxRow() {
+        return dirtyMaxRow;
+    }
+
+    public void clearDirtyRows() {
+        dirtyMinRow = Integer.MAX_VALUE;
+        dirtyMaxRow = -1;
+    }
+
+    // 游戏尚未开始或已经结束时忽略一切操作
+    private boolean canAct() {
+        return !isGameOver && hasCurrentBlock;
+    }
+
+    /**
+     * 重力下落一格，落不下去时固定方块并生成下一块。
+     * @return 方块是否在这一步被固定
+     */
+    public boolean step() {
+        if (!canAct()) return false;
+        advanceFrame(ReplayRecorder.FRAME_STEP);
+        return fall();
+    }
+
+    private boolean fall() {
+        if (canMove(currentBlock, 0, 1)) {
+            currentBlock.y++;
+            return false;
+        }
+        mergeBlock();
+        return true;
+    }
+
+    /**
+     * 固定步长模式下推进一个逻辑步：累加分数格的重力，满一格就下落一格，
+     * 重力大于 1G 时一步可以下落多格，落到底时固定方块。
+     * @return 方块是否在这一步被固定
+     */
+    public boolean tick() {
+        if (!canAct()) return false;
+        advanceFrame(ReplayRecorder.FRAME_TICK);
+        gravityProgress += getGravity();
+        while (gravityProgress >= 1) {
+            gravityProgress -= 1;
+            if (fall()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 只推进一帧，不施加重力。自动游戏直接放置方块、不走重力步，每放一块推进一帧，
+     * 录下的放置事件才分布在不同的帧上，回放时按原来的节奏一块一块地出现。
+     */
+    public void skipFrame() {
+        if (!canAct()) return;
+        advanceFrame(ReplayRecorder.FRAME_IDLE);
+    }
+
+    // 重力步计数；驱动方式（step/tick/skipFrame）变化时记一个事件，回放按同样的方式推进
+    private void advanceFrame(int kind) {
+        if (kind != frameKind) {
+            frameKind = kind;
+            if (recorder != null) recorder.recordFrameKind(frame, kind);
+        }
+        frame++;
+    }
+
+    private void record(int action) {
+        if (recorder != null) recorder.record(frame, action);
+    }
+
+    // 本局已推进的重力步数
+    public long getFrame() {
+        return frame;
+    }
+
+    public int getFrameKind() {
+        return frameKind;
+    }
+
+    // 每个逻辑步下落的格数
+    public double getGravity() {
+        if (gravityOverride > 0) {
+            return gravityOverride;
+        }
+        return Math.min(MAX_GRAVITY, 1000.0 / (dropInterval * TICKS_PER_SECOND));
+    }
+
+    // 固定重力，覆盖按下落间隔换算的值；传 0 恢复默认
+    public void setGravity(double cellsPerTick) {
+        gravityOverride = Math.min(MAX_GRAVITY, Math.max(0, cellsPerTick));
+        if (recorder != null) recorder.recordGravity(frame, gravityOverride);
+    }
+
+    public double getGravityOverride() {
+        return gravityOverride;
+    }
+
+    // 当前方块已累计但还不足一格的下落量，用于渲染插值
+    public double getGravityProgress() {
+        return gravityProgress;
+    }
+
+    public boolean moveLeft() {
+        if (!canAct() || !canMove(currentBlock, -1, 0)) return false;
+        currentBlock.x--;
+        record(ReplayRecorder.LEFT);
+        return true;
+    }
+
+    public boolean moveRight() {
+        if (!canAct() || !canMove(currentBlock, 1, 0)) return false;
+        currentBlock.x++;
+        record(ReplayRecorder.RIGHT);
+        return true;
+    }
+
+    // 软降：只下移一格，不会固定方块
+    public boolean softDrop() {
+        if (!canAct() || !canMove(currentBlock, 0, 1)) return false;
+        currentBlock.y++;
+        record(ReplayRecorder.SOFT_DROP);
+        return true;
+    }
+
+    // 顺时针旋转，按当前旋转系统的踢墙表尝试偏移
+    public boolean rotate() {
+        if (!canAct() || !rotationSystem.rotate(board, currentBlock, RotationSystem.CLOCKWISE)) return false;
+        record(ReplayRecorder.ROTATE);
+        return true;
+    }
+
+    public boolean rotateCounterClockwise() {
+        if (!canAct() || !rotationSystem.rotate(board, currentBlock, RotationSystem.COUNTER_CLOCKWISE)) {
+            return false;
+        }
+        record(ReplayRecorder.ROTATE_CCW);
+        return true;
+    }
+
+    /**
+     * 对战中从底部插入 lines 行垃圾行，hole 列留空。活动方块与上移的堆叠重叠时被向上推开；
+     * 有格子被挤出棋盘顶部时游戏结束。
+     */
+    public void addGarbage(int lines, int hole) {
+        if (!canAct() || lines <= 0) return;
+        if (hole < 0 || hole >= board.getWidth()) {
+            throw new IllegalArgumentException("垃圾行缺口超出棋盘: " + hole);
+        }
+        if (recorder != null) recorder.recordGarbage(frame, lines, hole);
+        boolean overflow = board.insertGarbage(lines, hole, GARBAGE_COLOR);
+        markDirtyRows(0, board.getHeight() - 1);
+        while (!canMove(currentBlock, 0, 0)) {
+            currentBlock.y--;
+        }
+        if (overflow) {
+            endGame();
+        }
+    }
+
+    /**
+     * 取走自上次调用以来消行产生的攻击（应送给对手的垃圾行数）并清零。
+     */
+    public int takeAttack() {
+        int lines = attack;
+        attack = 0;
+        return lines;
+    }
+
+    public void hardDrop() {
+        if (!canAct()) return;
+        record(ReplayRecorder.HARD_DROP);
+        dropAndLock();
+    }
+
+    private void dropAndLock() {
+        currentBlock.y += board.dropDistance(currentBlock.shape, currentBlock.rotation,
+                currentBlock.x, currentBlock.y);
+        mergeBlock();
+    }
+
+    /**
+     * 把当前方块直接放到 (rotation, x, y) 后硬降并固定，供自动游戏使用。
+     * @return 目标位置不合法时返回 false，此时状态不变
+     */
+    public boolean place(int rotation, int x, int y) {
+        if (!canAct() || board.collides(currentBlock.shape, rotation, x, y)) return false;
+        currentBlock.rotation = rotation;
+        currentBlock.x = x;
+        currentBlock.y = y;
+        if (recorder != null) recorder.recordPlace(frame, rotation, x, y);
+        dropAndLock();
+        return true;
+    }
+
+    public boolean place(Placement placement) {
+        return place(placement.rotation, placement.x, placement.y);
+    }
+
+    // 切换难度时同时重置下落速度
+    public void setDifficulty(Difficulty difficulty) {
+        this.difficulty = difficulty;
+        this.dropInterval = difficulty.getInitialSpeed();
+        if (recorder != null) recorder.recordDifficulty(frame, difficulty);
+    }
+
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    // 对局中途更换不会被录进回放，应在 start() 之前设置
+    public void setRotationSystem(RotationSystem rotationSystem) {
+        this.rotationSystem = rotationSystem;
+    }
+
+    public RotationSystem getRotationSystem() {
+        return rotationSystem;
+    }
+
+    // 返回格子里的方块颜色编号，0 表示空
+    public int getCell(int x, int y) {
+        return board.getColor(x, y);
+    }
+
+    public Board getBoard() {
+        return board;
+    }
+
+    // 游戏开始前返回 null；返回的游标会被引擎原地修改
+    public Block getCurrentBlock() {
+        return hasCurrentBlock ? currentBlock : null;
+    }
+
+    // 当前方块硬降后的落点 y，用于绘制幽灵方块；没有活动方块时返回当前 y
+    public int getGhostY() {
+        if (!canAct()) return currentBlock.y;
+        return currentBlock.y + board.dropDistance(currentBlock.shape, currentBlock.rotation,
+                currentBlock.x, currentBlock.y);
+    }
+
+    public Block getNextBlock() {
+        return hasCurrentBlock ? nextBlock : null;
+    }
+
+    // 查看第 index 个预览形状，index 小于构造时指定的预览数量
+    public int getPreviewShape(int index) {
+        return pieceQueue.peek(index);
+    }
+
+    public int getPreviewCount() {
+        return pieceQueue.getLookahead();
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public int getLinesCleared() {
+        return linesCleared;
+    }
+
+    public int getPiecesPlaced() {
+        return piecesPlaced;
+    }
+
+    public int getDropInterval() {
+        return dropInterval;
+    }
+
+    public boolean isGameOver() {
+        return isGameOver;
+    }
+}
@@ -0,0 +1,386 @@
+package tetris;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+public class TetrisGame extends JFrame {
+    private TetrisPanel gamePanel;
+    private JButton gameButton;  // 将按钮声明为成员变量
+    private final Leaderboard leaderboard;
+    private JTextArea leaderboardText;
+    private static final int SIDEBAR_RANKS = 3;  // 侧边栏每个难度显示的名次数
+
+    public TetrisGame() {
+        this(-1);
+    }
+
+    /**
+     * @param loopFps 大于等于 0 时使用固定步长游戏循环并主动渲染，数值为帧率上限（0 表示不限）；
+     *                小于 0 时按下落间隔推进，由 EDT 被动重绘
+     */
+    public TetrisGame(int loopFps) {
+        this(loopFps, new TetrisEngine());
+    }
+
+    /**
+     * @param engine 要显示的引擎，自定义棋盘尺寸或回放时由调用方创建
+     */
+    public TetrisGame(int loopFps, TetrisEngine engine) {
+        this(loopFps, engine, null);
+    }
+
+    /**
+     * @param leaderboard 记分用的排行榜，null 表示不记也不显示
+     */
+    public TetrisGame(int loopFps, TetrisEngine engine, Leaderboard leaderboard) {
+        this.leaderboard = leaderboard;
+        setTitle("俄罗斯方块");
+        // 关闭窗口前先存档，最多等写盘 2 秒
+        setDefaultCloseOperation(JFrame.DO_NOTHING_ON_CLOSE);
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                try {
+                    gamePanel.saveGame().get(2, TimeUnit.SECONDS);
+                } catch (InterruptedException | ExecutionException | TimeoutException ex) {
+                    System.err.println("退出前存档失败: " + ex);
+                }
+                if (leaderboard != null) {
+                    try {
+                        leaderboard.close(2000);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                dispose();
+                System.exit(0);
+            }
+        });
+        setLayout(new BorderLayout(10, 10));  // 添加组件间距
+        getContentPane().setBackground(new Color(40, 44, 52));  // 设置深色背景
+        
+        // 创建游戏面板并添加边框
+        gamePanel = new TetrisPanel(engine);
+        gamePanel.setLeaderboard(leaderboard);
+        if (loopFps >= 0) {
+            gamePanel.enableGameLoop(loopFps);
+        }
+        gamePanel.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createLineBorder(new Color(100, 100, 100), 3),
+            BorderFactory.createEmptyBorder(5, 5, 5, 5)
+        ));
+        gamePanel.setGameEndListener(new TetrisPanel.GameEndListener() {
+            @Override
+            public void onGameEnd(int finalScore) {
+                // 游戏结束时重置按钮
+                gameButton.setText("开始游戏");
+                gameButton.setBackground(new Color(50, 205, 50));  // 绿色
+                refreshLeaderboard();
+            }
+
+            @Override
+            public void onReplayEnd(int finalScore, String mismatch) {
+                onGameEnd(finalScore);
+                if (mismatch == null) {
+                    JOptionPane.showMessageDialog(TetrisGame.this, "回放校验通过", "回放",
+                            JOptionPane.INFORMATION_MESSAGE);
+                } else {
+                    JOptionPane.showMessageDialog(TetrisGame.this, "回放校验不一致: " + mismatch, "回放",
+                            JOptionPane.WARNING_MESSAGE);
+                }
+            }
+        });
+        
+        // 创建一个包含游戏面板的容器，添加标题
+        JPanel gamePanelContainer = new JPanel(new BorderLayout());
+        gamePanelContainer.setBackground(new Color(50, 54, 62));
+        gamePanelContainer.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        
+        JLabel gameTitle = new JLabel("俄罗斯方块游戏", JLabel.CENTER);
+        gameTitle.setFont(new Font("微软雅黑", Font.BOLD, 22));
+        gameTitle.setForeground(Color.WHITE);
+        gameTitle.setBorder(BorderFactory.createEmptyBorder(0, 0, 10, 0));
+        
+        gamePanelContainer.add(gameTitle, BorderLayout.NORTH);
+        gamePanelContainer.add(gamePanel, BorderLayout.CENTER);
+        
+        add(gamePanelContainer, BorderLayout.CENTER);
+
+        // 创建侧边栏面板
+        JPanel sidePanel = new JPanel();
+        sidePanel.setLayout(new BoxLayout(sidePanel, BoxLayout.Y_AXIS));
+        sidePanel.setBackground(new Color(60, 63, 65));
+        sidePanel.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createLineBorder(new Color(100, 100, 100), 2),
+            BorderFactory.createEmptyBorder(15, 15, 15, 15)
+        ));
+        sidePanel.setPreferredSize(new Dimension(250, 0));  // 增加侧边栏宽度
+
+        // 使用支持中文的字体，增大字体大小
+        Font chineseFont = new Font("微软雅黑", Font.BOLD, 24);  // 增大标题字体
+        Font chinesePlainFont = new Font("微软雅黑", Font.PLAIN, 18);  // 增大说明文字字体
+        Font buttonFont = new Font("微软雅黑", Font.BOLD, 20);  // 为按钮创建专用字体
+
+        JLabel title = new JLabel("游戏说明");
+        title.setFont(chineseFont);
+        title.setForeground(Color.WHITE);
+        title.setAlignmentX(Component.CENTER_ALIGNMENT);
+
+        // 创建带有背景色的游戏说明面板
+        JPanel helpPanel = new JPanel();
+        helpPanel.setLayout(new BorderLayout());
+        helpPanel.setBackground(new Color(70, 73, 75));
+        helpPanel.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createLineBorder(new Color(100, 100, 100), 1),
+            BorderFactory.createEmptyBorder(10, 10, 10, 10)
+        ));
+        
+        JTextArea helpText = new JTextArea(
+                "← →: 移动\n" +
+                "↑ / X: 顺时针旋转\n" +
+                "Z: 逆时针旋转\n" +
+                "↓: 快速下落\n" +
+                "空格: 硬降\n" +
+                "P: 暂停/继续\n" +
+                "R: 游戏结束后重新开始\n" +
+                "G: 显示/隐藏落点\n" +
+                "F3: 性能浮层"
+        );
+        helpText.setEditable(false);
+        helpText.setBackground(new Color(70, 73, 75));
+        helpText.setForeground(Color.WHITE);
+        helpText.setFont(chinesePlainFont);
+        helpPanel.add(helpText, BorderLayout.CENTER);
+
+        // 创建更美观的游戏控制按钮
+        gameButton = new JButton("开始游戏");
+        gameButton.setFont(buttonFont);
+        gameButton.setAlignmentX(Component.CENTER_ALIGNMENT);
+        gameButton.setPreferredSize(new Dimension(180, 50));  // 设置按钮大小
+        gameButton.setMaximumSize(new Dimension(180, 50));    // 确保按钮不会被拉伸
+        gameButton.setBackground(new Color(50, 205, 50));     // 设置绿色背景
+        gameButton.setForeground(Color.WHITE);                // 设置白色文字
+        gameButton.setFocusPainted(false);                    // 移除焦点边框
+        gameButton.setBorderPainted(true);                    // 保留边框
+        gameButton.setBorder(BorderFactory.createCompoundBorder(
+            BorderFactory.createRaisedBevelBorder(),
+            BorderFactory.createEmptyBorder(5, 10, 5, 10)
+        ));  // 添加立体边框效果
+        gameButton.setCursor(new Cursor(Cursor.HAND_CURSOR)); // 鼠标悬停时显示手型光标
+        
+        // 添加鼠标悬停效果
+        gameButton.addMouseListener(new java.awt.event.MouseAdapter() {
+            public void mouseEntered(java.awt.event.MouseEvent evt) {
+                gameButton.setBackground(new Color(0, 180, 0));  // 鼠标悬停时颜色变深
+            }
+            
+            public void mouseExited(java.awt.event.MouseEvent evt) {
+                if (gameButton.getText().equals("开始游戏")) {
+                    gameButton.setBackground(new Color(50, 205, 50));  // 恢复原来的颜色
+                } else if (gameButton.getText().equals("暂停游戏")) {
+                    gameButton.setBackground(new Color(255, 165, 0));  // 橙色
+                } else {
+                    gameButton.setBackground(new Color(65, 105, 225));  // 蓝色
+                }
+            }
+        });
+        
+        // 修改按钮的动作监听器
+        gameButton.addActionListener(e -> {
+            String buttonText = gameButton.getText();
+            
+            if (buttonText.equals("开始游戏")) {
+                // 开始新游戏
+                gamePanel.startGame();
+                gameButton.setText("暂停游戏");
+                gameButton.setBackground(new Color(255, 165, 0));  // 橙色
+            } else if (buttonText.equals("暂停游戏")) {
+                // 暂停游戏
+                gamePanel.togglePauseGame();
+                gameButton.setText("继续游戏");
+                gameButton.setBackground(new Color(65, 105, 225));  // 蓝色
+            } else if (buttonText.equals("继续游戏")) {
+                // 继续游戏
+                gamePanel.togglePauseGame();
+                gameButton.setText("暂停游戏");
+                gameButton.setBackground(new Color(255, 165, 0));  // 橙色
+            }
+            
+            // 确保游戏面板获得焦点，这样键盘事件才能被捕获
+            gamePanel.requestFocusInWindow();
+        });
+
+        // 自动游戏开关
+        JCheckBox autoPlayBox = new JCheckBox("自动游戏 (AI)");
+        autoPlayBox.setFont(chinesePlainFont);
+        autoPlayBox.setForeground(Color.WHITE);
+        autoPlayBox.setBackground(new Color(60, 63, 65));
+        autoPlayBox.setFocusPainted(false);
+        autoPlayBox.setAlignmentX(Component.CENTER_ALIGNMENT);
+        autoPlayBox.addActionListener(e -> {
+            gamePanel.setAutoPlay(autoPlayBox.isSelected());
+            gamePanel.requestFocusInWindow();
+        });
+
+        // 创建一个面板来容纳按钮，以便更好地控制按钮的位置
+        JPanel buttonPanel = new JPanel();
+        buttonPanel.setLayout(new FlowLayout(FlowLayout.CENTER));
+        buttonPanel.setBackground(new Color(60, 63, 65));
+        buttonPanel.setBorder(BorderFactory.createEmptyBorder(10, 0, 10, 0));
+        buttonPanel.add(gameButton);
+        
+        sidePanel.add(Box.createVerticalStrut(20));  // 增加上边距
+        sidePanel.add(title);
+        sidePanel.add(Box.createVerticalStrut(15));  // 增加标题和说明之间的间距
+        sidePanel.add(helpPanel);
+        sidePanel.add(Box.createVerticalStrut(30));  // 增加说明和按钮之间的间距
+        sidePanel.add(buttonPanel);
+        sidePanel.add(autoPlayBox);
+        if (leaderboard != null) {
+            JLabel rankTitle = new JLabel("排行榜");
+            rankTitle.setFont(chineseFont);
+            rankTitle.setForeground(Color.WHITE);
+            rankTitle.setAlignmentX(Component.CENTER_ALIGNMENT);
+            leaderboardText = new JTextArea();
+            leaderboardText.setEditable(false);
+            leaderboardText.setFocusable(false);
+            leaderboardText.setBackground(new Color(70, 73, 75));
+            leaderboardText.setForeground(Color.WHITE);
+            leaderboardText.setFont(new Font("微软雅黑", Font.PLAIN, 14));
+            leaderboardText.setBorder(BorderFactory.createEmptyBorder(5, 8, 5, 8));
+            refreshLeaderboard();
+            sidePanel.add(Box.createVerticalStrut(20));
+            sidePanel.add(rankTitle);
+            sidePanel.add(Box.createVerticalStrut(10));
+            sidePanel.add(leaderboardText);
+        }
+        sidePanel.add(Box.createVerticalGlue());  // 添加弹性空间
+
+        add(sidePanel, BorderLayout.EAST);
+
+        pack();
+        setSize(850, 700);  // 增大窗口初始大小
+        setLocationRelativeTo(null);
+        setVisible(true);
+    }
+
+    // 排行榜查询只读内存索引，可以直接在 EDT 上刷新
+    private void refreshLeaderboard() {
+        if (leaderboardText == null) return;
+        StringBuilder text = new StringBuilder();
+        for (Difficulty difficulty : Difficulty.values()) {
+            if (text.length() > 0) text.append('\n');
+            text.append(difficulty.getDisplayName());
+            List<GameRecord> top = leaderboard.top(difficulty);
+            if (top.isEmpty()) {
+                text.append("\n  暂无记录");
+            }
+            for (int i = 0; i < Math.min(SIDEBAR_RANKS, top.size()); i++) {
+                text.append("\n  ").append(i + 1).append(". ").append(top.get(i));
+            }
+        }
+        leaderboardText.setText(text.toString());
+    }
+
+    // 在游戏面板里回放录像，按钮切换到可暂停的状态
+    public void playReplay(ReplayPlayer player) {
+        gamePanel.playReplay(player);
+        gameButton.setText("暂停游戏");
+        gameButton.setBackground(new Color(255, 165, 0));  // 橙色
+    }
+
+    // 继续一局从存档恢复的对局，以暂停状态开始，按钮切换到“继续游戏”
+    public void resumeSavedGame() {
+        gamePanel.resumeSavedGame();
+        gameButton.setText("继续游戏");
+        gameButton.setBackground(new Color(65, 105, 225));  // 蓝色
+    }
+
+    public static void main(String[] args) throws IOException {
+        // 确保使用正确的字符编码
+        System.setProperty("file.encoding", "UTF-8");
+        // --loop 启用固定步长游戏循环，--fps N 设置帧率上限，--replay 文件 回放录像，
+        // --width W --height H 自定义棋盘尺寸，--export 文件 把每一手导出成训练数据，
+        // --rotation SRS|CLASSIC|NONE 选择旋转系统；
+        // 上次退出时有进行中的对局则从存档恢复
+        int loopFps = -1;
+        int width = TetrisEngine.BOARD_WIDTH;
+        int height = TetrisEngine.BOARD_HEIGHT;
+        ReplayPlayer replay = null;
+        Path exportFile = null;
+        RotationSystem rotation = RotationSystem.SRS;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--loop")) {
+                loopFps = Math.max(loopFps, 0);
+            } else if (args[i].equals("--fps")) {
+                loopFps = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--width")) {
+                width = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--height")) {
+                height = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--rotation")) {
+                rotation = RotationSystem.valueOf(args[++i].toUpperCase());
+            } else if (args[i].equals("--export")) {
+                exportFile = Paths.get(args[++i]);
+            } else if (args[i].equals("--replay")) {
+                replay = ReplayPlayer.open(Paths.get(args[++i]));
+            }
+        }
+        TetrisEngine saved = null;
+        if (replay == null) {
+            try {
+                saved = new SaveFile(TetrisPanel.AUTOSAVE).load();
+            } catch (IOException e) {
+                System.err.println("无法恢复存档: " + e.getMessage());
+            }
+        }
+        Leaderboard leaderboard = null;
+        try {
+            leaderboard = Leaderboard.open(Paths.get("leaderboard"), Leaderboard.DEFAULT_TOP);
+        } catch (IOException e) {
+            System.err.println("无法打开排行榜: " + e.getMessage());
+        }
+        Leaderboard board = leaderboard;
+        int fps = loopFps;
+        ReplayPlayer player = replay;
+        boolean resume = saved != null && !saved.isGameOver();
+        // 回放时棋盘尺寸以录像为准，恢复存档时以存档为准
+        TetrisEngine engine = replay != null ? replay.createEngine()
+                : saved != null ? saved
+                : new TetrisEngine(PieceGenerator.uniform(System.nanoTime()), 1, width, height);
+        if (replay == null && !resume) {
+            // 回放和恢复的对局沿用录制/存档时的旋转系统
+            engine.setRotationSystem(rotation);
+        }
+        if (exportFile != null) {
+            TrainingDataWriter exporter = new TrainingDataWriter(exportFile, engine.getBoard().getWidth(),
+                    engine.getBoard().getHeight());
+            engine.setExporter(exporter.newSession());
+            // 窗口关闭时 System.exit 会运行关闭钩子，写完剩下的样本和索引
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    exporter.close();
+                } catch (IOException e) {
+                    System.err.println("训练数据导出失败: " + e.getMessage());
+                }
+            }, "training-data-close"));
+        }
+        SwingUtilities.invokeLater(() -> {
+            TetrisGame game = new TetrisGame(fps, engine, board);
+            if (player != null) {
+                game.playReplay(player);
+            } else if (resume) {
+                game.resumeSavedGame();
+            }
+        });
+    }
+}
@@ -0,0 +1,1087 @@
+package tetris;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.*;
+import java.awt.image.VolatileImage;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 游戏面板。引擎只由逻辑线程访问：逻辑步、按键处理、回放推进和界面命令都在那里执行，
+ * 每步结束后发布一份渲染快照。绘制只读快照，不加锁：默认模式下由 EDT 按变化区域被动重绘，
+ * 固定步长模式下由渲染线程主动渲染到后台缓冲。
+ * 远端视图模式下面板不运行逻辑，只显示网络线程发布的对战棋盘，按键转交给调用方。
+ */
+public class TetrisPanel extends JPanel {
+    static final int MIN_BLOCK_SIZE = 6;  // 大棋盘缩到这个尺寸还放不下时，视口跟随活动方块滚动
+    private static final long TICK_NANOS = 1_000_000_000L / TetrisEngine.TICKS_PER_SECOND;
+    private final TetrisEngine engine;   // 远端视图模式下为 null
+    private final GameView view;
+    private final InputSink inputSink;
+    private final int boardWidth;
+    private final int boardHeight;
+    private int viewTop = 0;  // 视口最上面一行，棋盘能整个放下时恒为 0
+    private volatile boolean isPaused = false;
+    private volatile boolean running = false;  // 有对局或回放正在推进
+    
+    // 逻辑线程：默认按下落间隔 step()，固定步长模式下每步 tick() 并由渲染线程主动渲染
+    private GameLoop gameLoop;
+    private boolean fixedStep = false;
+    private final ConcurrentLinkedQueue<Runnable> commands = new ConcurrentLinkedQueue<>();
+    private long stepClock = 0;          // 默认模式下累计的纳秒，满一个下落间隔 step() 一次
+    private int autoPlayTicks = 0;
+    
+    // 渲染快照：逻辑线程写，绘制线程（EDT 或渲染线程）读
+    private final SnapshotBuffer snapshots;
+    private RenderSnapshot snapshot;     // 绘制线程当前使用的快照
+    private long presentedSeq = -1;
+    private final AtomicBoolean changesPending = new AtomicBoolean();
+    private VolatileImage backBuffer;
+    private Graphics2D backGraphics;  // 随后台缓冲一起创建，每帧复用，不再每帧 createGraphics()
+    private int pieceOffsetY = 0;        // 渲染插值：活动方块向下的像素偏移
+    private volatile boolean perfAreaStale = false;  // 浮层关闭后主动渲染要再贴一次该区域
+    
+    // 输入事件由 EDT 入队，在逻辑步中统一处理
+    private final InputHandler input = new InputHandler();
+    
+    // 自动游戏：由搜索型 AI 决定每个方块的落点
+    private final PlacementPolicy autoPlayer = new SearchPolicy();
+    private final Placement autoPlacement = new Placement();
+    private volatile boolean autoPlay = false;
+    
+    // 每局都录到 replays 目录；回放时暂时摘掉录制器，由 replay 逐帧驱动引擎
+    private final ReplayRecorder recorder = new ReplayRecorder(Paths.get("replays"));
+    private volatile ReplayPlayer replay;
+
+    // 进行中的对局每隔几秒、暂停和退出时存档，下次启动时恢复；结束后删除
+    public static final Path AUTOSAVE = Paths.get("saves", "autosave" + SaveFile.EXTENSION);
+    private static final int AUTOSAVE_TICKS = 5 * TetrisEngine.TICKS_PER_SECOND;
+    private final SaveFile saveFile = new SaveFile(AUTOSAVE);
+    private int autosaveTicks = 0;
+
+    // 正常结束的对局记入排行榜；回放和用过自动游戏的对局不算
+    private volatile Leaderboard leaderboard;
+    private long playTicks = 0;          // 本局未暂停的逻辑步数，折算成时长
+    private boolean assisted = false;
+    
+    // 添加中文字体
+    private Font chineseFont = new Font("微软雅黑", Font.BOLD, 20);
+    private Font chineseFontLarge = new Font("微软雅黑", Font.BOLD, 40);
+    private Font scoreFont = new Font("微软雅黑", Font.BOLD, 22);
+    private Font buttonFont = new Font("微软雅黑", Font.BOLD, 16);
+
+    // 绘制用的颜色常量，避免每帧创建 Color 对象
+    private static final Color BOARD_BACKGROUND = new Color(30, 30, 30);
+    private static final Color INFO_BACKGROUND = new Color(50, 50, 50);
+    private static final Color BOARD_BORDER = new Color(100, 100, 100);
+    private static final Color GRID_LINE = new Color(60, 60, 60);
+    private static final Color INFO_BOX_FILL = new Color(70, 70, 70);
+    private static final Color INFO_BOX_BORDER = new Color(200, 200, 200);
+    private static final Color NEXT_LABEL = new Color(135, 206, 250);
+    private static final Color DIFFICULTY_LABEL = new Color(255, 215, 0);
+    private static final Color OVERLAY = new Color(0, 0, 0, 150);
+    private static final Color OVERLAY_TEXT = new Color(255, 100, 100);
+
+    // 局部重绘：记录上一次画出的活动方块区域和信息区内容，只重绘变化的部分
+    private final Rectangle lastPieceArea = new Rectangle();
+    private final Rectangle dirtyArea = new Rectangle();
+    private int lastScore = -1;
+    private int lastPiecesPlaced = -1;
+    private Difficulty lastDifficulty;
+    private boolean lastOverlay;
+
+    private static final int INFO_AREA_BOTTOM = 245;  // 信息框下沿，其下是难度按钮
+    private static final int PERF_AREA_TOP = 300;     // 性能浮层在难度按钮下方
+    private static final int PERF_AREA_HEIGHT = 118;
+
+    // 运行时计数器和 F3 切换的性能浮层
+    private final PerfStats perf = new PerfStats();
+    private volatile boolean showPerf = false;
+    private volatile boolean showGhost = true;    // G 切换幽灵方块
+    private Font perfFont = new Font(Font.MONOSPACED, Font.PLAIN, 13);
+
+    // 方块贴图和静态背景的缓存，尺寸变化时重建
+    private final RenderCache renderCache = new RenderCache(this::paintStaticLayer);
+    // 每帧都画的信息文字预先渲染成贴图，绘制时不拼字符串
+    private final TextTiles scoreText = new TextTiles(scoreFont, Color.WHITE, "得分: ");
+    private final TextTiles difficultyText = new TextTiles(chineseFont, DIFFICULTY_LABEL, difficultyLabels());
+
+    // 添加按钮
+    private JButton changeDifficultyButton;
+
+    public TetrisPanel() {
+        this(new TetrisEngine());
+    }
+
+    /**
+     * 显示一个外部创建的引擎。逻辑线程随面板显示启动，此后引擎归它所有；
+     * 基准测试和离屏绘制可以不显示面板，直接 paint() 构造时生成的快照。
+     */
+    public TetrisPanel(TetrisEngine engine) {
+        this(engine, engine, null);
+        engine.setRecorder(recorder);
+    }
+
+    // 远端视图模式下按键不在本地处理，交给它发给服务器
+    public interface InputSink {
+        void input(int action, boolean pressed);
+    }
+
+    /**
+     * 远端视图：显示一块由别处更新的棋盘（如对战客户端的 RemoteGame），不启动逻辑线程。
+     * 之后由更新镜像的线程调用 publishView()。
+     * @param sink 接收移动类按键，只看不玩的棋盘传 null
+     */
+    public TetrisPanel(GameView view, InputSink sink) {
+        this(null, view, sink);
+    }
+
+    private TetrisPanel(TetrisEngine engine, GameView view, InputSink sink) {
+        this.engine = engine;
+        this.view = view;
+        this.inputSink = sink;
+        this.boardWidth = view.getBoard().getWidth();
+        this.boardHeight = view.getBoard().getHeight();
+        snapshots = new SnapshotBuffer(boardWidth, boardHeight);
+        snapshots.publish(view, false, false, input);
+        snapshot = snapshots.acquire();
+        gameLoop = createLoop(-1);
+        addKeyListener(new KeyHandler());
+        setFocusable(true);
+        perf.setAllocationSampling(false);  // 只有性能浮层显示分配速率
+        setBackground(Color.DARK_GRAY);
+        
+        // 初始化按钮
+        initButtons();
+    }
+    
+    private void initButtons() {
+        setLayout(null); // 使用绝对布局
+        
+        // 切换难度按钮
+        changeDifficultyButton = new JButton("切换难度: " + view.getDifficulty().getDisplayName());
+        changeDifficultyButton.setFont(buttonFont);
+        changeDifficultyButton.addActionListener(e -> cycleDifficulty());
+        changeDifficultyButton.setVisible(engine != null);  // 对战的规则由服务器决定
+        add(changeDifficultyButton);
+        
+        // 按钮位置将在组件大小调整时设置
+        addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                updateButtonPositions();
+            }
+        });
+    }
+    
+    private void updateButtonPositions() {
+        int blockSize = getBlockSize();
+        int infoX = boardWidth * blockSize + 20;
+        int buttonWidth = getWidth() - infoX - 15;
+        
+        // 设置按钮位置
+        changeDifficultyButton.setBounds(infoX - 5, 250, buttonWidth, 40);
+    }
+    
+    private void cycleDifficulty() {
+        post(() -> {
+            if (replay != null) return;  // 回放中改难度会让对局走样
+            engine.setDifficulty(engine.getDifficulty().next());
+            String text = "切换难度: " + engine.getDifficulty().getDisplayName();
+            SwingUtilities.invokeLater(() -> changeDifficultyButton.setText(text));
+        });
+    }
+
+    // 把改动引擎的操作交给逻辑线程，在下一个逻辑步开头执行
+    private void post(Runnable command) {
+        commands.offer(command);
+    }
+
+    private GameLoop createLoop(int fpsCap) {
+        return new GameLoop(new GameLoop.Listener() {
+            @Override
+            public void tick() {
+                logicTick();
+            }
+
+            @Override
+            public boolean render(double alpha) {
+                return renderFrame(alpha);
+            }
+        }, TetrisEngine.TICKS_PER_SECOND, fpsCap);
+    }
+
+    /**
+     * 切换到固定步长模式：重力按 TICKS_PER_SECOND 的逻辑步推进，可为分数格，
+     * 渲染线程主动渲染并做插值。必须在面板显示之前调用。
+     * @param fpsCap 帧率上限，0 表示不限
+     */
+    public void enableGameLoop(int fpsCap) {
+        fixedStep = true;
+        gameLoop = createLoop(Math.max(0, fpsCap));
+    }
+
+    // 面板显示时启动逻辑线程（和渲染线程），移除时停止
+    @Override
+    public void addNotify() {
+        super.addNotify();
+        if (engine != null) {
+            gameLoop.start();
+        }
+    }
+
+    @Override
+    public void removeNotify() {
+        gameLoop.stop();
+        super.removeNotify();
+    }
+
+    public void startGame() {
+        post(this::restartGame);
+        requestFocusInWindow(); // 确保面板获得焦点以接收键盘事件
+    }
+
+    // 在逻辑线程中开始新的一局
+    private void restartGame() {
+        replay = null;
+        engine.setRecorder(recorder);
+        engine.start();
+        isPaused = false;
+        autoPlayTicks = 0;
+        autosaveTicks = 0;
+        playTicks = 0;
+        assisted = autoPlay;
+        stepClock = 0;
+        input.reset();
+        perf.resetTickClock();
+        running = true;
+    }
+
+    /**
+     * 继续一局从存档恢复的对局：面板显示的引擎已由 SaveFile 恢复，对局以暂停状态继续。
+     */
+    public void resumeSavedGame() {
+        post(() -> {
+            replay = null;
+            isPaused = true;
+            autosaveTicks = 0;
+            playTicks = 0;  // 存档不带时长，只计恢复之后的部分
+            assisted = autoPlay;
+            stepClock = 0;
+            input.reset();
+            running = !engine.isGameOver();
+        });
+    }
+
+    /**
+     * 立即存档：在逻辑线程上编码，后台写盘。没有进行中的对局时什么也不做。
+     * @return 写盘完成时完成
+     */
+    public CompletableFuture<Void> saveGame() {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        if (engine == null || !gameLoop.isRunning()) {
+            done.complete(null);
+            return done;
+        }
+        post(() -> {
+            if (running && replay == null) {
+                saveFile.save(engine).whenComplete((v, e) -> done.complete(null));
+            } else {
+                done.complete(null);
+            }
+        });
+        return done;
+    }
+
+    /**
+     * 在面板里回放一局录像，按录制时的节奏推进：计时器模式的录像每次间隔
+     * 一个下落间隔，固定步长模式的录像每个逻辑步推进一帧。
+     */
+    public void playReplay(ReplayPlayer player) {
+        if (player.getWidth() != boardWidth || player.getHeight() != boardHeight) {
+            throw new IllegalArgumentException("录像棋盘尺寸 " + player.getWidth() + "x" + player.getHeight()
+                    + " 与面板 " + boardWidth + "x" + boardHeight + " 不一致");
+        }
+        post(() -> {
+            engine.setRecorder(null);
+            replay = player;
+            player.start(engine);
+            isPaused = false;
+            stepClock = 0;
+            input.reset();
+            perf.resetTickClock();
+            running = true;
+        });
+        requestFocusInWindow();
+    }
+
+    public boolean isReplaying() {
+        return replay != null;
+    }
+
+    // 回放的一帧，放完后与录像的终局摘要比对
+    private void advanceReplay() {
+        if (!replay.advance(engine)) {
+            String mismatch = replay.verify(engine);
+            replay = null;
+            engine.setRecorder(recorder);
+            running = false;
+            int finalScore = engine.getScore();
+            SwingUtilities.invokeLater(() -> {
+                if (gameEndListener != null) {
+                    gameEndListener.onReplayEnd(finalScore, mismatch);
+                }
+            });
+        }
+    }
+
+    // 对局结束：停止推进并在 EDT 上通知监听器
+    private void finishRun() {
+        running = false;
+        int finalScore = engine.getScore();
+        SwingUtilities.invokeLater(() -> {
+            if (gameEndListener != null) {
+                gameEndListener.onGameEnd(finalScore);
+            }
+        });
+    }
+
+    private void recordScore() {
+        Leaderboard board = leaderboard;
+        if (board == null || assisted) return;
+        board.record(new GameRecord(engine.getScore(), engine.getLinesCleared(), engine.getPiecesPlaced(),
+                engine.getDifficulty(), playTicks * 1000 / TetrisEngine.TICKS_PER_SECOND,
+                engine.getSeed(), System.currentTimeMillis()));
+    }
+
+    // 添加游戏结束回调接口
+    public interface GameEndListener {
+        void onGameEnd(int finalScore);
+
+        /**
+         * 回放放完、与录像的终局摘要比对之后在 EDT 上调用，默认按对局结束处理。
+         * @param mismatch 校验通过时为 null，否则为第一处差异的说明
+         */
+        default void onReplayEnd(int finalScore, String mismatch) {
+            onGameEnd(finalScore);
+        }
+    }
+    
+    private GameEndListener gameEndListener;
+    
+    public void setGameEndListener(GameEndListener listener) {
+        this.gameEndListener = listener;
+    }
+
+    // 活动方块占据的像素区域，显示幽灵方块时一直延伸到落点；没有活动方块时为空
+    private void pieceArea(RenderSnapshot s, int blockSize, Rectangle out) {
+        Block block = s.getCurrentBlock();
+        if (block == null) {
+            out.setBounds(0, 0, 0, 0);
+            return;
+        }
+        int bottom = (showGhost ? s.getGhostY() : block.y) + block.maxY();
+        out.setBounds((block.x + block.minX()) * blockSize, (block.y + block.minY() - viewTop) * blockSize,
+                (block.maxX() - block.minX() + 1) * blockSize, (bottom - block.y - block.minY() + 1) * blockSize);
+    }
+
+    private void repaintRect(Rectangle r) {
+        if (!r.isEmpty()) repaint(r.x, r.y, r.width, r.height);
+    }
+
+    // 所有重绘请求都经过这里，顺便计数
+    @Override
+    public void repaint(long tm, int x, int y, int width, int height) {
+        if (perf != null) perf.countRepaint();  // 父类构造期间 perf 尚未初始化
+        super.repaint(tm, x, y, width, height);
+    }
+
+    private void repaintPerf() {
+        int infoX = boardWidth * getBlockSize() + 20;
+        repaint(infoX - 5, PERF_AREA_TOP, getWidth() - infoX - 10, PERF_AREA_HEIGHT + 1);
+    }
+
+    private void repaintInfoBox(int y, int height) {
+        int infoX = boardWidth * getBlockSize() + 20;
+        repaint(infoX - 5, y, getWidth() - infoX - 10, height + 1);
+    }
+
+    /**
+     * 被动绘制模式下在 EDT 上取最新快照，只重绘与上一份快照相比受影响的区域：
+     * 活动方块的旧位置和新位置、发生变化的棋盘行，以及得分、下一块或难度变化时对应的信息框。
+     */
+    private void repaintChanges() {
+        changesPending.set(false);
+        snapshot = snapshots.acquire();
+        RenderSnapshot s = snapshot;
+        int blockSize = getBlockSize();
+        int viewRows = getViewRows(blockSize);
+        boolean overlay = s.isPaused() || s.isGameOver();
+        if (updateViewport(blockSize) || overlay || overlay != lastOverlay) {
+            // 视口滚动、暂停或结束的遮罩都会改变整个棋盘区域
+            repaint(0, 0, boardWidth * blockSize + 1, viewRows * blockSize + 1);
+        }
+        lastOverlay = overlay;
+        repaintRect(lastPieceArea);
+        pieceArea(s, blockSize, dirtyArea);
+        repaintRect(dirtyArea);
+        lastPieceArea.setBounds(dirtyArea);
+
+        // 只重绘落在视口里的变化行
+        int firstDirty = Math.max(s.getDirtyMinRow(), viewTop);
+        int lastDirty = Math.min(s.getDirtyMaxRow(), viewTop + viewRows - 1);
+        if (firstDirty <= lastDirty) {
+            int top = (firstDirty - viewTop) * blockSize;
+            repaint(0, top, boardWidth * blockSize + 1, (lastDirty - viewTop + 1) * blockSize - top + 1);
+        }
+        if (s.getScore() != lastScore) {
+            lastScore = s.getScore();
+            repaintInfoBox(10, 50);
+        }
+        if (s.getPiecesPlaced() != lastPiecesPlaced) {
+            lastPiecesPlaced = s.getPiecesPlaced();
+            repaintInfoBox(70, 110);
+        }
+        if (s.getDifficulty() != lastDifficulty) {
+            lastDifficulty = s.getDifficulty();
+            repaintInfoBox(190, 50);
+        }
+    }
+
+    /**
+     * 远端视图模式下由更新镜像的线程调用：发布一份新快照并请求重绘。
+     * 所有调用必须来自同一个线程。
+     */
+    public void publishView() {
+        snapshots.publish(view, false, false, input);
+        snapshotPublished();
+    }
+
+    // 逻辑线程发布快照后通知绘制方；EDT 上已有待处理的通知时不再重复排队
+    private void snapshotPublished() {
+        if (gameLoop.isRendering()) {
+            gameLoop.requestRender();
+        } else if (changesPending.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::repaintChanges);
+        }
+    }
+
+    // 按窗口缩放格子尺寸，但不小于 MIN_BLOCK_SIZE；放不下的行由视口裁掉
+    private int getBlockSize() {
+        return Math.max(MIN_BLOCK_SIZE, Math.min(getWidth() / (boardWidth + 5), getHeight() / boardHeight));
+    }
+
+    // 视口能容纳的行数
+    private int getViewRows(int blockSize) {
+        return Math.min(boardHeight, Math.max(1, getHeight() / blockSize));
+    }
+
+    /**
+     * 棋盘比视口高时，活动方块离视口上下边缘不足四分之一视口时把视口移过去，
+     * 让方块位于视口中部偏下。
+     * @return 视口是否移动
+     */
+    private boolean updateViewport(int blockSize) {
+        int viewRows = getViewRows(blockSize);
+        int top = viewTop;
+        Block block = snapshot.getCurrentBlock();
+        if (viewRows >= boardHeight) {
+            top = 0;
+        } else if (block != null) {
+            int margin = viewRows / 4;
+            int pieceTop = block.y + block.minY();
+            int pieceBottom = block.y + block.maxY();
+            if (pieceTop < top + margin || pieceBottom > top + viewRows - 1 - margin) {
+                top = pieceBottom - viewRows / 2;
+            }
+            top = Math.max(0, Math.min(boardHeight - viewRows, top));
+        }
+        if (top == viewTop) return false;
+        viewTop = top;
+        return true;
+    }
+
+    // 绘制不随游戏状态变化的部分：背景、边框、网格和信息区框架，结果缓存在 RenderCache 中
+    private void paintStaticLayer(Graphics g, int width, int height, int blockSize) {
+        g.setColor(getBackground());
+        g.fillRect(0, 0, width, height);
+
+        int viewHeight = getViewRows(blockSize) * blockSize;
+
+        // 绘制游戏区域背景
+        g.setColor(BOARD_BACKGROUND);
+        g.fillRect(0, 0, boardWidth * blockSize, viewHeight);
+        
+        // 绘制信息区域背景
+        g.setColor(INFO_BACKGROUND);
+        g.fillRect(boardWidth * blockSize, 0, width - boardWidth * blockSize, height);
+        
+        // 绘制游戏区域边框
+        g.setColor(BOARD_BORDER);
+        g.drawRect(0, 0, boardWidth * blockSize, viewHeight);
+
+        // 绘制网格线
+        g.setColor(GRID_LINE);
+        for (int i = 0; i * blockSize <= viewHeight; i++) {
+            g.drawLine(0, i * blockSize, boardWidth * blockSize, i * blockSize);
+        }
+        for (int j = 0; j <= boardWidth; j++) {
+            g.drawLine(j * blockSize, 0, j * blockSize, viewHeight);
+        }
+
+        int infoX = boardWidth * blockSize + 20;
+        int boxWidth = width - infoX - 15;
+
+        // 得分、下一块、难度三个信息框
+        paintInfoBox(g, infoX - 5, 10, boxWidth, 50);
+        paintInfoBox(g, infoX - 5, 70, boxWidth, 110);
+        paintInfoBox(g, infoX - 5, 190, boxWidth, 50);
+        
+        // 下一块 - 使用中文字体
+        g.setColor(NEXT_LABEL); // 淡蓝色
+        g.setFont(chineseFont);
+        g.drawString("下一块：", infoX + 10, 95);
+    }
+
+    private void paintInfoBox(Graphics g, int x, int y, int width, int height) {
+        g.setColor(INFO_BOX_FILL);
+        g.fillRoundRect(x, y, width, height, 10, 10);
+        g.setColor(INFO_BOX_BORDER);
+        g.drawRoundRect(x, y, width, height, 10, 10);
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        if (gameLoop.isRendering() && gameLoop.isRunning()) {
+            // 主动渲染时棋盘和信息框由渲染线程贴图，这里只补上它不贴的区域
+            int boardRight = boardWidth * getBlockSize() + 1;
+            g.setColor(INFO_BACKGROUND);
+            g.fillRect(boardRight, INFO_AREA_BOTTOM, getWidth() - boardRight, getHeight() - INFO_AREA_BOTTOM);
+            perfAreaStale = true;
+            gameLoop.requestRender();
+            return;
+        }
+        paintGame(g);
+        markPresented(snapshot, System.nanoTime());
+    }
+
+    // 同一份快照只计一次按键延迟
+    private void markPresented(RenderSnapshot s, long now) {
+        if (s.getSeq() != presentedSeq) {
+            presentedSeq = s.getSeq();
+            s.recordPresented(input, now);
+        }
+    }
+
+    // 把当前快照画到 g 上，只在绘制线程调用
+    private void paintGame(Graphics g) {
+        RenderSnapshot s = snapshot;
+        long paintStart = System.nanoTime();
+        PerfEvents.Paint paintEvent = PerfEvents.beginPaint();
+        int blockSize = getBlockSize();
+        renderCache.validate(getGraphicsConfiguration(), getWidth(), getHeight(), blockSize);
+
+        // 背景、网格和信息区框架直接贴缓存图
+        g.drawImage(renderCache.getBackground(), 0, 0, null);
+
+        // 只遍历视口内、与裁剪区域相交的行和列
+        int viewRows = getViewRows(blockSize);
+        int viewHeight = viewRows * blockSize;
+        Rectangle clip = g.getClipBounds();
+        int firstRow = viewTop;
+        int lastRow = viewTop + viewRows - 1;
+        int firstCol = 0;
+        int lastCol = boardWidth - 1;
+        if (clip != null) {
+            firstRow = Math.max(firstRow, viewTop + clip.y / blockSize);
+            lastRow = Math.min(lastRow, viewTop + (clip.y + clip.height - 1) / blockSize);
+            firstCol = Math.max(0, clip.x / blockSize);
+            lastCol = Math.min(lastCol, (clip.x + clip.width - 1) / blockSize);
+        }
+
+        // 绘制已固定的方块，堆叠顶部以上都是空行
+        firstRow = Math.max(firstRow, s.getTop());
+        for (int i = firstRow; i <= lastRow; i++) {
+            int y = (i - viewTop) * blockSize;
+            for (int j = firstCol; j <= lastCol; j++) {
+                int cell = s.getCell(j, i);
+                if (cell != 0) {
+                    g.drawImage(renderCache.getCellTile(cell), j * blockSize, y, null);
+                }
+            }
+        }
+
+        // 绘制当前方块，幽灵方块先画，与活动方块重叠时被盖住
+        Block currentBlock = s.getCurrentBlock();
+        if (currentBlock != null && showGhost) {
+            Image ghost = renderCache.getGhostTile(currentBlock.shape);
+            int ghostY = s.getGhostY();
+            for (int i = 0; i < 4; i++) {
+                int x = currentBlock.x + currentBlock.cellX(i);
+                int y = ghostY + currentBlock.cellY(i);
+                if (y >= viewTop && y < viewTop + viewRows) {
+                    g.drawImage(ghost, x * blockSize, (y - viewTop) * blockSize, null);
+                }
+            }
+        }
+        if (currentBlock != null) {
+            Image tile = renderCache.getCellTile(currentBlock.shape);
+            for (int i = 0; i < 4; i++) {
+                int x = currentBlock.x + currentBlock.cellX(i);
+                int y = currentBlock.y + currentBlock.cellY(i);
+                if (y >= viewTop && y < viewTop + viewRows) {
+                    g.drawImage(tile, x * blockSize, (y - viewTop) * blockSize + pieceOffsetY, null);
+                }
+            }
+        }
+
+        // 绘制信息区域，裁剪区域只在棋盘内时跳过
+        int infoX = boardWidth * blockSize + 20;
+        if (clip == null || clip.x + clip.width > infoX - 5) {
+            paintInfo(g, s, blockSize, infoX);
+        }
+
+        // 绘制游戏状态
+        if (s.isPaused()) {
+            g.setColor(OVERLAY);
+            g.fillRect(0, 0, boardWidth * blockSize, viewHeight);
+            g.setColor(OVERLAY_TEXT);
+            g.setFont(chineseFontLarge);  // 使用大号中文字体
+            FontMetrics fm = g.getFontMetrics();
+            String pauseText = "暂停中";
+            int textWidth = fm.stringWidth(pauseText);
+            g.drawString(pauseText, (boardWidth * blockSize - textWidth) / 2, viewHeight / 2);
+        } else if (s.isGameOver()) {
+            g.setColor(OVERLAY);
+            g.fillRect(0, 0, boardWidth * blockSize, viewHeight);
+            g.setColor(OVERLAY_TEXT);
+            g.setFont(chineseFontLarge);  // 使用大号中文字体
+            FontMetrics fm = g.getFontMetrics();
+            String gameOverText = "游戏结束";
+            int textWidth = fm.stringWidth(gameOverText);
+            g.drawString(gameOverText, (boardWidth * blockSize - textWidth) / 2, viewHeight / 2 - 30);
+            
+            g.setFont(chineseFont);
+            String scoreText = "得分: " + s.getScore();
+            fm = g.getFontMetrics();
+            textWidth = fm.stringWidth(scoreText);
+            g.drawString(scoreText, (boardWidth * blockSize - textWidth) / 2, viewHeight / 2 + 20);
+            
+            // 修改"按R键重新开始"文字的绘制，确保居中
+            if (engine != null) {
+                String restartText = "按 R 键重新开始";
+                fm = g.getFontMetrics(); // 重新获取当前字体的FontMetrics
+                textWidth = fm.stringWidth(restartText);
+                g.drawString(restartText, (boardWidth * blockSize - textWidth) / 2, viewHeight / 2 + 60);
+            }
+        }
+
+        // 性能浮层画在最上层
+        if (showPerf && (clip == null || (clip.x + clip.width > infoX - 5
+                && clip.y < PERF_AREA_TOP + PERF_AREA_HEIGHT + 1 && clip.y + clip.height > PERF_AREA_TOP))) {
+            paintPerf(g, infoX);
+        }
+
+        long now = System.nanoTime();
+        perf.recordFrame(now - paintStart);
+        PerfEvents.endPaint(paintEvent, blockSize, gameLoop.isRendering());
+        if (perf.roll(now) && showPerf && !gameLoop.isRendering()) {
+            // 主动渲染时每帧都会贴浮层区域，被动绘制时要单独请求重绘
+            repaintPerf();
+        }
+    }
+
+    // FPS、p99 帧时间、分配速率等，数据是上一秒的快照；按键延迟是累计值
+    private void paintPerf(Graphics g, int infoX) {
+        paintInfoBox(g, infoX - 5, PERF_AREA_TOP, getWidth() - infoX - 15, PERF_AREA_HEIGHT);
+        g.setColor(Color.WHITE);
+        g.setFont(perfFont);
+        int y = PERF_AREA_TOP + 18;
+        g.drawString(String.format("FPS %.0f  重绘 %.0f/s", perf.getFps(), perf.getRepaintRate()), infoX + 5, y);
+        g.drawString(String.format("帧时间 p99 %.2f ms", perf.getFrameTimeP99()), infoX + 5, y + 18);
+        g.drawString(String.format("节拍抖动 p99 %.2f ms", perf.getTickJitterP99()), infoX + 5, y + 36);
+        double allocation = perf.getAllocationRate();
+        g.drawString(allocation < 0 ? "分配速率 不可用" : String.format("分配速率 %.2f MB/s", allocation),
+                infoX + 5, y + 54);
+        // 按键到画面的延迟在这里（绘制线程）记入直方图，读到的是启动以来的累计数据
+        LatencyHistogram latency = input.getLatency();
+        g.drawString(latency.getCount() == 0 ? "按键延迟 无数据"
+                : String.format("按键延迟 p99 %.1f ms", latency.percentile(99) / 1e6), infoX + 5, y + 72);
+        g.drawString("F3 关闭", infoX + 5, y + 90);
+    }
+
+    // 得分、下一块预览和难度文字
+    private void paintInfo(Graphics g, RenderSnapshot s, int blockSize, int infoX) {
+        // 得分
+        scoreText.drawNumber(g, s.getScore(), scoreText.drawLabel(g, 0, infoX + 10, 45), 45);
+        
+        // 绘制下一块预览
+        Block nextBlock = s.getNextBlock();
+        if (nextBlock != null) {
+            // 计算居中位置
+            int previewAreaWidth = getWidth() - infoX - 15;
+            int previewAreaHeight = 110; // 调整后的下一块区域的高度
+            
+            // 包围盒已在 Block 中预先算好
+            int minX = nextBlock.minX(), maxX = nextBlock.maxX();
+            int minY = nextBlock.minY(), maxY = nextBlock.maxY();
+            
+            int blockWidth = maxX - minX + 1;
+            int blockHeight = maxY - minY + 1;
+            
+            // 调整偏移量，确保方块在预览区域内完全居中
+            int offsetX = infoX + (previewAreaWidth - blockWidth * blockSize) / 2 - minX * blockSize;
+            int offsetY = 70 + (previewAreaHeight - blockHeight * blockSize) / 2 - minY * blockSize + 10;
+            
+            // 绘制方块
+            Image tile = renderCache.getPreviewTile(nextBlock.shape);
+            for (int i = 0; i < 4; i++) {
+                g.drawImage(tile, offsetX + nextBlock.cellX(i) * blockSize, offsetY + nextBlock.cellY(i) * blockSize, null);
+            }
+        }
+        
+        // 难度显示，金色
+        difficultyText.drawLabel(g, s.getDifficulty().ordinal(), infoX + 10, 225);
+    }
+
+    private static String[] difficultyLabels() {
+        Difficulty[] values = Difficulty.values();
+        String[] labels = new String[values.length];
+        for (int i = 0; i < values.length; i++) {
+            labels[i] = "难度: " + values[i].getDisplayName();
+        }
+        return labels;
+    }
+
+    /**
+     * 一个逻辑步，在逻辑线程中执行：先执行界面提交的命令，再推进对局或回放，
+     * 状态可能变化时发布快照。默认模式下每满一个下落间隔 step() 一次。
+     * 面板没有显示时逻辑线程不运行，测试可以直接调用它推进。
+     */
+    void logicTick() {
+        boolean changed = false;
+        Runnable command;
+        while ((command = commands.poll()) != null) {
+            command.run();
+            changed = true;
+        }
+        if (running && !isPaused) {
+            long jitter = perf.recordTick(System.nanoTime(), TICK_NANOS);
+            PerfEvents.Tick tickEvent = PerfEvents.beginTick();
+            int pieces = engine.getPiecesPlaced();
+            if (replay != null) {
+                if (replay.getFrameKind() == ReplayRecorder.FRAME_TICK || stepDue()) {
+                    advanceReplay();
+                }
+            } else {
+                playTick();
+                if (engine.isGameOver()) {
+                    recordScore();  // 先记分，结束回调里刷新的排行榜已包含本局
+                    finishRun();
+                    saveFile.delete();
+                } else if (++autosaveTicks >= AUTOSAVE_TICKS) {
+                    autosaveTicks = 0;
+                    saveFile.save(engine);
+                }
+            }
+            PerfEvents.endTick(tickEvent, engine.getFrame(), engine.getDropInterval(), jitter,
+                    engine.getPiecesPlaced() != pieces);
+            changed = true;
+        }
+        if (changed) {
+            snapshots.publish(engine, isPaused, replay != null, input);
+            snapshotPublished();
+        }
+    }
+
+    // 对局本身的一个逻辑步：按键、重力或自动放置。稳态下不分配对象，见 AllocationTest
+    private void playTick() {
+        playTicks++;
+        assisted |= autoPlay;
+        input.update(engine);
+        if (fixedStep) {
+            if (autoPlay) {
+                // 自动游戏按当前下落间隔的节奏放置方块，每放一块推进一帧
+                autoPlayTicks++;
+                if (autoPlayTicks * 1000 >= engine.getDropInterval() * TetrisEngine.TICKS_PER_SECOND) {
+                    autoPlayTicks = 0;
+                    autoPlace();
+                    engine.skipFrame();
+                }
+            } else {
+                engine.tick();
+            }
+        } else if (stepDue()) {
+            if (autoPlay) {
+                autoPlace();
+                engine.skipFrame();
+            } else {
+                engine.step();
+            }
+        }
+    }
+
+    /**
+     * 离屏推进一个逻辑步并发布快照，不经过命令队列、自动存档和对局结束处理。
+     * 面板不能处于显示状态，供 AllocationTest 在单线程里重现逻辑线程的稳态工作。
+     */
+    void tickOffscreen() {
+        playTick();
+        snapshots.publish(engine, false, false, input);
+    }
+
+    /**
+     * 把最新快照按插值 alpha 画到 g 上，与渲染线程画后台缓冲的过程相同，只是不贴到屏幕。
+     */
+    void renderOffscreen(Graphics g, double alpha) {
+        RenderSnapshot s = prepareFrame(alpha);
+        paintGame(g);
+        markPresented(s, System.nanoTime());
+    }
+
+    /**
+     * 把调用方给的快照原样画到 g 上，不经过 SnapshotBuffer、不插值，供导出视频时每个线程用自己的面板绘制。
+     * 面板尺寸应能放下整块棋盘，否则视口位置取决于之前画过的快照。
+     */
+    void renderSnapshot(Graphics g, RenderSnapshot s) {
+        snapshot = s;
+        updateViewport(getBlockSize());
+        pieceOffsetY = 0;
+        paintGame(g);
+    }
+
+    // 默认模式的节奏：累计逻辑步时间，满一个下落间隔时返回 true
+    private boolean stepDue() {
+        stepClock += TICK_NANOS;
+        long interval = engine.getDropInterval() * 1_000_000L;
+        if (stepClock < interval) return false;
+        stepClock -= interval;
+        return true;
+    }
+
+    private void autoPlace() {
+        if (!autoPlayer.choose(engine, autoPlacement) || !engine.place(autoPlacement)) {
+            engine.hardDrop();
+        }
+    }
+
+    /**
+     * 主动渲染一帧，在渲染线程中执行：取最新快照画到显存后台缓冲，再一次性贴到屏幕上。
+     * 只贴棋盘和信息框区域，避开下方的难度按钮。
+     * @return 方块还在插值下落或浮层打开时返回 true，需要继续出帧
+     */
+    private boolean renderFrame(double alpha) {
+        RenderSnapshot s = prepareFrame(alpha);
+        int blockSize = getBlockSize();
+        boolean falling = s.canFall() && !s.isPaused() && !s.isGameOver();
+
+        int width = getWidth();
+        int height = getHeight();
+        Graphics g = getGraphics();
+        if (g == null || width <= 0 || height <= 0) return false;
+        try {
+            boolean perfArea = showPerf || perfAreaStale;
+            perfAreaStale = false;
+            do {
+                if (backBuffer == null || backBuffer.getWidth() != width || backBuffer.getHeight() != height
+                        || backBuffer.validate(getGraphicsConfiguration()) == VolatileImage.IMAGE_INCOMPATIBLE) {
+                    if (backGraphics != null) backGraphics.dispose();
+                    backGraphics = null;
+                    backBuffer = createVolatileImage(width, height);
+                    if (backBuffer == null) return false;
+                    backGraphics = backBuffer.createGraphics();
+                }
+                paintGame(backGraphics);
+
+                int boardRight = boardWidth * blockSize + 1;
+                g.drawImage(backBuffer, 0, 0, boardRight, height, 0, 0, boardRight, height, null);
+                g.drawImage(backBuffer, boardRight, 0, width, INFO_AREA_BOTTOM,
+                        boardRight, 0, width, INFO_AREA_BOTTOM, null);
+                if (perfArea) {
+                    int bottom = PERF_AREA_TOP + PERF_AREA_HEIGHT + 1;
+                    g.drawImage(backBuffer, boardRight, PERF_AREA_TOP, width, bottom,
+                            boardRight, PERF_AREA_TOP, width, bottom, null);
+                }
+            } while (backBuffer.contentsLost());
+            Toolkit.getDefaultToolkit().sync();
+            markPresented(s, System.nanoTime());
+        } finally {
+            g.dispose();
+        }
+        return falling || showPerf;
+    }
+
+    // 取最新快照，移动视口并算出活动方块的插值偏移
+    private RenderSnapshot prepareFrame(double alpha) {
+        snapshot = snapshots.acquire();
+        RenderSnapshot s = snapshot;
+        int blockSize = getBlockSize();
+        updateViewport(blockSize);
+        pieceOffsetY = 0;
+        if (s.canFall() && !s.isPaused() && !s.isGameOver()) {
+            double progress = Math.min(0.999, s.getGravityProgress() + s.getGravity() * alpha);
+            pieceOffsetY = (int) (progress * blockSize);
+        }
+        return s;
+    }
+
+    // 添加暂停/继续游戏的公共方法
+    public void togglePauseGame() {
+        post(() -> {
+            isPaused = !isPaused;
+            perf.resetTickClock();
+            if (isPaused) {
+                input.reset();
+                if (running && replay == null) saveFile.save(engine);
+            }
+        });
+    }
+    
+    // 删除或修改 togglePause() 方法，统一使用 togglePauseGame()
+    private void togglePause() {
+        togglePauseGame();  // 调用公共方法，保持一致性
+    }
+    
+    // 获取游戏运行状态
+    
+    // 修改游戏运行状态判断逻辑
+    public boolean isGameRunning() {
+        return running && !isPaused;
+    }
+    
+    // 开启或关闭自动游戏
+    public void setAutoPlay(boolean autoPlay) {
+        this.autoPlay = autoPlay;
+    }
+    
+    public boolean isAutoPlay() {
+        return autoPlay;
+    }
+
+    // 设置记分用的排行榜，null 表示不记
+    public void setLeaderboard(Leaderboard leaderboard) {
+        this.leaderboard = leaderboard;
+    }
+    
+    // 帧时间、节拍抖动等运行时计数器
+    public PerfStats getPerfStats() {
+        return perf;
+    }
+    
+    // DAS/ARR 设置和按键延迟统计
+    public InputHandler getInputHandler() {
+        return input;
+    }
+    
+    // 添加游戏暂停状态判断方法
+    public boolean isGamePaused() {
+        return isPaused;
+    }
+    
+    private class KeyHandler extends KeyAdapter {
+        @Override
+        public void keyPressed(KeyEvent e) {
+            int key = e.getKeyCode();
+            
+            if (key == KeyEvent.VK_F3) {
+                showPerf = !showPerf;
+                perf.setAllocationSampling(showPerf);
+                if (gameLoop.isRendering()) {
+                    perfAreaStale = true;
+                    gameLoop.requestRender();
+                } else {
+                    repaintPerf();
+                }
+                return;
+            }
+
+            if (key == KeyEvent.VK_G) {
+                showGhost = !showGhost;
+                if (gameLoop.isRendering()) {
+                    gameLoop.requestRender();
+                } else {
+                    // 关闭时旧区域包含幽灵方块，打开时新区域包含，两者都重绘
+                    repaintRect(lastPieceArea);
+                    pieceArea(snapshot, getBlockSize(), lastPieceArea);
+                    repaintRect(lastPieceArea);
+                }
+                return;
+            }
+
+            if (engine == null) {
+                // 远端视图只转发移动类按键
+                int action = toAction(key);
+                if (action >= 0 && inputSink != null) {
+                    inputSink.input(action, true);
+                }
+                return;
+            }
+            
+            if (replay != null) {
+                // 回放时只响应暂停
+                if (key == KeyEvent.VK_P) togglePauseGame();
+                return;
+            }
+            
+            if (key == KeyEvent.VK_R) {
+                // 是否已经结束由逻辑线程判断
+                post(() -> {
+                    if (!running && engine.isGameOver()) restartGame();
+                });
+                return;
+            }
+            
+            if (key == KeyEvent.VK_P) {
+                togglePauseGame();
+                return;
+            }
+            
+            // 移动类按键只带时间戳入队，由逻辑步统一处理
+            int action = toAction(key);
+            if (action >= 0) {
+                input.keyPressed(action, eventTime(e));
+            }
+        }
+
+        @Override
+        public void keyReleased(KeyEvent e) {
+            int action = toAction(e.getKeyCode());
+            if (action < 0) return;
+            if (engine == null) {
+                if (inputSink != null) inputSink.input(action, false);
+            } else {
+                input.keyReleased(action, eventTime(e));
+            }
+        }
+
+        private int toAction(int key) {
+            switch (key) {
+                case KeyEvent.VK_LEFT:
+                    return InputHandler.LEFT;
+                case KeyEvent.VK_RIGHT:
+                    return InputHandler.RIGHT;
+                case KeyEvent.VK_DOWN:
+                    return InputHandler.SOFT_DROP;
+                case KeyEvent.VK_UP:
+                case KeyEvent.VK_X:
+                    return InputHandler.ROTATE;
+                case KeyEvent.VK_Z:
+                    return InputHandler.ROTATE_CCW;
+                case KeyEvent.VK_SPACE:
+                    return InputHandler.HARD_DROP;
+                default:
+                    return -1;
+            }
+        }
+
+        // 把事件的系统时间换算到 nanoTime 时基，计入事件派发前的排队时间
+        private long eventTime(KeyEvent e) {
+            long queued = Math.max(0, System.currentTimeMillis() - e.getWhen());
+            return System.nanoTime() - queued * 1_000_000L;
+        }
+    }
+}
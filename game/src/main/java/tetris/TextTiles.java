@@ -0,0 +1,84 @@
+package tetris;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+/**
+ * 预渲染的文字贴图：几段固定文字和 0-9 各一张图。每帧都要画的得分、难度等文字直接贴图，
+ * 不再每帧拼字符串、走字体排版，绘制时不分配对象。字体和颜色构造时固定，
+ * 贴图在第一次绘制时按目标的 GraphicsConfiguration 建好。只在绘制线程使用。
+ */
+public class TextTiles {
+    private final Font font;
+    private final Color color;
+    private final String[] labels;
+    private final BufferedImage[] labelTiles;
+    private final int[] labelAdvances;
+    private final BufferedImage[] digitTiles = new BufferedImage[10];
+    private final int[] digitAdvances = new int[10];
+    private final int[] digits = new int[20];  // 拆数字用，long 最多 19 位
+    private int ascent = -1;
+
+    public TextTiles(Font font, Color color, String... labels) {
+        this.font = font;
+        this.color = color;
+        this.labels = labels.clone();
+        this.labelTiles = new BufferedImage[labels.length];
+        this.labelAdvances = new int[labels.length];
+    }
+
+    /**
+     * 把第 index 段固定文字画在基线 (x, baseline) 处。
+     * @return 文字末尾的 x，接着画数字用
+     */
+    public int drawLabel(Graphics g, int index, int x, int baseline) {
+        ensureTiles(g);
+        g.drawImage(labelTiles[index], x, baseline - ascent, null);
+        return x + labelAdvances[index];
+    }
+
+    // 画一个非负整数，返回末尾的 x
+    public int drawNumber(Graphics g, long value, int x, int baseline) {
+        ensureTiles(g);
+        int count = 0;
+        do {
+            digits[count++] = (int) (value % 10);
+            value /= 10;
+        } while (value > 0);
+        for (int i = count - 1; i >= 0; i--) {
+            g.drawImage(digitTiles[digits[i]], x, baseline - ascent, null);
+            x += digitAdvances[digits[i]];
+        }
+        return x;
+    }
+
+    private void ensureTiles(Graphics g) {
+        if (ascent >= 0) return;
+        FontMetrics fm = g.getFontMetrics(font);
+        ascent = fm.getAscent();
+        GraphicsConfiguration gc = g instanceof Graphics2D ? ((Graphics2D) g).getDeviceConfiguration() : null;
+        for (int i = 0; i < labels.length; i++) {
+            labelTiles[i] = render(gc, fm, labels[i]);
+            labelAdvances[i] = fm.stringWidth(labels[i]);
+        }
+        for (int d = 0; d < 10; d++) {
+            digitTiles[d] = render(gc, fm, String.valueOf(d));
+            digitAdvances[d] = fm.stringWidth(String.valueOf(d));
+        }
+    }
+
+    // 逐段贴图时按步进宽度前进，与整串绘制的位置一致；图比步进宽一些，免得粗体字形被切掉
+    private BufferedImage render(GraphicsConfiguration gc, FontMetrics fm, String text) {
+        int width = fm.stringWidth(text) + fm.getHeight() / 4 + 1;
+        int height = Math.max(1, fm.getAscent() + fm.getDescent());
+        BufferedImage image = gc != null
+                ? gc.createCompatibleImage(width, height, Transparency.TRANSLUCENT)
+                : new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics g = image.getGraphics();
+        g.setFont(font);
+        g.setColor(color);
+        g.drawString(text, 0, fm.getAscent());
+        g.dispose();
+        return image;
+    }
+}
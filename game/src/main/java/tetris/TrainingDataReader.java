@@ -0,0 +1,255 @@
+package tetris;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * 读取 TrainingDataWriter 导出的训练数据。每个数据块只读映射一次，按样本序号随机访问各列，
+ * 不把数据读进堆里。格式见 TrainingDataWriter。可被多个线程同时读取。
+ *
+ * 用法: java tetris.TrainingDataReader 文件    打印样本数和消行分布，并计时扫描一遍全部棋盘
+ */
+public class TrainingDataReader implements AutoCloseable {
+    private final FileChannel channel;
+    private final int width;
+    private final int height;
+    private final int wordsPerSample;
+    private final int chunkRows;
+    private final long size;
+    private final int games;
+    private final long[] starts;  // 每块第一条样本的序号，最后多一个等于 size
+    private final LongBuffer[] boards;
+    private final ByteBuffer[] columns;
+    private final int gameColumn;    // 各列在块内的起始字节
+    private final int scoreColumn;
+    private final int xColumn;
+    private final int yColumn;
+    private final int pieceColumn;
+    private final int moveColumn;
+
+    private TrainingDataReader(FileChannel channel) throws IOException {
+        this.channel = channel;
+        ByteBuffer header = ByteBuffer.allocate(TrainingDataWriter.HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        while (header.hasRemaining() && channel.read(header, header.position()) >= 0) {
+            // 读满为止
+        }
+        if (header.hasRemaining()) {
+            throw new IOException("训练数据文件太短");
+        }
+        header.flip();
+        if (header.getInt() != TrainingDataWriter.MAGIC) {
+            throw new IOException("不是训练数据文件");
+        }
+        int version = header.getShort();
+        if (version != TrainingDataWriter.VERSION) {
+            throw new IOException("不支持的训练数据版本: " + version);
+        }
+        width = header.getShort();
+        height = header.getShort();
+        header.getShort();
+        wordsPerSample = header.getInt();
+        chunkRows = header.getInt();
+        size = header.getLong();
+        long indexOffset = header.getLong();
+        int chunks = header.getInt();
+        games = header.getInt();
+        if (indexOffset == 0) {
+            throw new IOException("训练数据文件没有正常关闭");
+        }
+        long chunkBytes = (long) chunkRows * (wordsPerSample * 8 + TrainingDataWriter.ROW_EXTRA_BYTES);
+        gameColumn = chunkRows * wordsPerSample * 8;
+        scoreColumn = gameColumn + chunkRows * 4;
+        xColumn = scoreColumn + chunkRows * 4;
+        yColumn = xColumn + chunkRows * 2;
+        pieceColumn = yColumn + chunkRows * 2;
+        moveColumn = pieceColumn + chunkRows;
+        if (indexOffset != TrainingDataWriter.HEADER_SIZE + chunks * chunkBytes
+                || channel.size() < indexOffset + chunks * 4L) {
+            throw new IOException("训练数据索引损坏");
+        }
+        ByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset, chunks * 4L)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        starts = new long[chunks + 1];
+        boards = new LongBuffer[chunks];
+        columns = new ByteBuffer[chunks];
+        for (int i = 0; i < chunks; i++) {
+            int rows = index.getInt();
+            if (rows < 0 || rows > chunkRows) {
+                throw new IOException("训练数据索引损坏: 第 " + i + " 块 " + rows + " 行");
+            }
+            starts[i + 1] = starts[i] + rows;
+            MappedByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY,
+                    TrainingDataWriter.HEADER_SIZE + i * chunkBytes, chunkBytes);
+            map.order(ByteOrder.LITTLE_ENDIAN);
+            boards[i] = map.asLongBuffer();
+            columns[i] = map;
+        }
+        if (starts[chunks] != size) {
+            throw new IOException("训练数据索引与样本数不一致");
+        }
+    }
+
+    public static TrainingDataReader open(Path file) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            return new TrainingDataReader(channel);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    // 样本总数
+    public long size() {
+        return size;
+    }
+
+    public int getGameCount() {
+        return games;
+    }
+
+    public int getWordsPerSample() {
+        return wordsPerSample;
+    }
+
+    // 样本所在的块，块按样本序号递增排列
+    private int chunkOf(long index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("样本序号超出范围: " + index);
+        }
+        int chunk = Arrays.binarySearch(starts, index);
+        if (chunk < 0) return -chunk - 2;
+        // 空块与下一块起点相同，取最后一个起点等于 index 的块
+        while (starts[chunk + 1] == index) chunk++;
+        return chunk;
+    }
+
+    // 固定前棋盘位流的第 w 个字
+    public long getBoardWord(long index, int w) {
+        int chunk = chunkOf(index);
+        return boards[chunk].get(row(chunk, index) * wordsPerSample + w);
+    }
+
+    public boolean isOccupied(long index, int x, int y) {
+        long bit = (long) y * width + x;
+        return (getBoardWord(index, (int) (bit >>> 6)) & (1L << bit)) != 0;
+    }
+
+    // 把固定前的棋盘还原到 board 里（颜色统一为 1），board 尺寸必须相同
+    public void copyBoard(long index, Board board) {
+        if (board.getWidth() != width || board.getHeight() != height) {
+            throw new IllegalArgumentException("棋盘尺寸与训练数据不一致");
+        }
+        int chunk = chunkOf(index);
+        int base = row(chunk, index) * wordsPerSample;
+        board.clear();
+        for (int w = 0; w < wordsPerSample; w++) {
+            long bits = boards[chunk].get(base + w);
+            while (bits != 0) {
+                long bit = (long) w * 64 + Long.numberOfTrailingZeros(bits);
+                board.set((int) (bit % width), (int) (bit / width), 1);
+                bits &= bits - 1;
+            }
+        }
+    }
+
+    private int row(int chunk, long index) {
+        return (int) (index - starts[chunk]);
+    }
+
+    public int getGame(long index) {
+        int chunk = chunkOf(index);
+        return columns[chunk].getInt(gameColumn + row(chunk, index) * 4);
+    }
+
+    // 这一手得的分
+    public int getScore(long index) {
+        int chunk = chunkOf(index);
+        return columns[chunk].getInt(scoreColumn + row(chunk, index) * 4);
+    }
+
+    public int getX(long index) {
+        int chunk = chunkOf(index);
+        return columns[chunk].getShort(xColumn + row(chunk, index) * 2);
+    }
+
+    public int getY(long index) {
+        int chunk = chunkOf(index);
+        return columns[chunk].getShort(yColumn + row(chunk, index) * 2);
+    }
+
+    public int getShape(long index) {
+        int chunk = chunkOf(index);
+        return columns[chunk].get(pieceColumn + row(chunk, index)) & 0x0F;
+    }
+
+    // 下一块的形状，没有预览时为 -1
+    public int getNextShape(long index) {
+        int chunk = chunkOf(index);
+        int next = (columns[chunk].get(pieceColumn + row(chunk, index)) >>> 4) & 0x0F;
+        return next == TrainingDataWriter.NO_SHAPE ? -1 : next;
+    }
+
+    public int getRotation(long index) {
+        int chunk = chunkOf(index);
+        return columns[chunk].get(moveColumn + row(chunk, index)) & 3;
+    }
+
+    // 这一手消的行数
+    public int getLines(long index) {
+        int chunk = chunkOf(index);
+        return (columns[chunk].get(moveColumn + row(chunk, index)) & 0xFF) >>> 2;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("用法: java tetris.TrainingDataReader 文件");
+            return;
+        }
+        try (TrainingDataReader reader = open(Paths.get(args[0]))) {
+            System.out.printf("棋盘 %dx%d  样本 %d  对局 %d  数据块 %d%n", reader.width, reader.height,
+                    reader.size, reader.games, reader.boards.length);
+            long[] lines = new long[5];
+            long cells = 0;
+            long start = System.nanoTime();
+            for (int chunk = 0; chunk < reader.boards.length; chunk++) {
+                LongBuffer board = reader.boards[chunk];
+                ByteBuffer column = reader.columns[chunk];
+                int moves = reader.moveColumn;
+                int rows = (int) (reader.starts[chunk + 1] - reader.starts[chunk]);
+                for (int r = 0; r < rows; r++) {
+                    lines[Math.min(4, (column.get(moves + r) & 0xFF) >>> 2)]++;
+                    for (int w = 0; w < reader.wordsPerSample; w++) {
+                        cells += Long.bitCount(board.get(r * reader.wordsPerSample + w));
+                    }
+                }
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf("消行: 0 行 %d  1 行 %d  2 行 %d  3 行 %d  4 行 %d%n",
+                    lines[0], lines[1], lines[2], lines[3], lines[4]);
+            System.out.printf("平均每个棋盘 %.1f 格  扫描 %.0f 样本/秒%n",
+                    reader.size == 0 ? 0 : (double) cells / reader.size, reader.size / Math.max(seconds, 1e-9));
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package tetris;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 训练数据导出：每固定一个方块记一条样本（固定前的棋盘、当前方块、下一块、最终落点、
+ * 这一手消的行数和得分），写成按块分列的二进制文件，读取端用 TrainingDataReader 内存映射后零拷贝随机访问。
+ *
+ * 文件格式（小端，方便 numpy 等直接映射；版本 1）:
+ *   头部 HEADER_SIZE 字节  magic "TDS1", short 版本, short 棋盘宽, short 棋盘高, short 保留,
+ *                          int 每条样本的棋盘字数, int 每块行数, long 样本数, long 索引偏移, int 块数, int 对局数
+ *   数据块  每块容量固定为 chunkRows 行，块内按列存放:
+ *           棋盘   每条 wordsPerSample 个 long，第 y 行第 x 列是第 y * 宽 + x 位
+ *           对局   int，同一个文件里的对局编号
+ *           得分   int，这一手得的分
+ *           x, y   short，落点游标坐标
+ *           方块   byte，低 4 位当前形状，高 4 位下一块形状（没有预览时为 15）
+ *           动作   byte，低 2 位朝向，其余位消行数
+ *   索引    每块一个 int 实际行数；样本数和索引偏移在关闭时回填，未正常关闭的文件索引偏移为 0
+ *
+ * 每个产生样本的线程用自己的 Session：样本先写进堆上按列排好的批次，攒满一块交给后台线程，
+ * 同时换另一个批次继续写，模拟线程不碰磁盘。后台线程把批次按块布局拼进一个复用的直接缓冲区，
+ * 一次按位置写进文件；写端不做映射，往新映射的文件区域逐页缺页写入比一次写入慢好几倍。
+ */
+public class TrainingDataWriter implements AutoCloseable {
+    static final int MAGIC = 0x54445331;  // "TDS1"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    static final int NO_SHAPE = 15;
+    static final int ROW_EXTRA_BYTES = 4 + 4 + 2 + 2 + 1 + 1;  // 棋盘以外各列每行的字节数
+    private static final int TARGET_CHUNK_BYTES = 1 << 20;
+    private static final int MAX_CHUNK_ROWS = 1 << 14;
+
+    private final FileChannel channel;
+    private final int width;
+    private final int height;
+    private final int wordsPerSample;
+    private final int chunkRows;
+    private final long chunkBytes;
+    private final ExecutorService flusher;
+    private final AtomicInteger games = new AtomicInteger();
+    private final List<Session> sessions = new ArrayList<>();
+    private volatile boolean closed;
+
+    // 以下只由后台线程访问
+    private int chunkCount;
+    private long sampleCount;
+    private int[] chunkSizes = new int[64];
+    private ByteBuffer chunkBuffer;
+
+    public TrainingDataWriter(Path file, int width, int height) throws IOException {
+        this.width = width;
+        this.height = height;
+        this.wordsPerSample = (int) (((long) width * height + 63) >>> 6);
+        int rowBytes = wordsPerSample * 8 + ROW_EXTRA_BYTES;
+        // 每块约 1 MB，行数取 64 的倍数，列的起点都按 8 字节对齐
+        this.chunkRows = Math.max(64, Math.min(MAX_CHUNK_ROWS, TARGET_CHUNK_BYTES / rowBytes) & ~63);
+        this.chunkBytes = (long) chunkRows * rowBytes;
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        writeHeader(0, 0);
+        this.flusher = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "training-data-writer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public int getChunkRows() {
+        return chunkRows;
+    }
+
+    /**
+     * 新建一个写入会话。一个会话只能由一个线程使用，例如一个引擎或一个模拟线程。
+     */
+    public synchronized Session newSession() {
+        if (closed) {
+            throw new IllegalStateException("训练数据文件已关闭");
+        }
+        Session session = new Session();
+        sessions.add(session);
+        return session;
+    }
+
+    /**
+     * 写出所有会话里剩下的样本，回填索引和头部后关闭文件。调用时各会话不能再有写入。
+     */
+    @Override
+    public void close() throws IOException {
+        List<Session> open;
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            open = new ArrayList<>(sessions);
+        }
+        for (Session session : open) {
+            session.flush();
+        }
+        flusher.shutdown();
+        try {
+            if (!flusher.awaitTermination(1, TimeUnit.MINUTES)) {
+                throw new IOException("训练数据写入超时");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("等待训练数据写入时被中断", e);
+        }
+        long indexOffset = HEADER_SIZE + chunkCount * chunkBytes;
+        ByteBuffer index = ByteBuffer.allocate(chunkCount * 4).order(ByteOrder.LITTLE_ENDIAN);
+        for (int i = 0; i < chunkCount; i++) {
+            index.putInt(chunkSizes[i]);
+        }
+        index.flip();
+        writeFully(index, indexOffset);
+        channel.truncate(indexOffset + chunkCount * 4L);
+        writeHeader(sampleCount, indexOffset);
+        channel.force(true);
+        channel.close();
+    }
+
+    private void writeHeader(long samples, long indexOffset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(MAGIC);
+        header.putShort((short) VERSION);
+        header.putShort((short) width);
+        header.putShort((short) height);
+        header.putShort((short) 0);
+        header.putInt(wordsPerSample);
+        header.putInt(chunkRows);
+        header.putLong(samples);
+        header.putLong(indexOffset);
+        header.putInt(chunkCount);
+        header.putInt(games.get());
+        header.clear();
+        writeFully(header, 0);
+    }
+
+    private void writeFully(ByteBuffer data, long position) throws IOException {
+        while (data.hasRemaining()) {
+            position += channel.write(data, position);
+        }
+    }
+
+    // 后台线程：给批次分配下一块，按列拼好后写入
+    private void writeChunk(Batch batch) throws IOException {
+        int chunk = chunkCount++;
+        if (chunk == chunkSizes.length) {
+            chunkSizes = Arrays.copyOf(chunkSizes, chunk * 2);
+        }
+        chunkSizes[chunk] = batch.count;
+        sampleCount += batch.count;
+        if (chunkBuffer == null) {
+            chunkBuffer = ByteBuffer.allocateDirect((int) chunkBytes).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        ByteBuffer out = chunkBuffer;
+        out.clear();
+        int n = batch.count;
+        int c = chunkRows;
+        if (n < c) {
+            // 不满的块列之间留有空位，清零以免留下上一块的内容
+            while (out.remaining() >= 8) out.putLong(0);
+            while (out.hasRemaining()) out.put((byte) 0);
+            out.clear();
+        }
+        out.asLongBuffer().put(batch.board, 0, n * wordsPerSample);
+        int offset = c * wordsPerSample * 8;
+        out.position(offset);
+        out.asIntBuffer().put(batch.game, 0, n);
+        offset += c * 4;
+        out.position(offset);
+        out.asIntBuffer().put(batch.score, 0, n);
+        offset += c * 4;
+        out.position(offset);
+        out.asShortBuffer().put(batch.x, 0, n);
+        offset += c * 2;
+        out.position(offset);
+        out.asShortBuffer().put(batch.y, 0, n);
+        offset += c * 2;
+        out.position(offset);
+        out.put(batch.piece, 0, n);
+        offset += c;
+        out.position(offset);
+        out.put(batch.move, 0, n);
+        // 不满的块也按整块写出，块的位置才能由序号算出
+        out.clear();
+        writeFully(out, HEADER_SIZE + chunk * chunkBytes);
+    }
+
+    // 一块的样本，按列排好，与文件里的块布局一致
+    private final class Batch {
+        final long[] board = new long[chunkRows * wordsPerSample];
+        final int[] game = new int[chunkRows];
+        final int[] score = new int[chunkRows];
+        final short[] x = new short[chunkRows];
+        final short[] y = new short[chunkRows];
+        final byte[] piece = new byte[chunkRows];
+        final byte[] move = new byte[chunkRows];
+        int count;
+    }
+
+    /**
+     * 单线程的写入端，由 TetrisEngine 在固定方块时调用。两个批次轮换：
+     * 一个交给后台写盘时另一个继续接收样本，后台跟不上时才会等待。
+     */
+    public final class Session {
+        private Batch current = new Batch();
+        private Batch spare = new Batch();
+        private Future<?> pending;
+        private Batch sampleBatch;  // beginSample 写入的批次
+        private int game = -1;
+        private int scoreBefore;
+        private int linesBefore;
+
+        // 新的一局开始
+        void beginGame() {
+            game = games.getAndIncrement();
+        }
+
+        /**
+         * 方块固定之前记下棋盘、方块和下一块，写在批次已提交行之后的空位上。
+         * 这里不加锁：关闭时并发的 flush() 只拷贝已提交的行，不会读到写了一半的样本。
+         * @param next 下一块的形状，没有预览时为负数
+         */
+        void beginSample(Board board, Block block, int next, int score, int lines) {
+            if (closed) return;  // 关闭之后还在跑的对局不再记录
+            if (game < 0) beginGame();
+            Batch b = current;
+            sampleBatch = b;
+            int row = b.count;
+            packBoard(board, b.board, row * wordsPerSample);
+            b.game[row] = game;
+            b.x[row] = (short) block.x;
+            b.y[row] = (short) block.y;
+            b.piece[row] = (byte) (block.shape | (next < 0 ? NO_SHAPE : next) << 4);
+            b.move[row] = (byte) block.rotation;
+            scoreBefore = score;
+            linesBefore = lines;
+        }
+
+        // 消行结算之后补上这一手的结果，样本到这里才算提交；其间批次被 flush() 换走时丢弃这条
+        synchronized void endSample(int score, int lines) {
+            Batch b = current;
+            if (closed || b != sampleBatch) return;
+            int row = b.count;
+            b.score[row] = score - scoreBefore;
+            b.move[row] |= (byte) (Math.min(63, lines - linesBefore) << 2);
+            b.count = row + 1;
+            if (b.count == chunkRows) {
+                submit();
+            }
+        }
+
+        // 把当前批次交给后台，等上一次提交的批次写完后换它回来
+        private void submit() {
+            if (current.count == 0) return;
+            await();
+            Batch full = current;
+            current = spare;
+            spare = full;
+            pending = flusher.submit(() -> {
+                writeChunk(full);
+                return null;
+            });
+        }
+
+        private void await() {
+            if (pending == null) return;
+            try {
+                pending.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("等待训练数据写入时被中断", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("训练数据写入失败: " + e.getCause().getMessage(), e.getCause());
+            }
+            pending = null;
+            spare.count = 0;
+        }
+
+        // 不满一块的样本也写出去，之后会话仍可继续使用
+        synchronized void flush() {
+            submit();
+            await();
+        }
+
+        /**
+         * 把棋盘逐行拼成位流：第 y 行第 x 列是第 y * 宽 + x 位。堆叠顶部以上都是空行，
+         * 之后的行在寄存器里拼满 64 位才写出一个字，每个字只写一次。
+         */
+        private void packBoard(Board board, long[] dest, int offset) {
+            int rowWords = board.getWordsPerRow();
+            long start = (long) board.getTop() * width;
+            int out = offset + (int) (start >>> 6);
+            Arrays.fill(dest, offset, out, 0);
+            int filled = (int) (start & 63);
+            long acc = 0;
+            for (int y = board.getTop(); y < height; y++) {
+                for (int w = 0; w < rowWords; w++) {
+                    long bits = board.getWord(y, w);
+                    int n = Math.min(64, width - w * 64);
+                    acc |= bits << filled;
+                    if (filled + n >= 64) {
+                        dest[out++] = acc;
+                        acc = filled == 0 ? 0 : bits >>> (64 - filled);
+                        filled += n - 64;
+                    } else {
+                        filled += n;
+                    }
+                }
+            }
+            int end = offset + wordsPerSample;
+            if (out < end) {
+                dest[out++] = acc;
+                Arrays.fill(dest, out, end, 0);
+            }
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package tetris;
+
+import java.util.Arrays;
+
+/**
+ * 固定容量的置换表：直接映射，冲突时新条目覆盖旧条目。
+ * 用并列的原始类型数组保存，查询和写入都不分配对象。
+ */
+public class TranspositionTable {
+    private final long[] keys;
+    private final double[] values;
+    private final int mask;
+    private long hits;
+    private long misses;
+
+    // capacity 向上取整为 2 的幂
+    public TranspositionTable(int capacity) {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        keys = new long[size];
+        values = new double[size];
+        mask = size - 1;
+    }
+
+    // 未命中时返回 NaN
+    public double get(long key) {
+        int index = index(key);
+        if (keys[index] == (key | 1)) {
+            hits++;
+            return values[index];
+        }
+        misses++;
+        return Double.NaN;
+    }
+
+    public void put(long key, double value) {
+        int index = index(key);
+        keys[index] = key | 1;  // 保证非零，0 表示空槽
+        values[index] = value;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0);
+        hits = 0;
+        misses = 0;
+    }
+
+    private int index(long key) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+}
@@ -0,0 +1,37 @@
+package tetris;
+
+import java.nio.ByteBuffer;
+
+// 均匀随机的方块序列
+public class UniformGenerator implements PieceGenerator {
+    private final SplitMix64 random;
+
+    public UniformGenerator(long seed) {
+        random = new SplitMix64(seed);
+    }
+
+    @Override
+    public int getType() {
+        return TYPE_UNIFORM;
+    }
+
+    @Override
+    public int next() {
+        return random.nextInt(Block.SHAPE_COUNT);
+    }
+
+    @Override
+    public void reset(long seed) {
+        random.setState(seed);
+    }
+
+    @Override
+    public void writeState(ByteBuffer out) {
+        out.putLong(random.getState());
+    }
+
+    @Override
+    public void readState(ByteBuffer in) {
+        random.setState(in.getLong());
+    }
+}
@@ -0,0 +1,280 @@
+package tetris;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * 用进化策略调优 Heuristic 的权重向量。算法是对角协方差的 CMA-ES 简化版：
+ * 每代采样 λ 个候选，按排名加权重组前 μ 个，更新均值、逐维方差和全局步长。
+ * 每个候选在同一批种子上无界面对局，所有对局在 ForkJoinPool 上并行执行。
+ * 好的权重在方块上限内几乎不会输，只比消行数很快就拉不开差距，见 fitness()。
+ * 每代结束后把种群状态写入检查点（先写临时文件再原子改名），可用 --resume 续跑。
+ *
+ * 用法: java tetris.WeightTuner [--generations N] [--population λ] [--games G]
+ *                                [--max-pieces P] [--depth D] [--seed S] [--threads T]
+ *                                [--checkpoint 文件] [--resume]
+ */
+public class WeightTuner {
+    private static final int CHECKPOINT_MAGIC = 0x54575431;  // "TWT1"
+    private static final int CHECKPOINT_VERSION = 1;
+    private static final int DIM = Heuristic.FEATURE_COUNT;
+
+    private int generations = 50;
+    private int population = 16;
+    private int gamesPerCandidate = 8;
+    private int maxPieces = 5000;
+    private int depth = 1;
+    private long seed = 1;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private Path checkpoint = Paths.get("tuner.ckpt");
+    private boolean resume = false;
+
+    // 进化状态，全部写入检查点
+    private int generation;
+    private final double[] mean = Heuristic.DEFAULT_WEIGHTS.clone();
+    private final double[] variance = new double[DIM];
+    private final double[] path = new double[DIM];
+    private double sigma = 0.3;
+    private final double[] bestWeights = Heuristic.DEFAULT_WEIGHTS.clone();
+    private double bestFitness = Double.NEGATIVE_INFINITY;
+    private final SplitMix64 random = new SplitMix64(0);
+    private int survivors;  // 本代跑到方块上限还活着的局数，只用于输出
+
+    public static void main(String[] args) throws Exception {
+        WeightTuner tuner = new WeightTuner();
+        tuner.parseArgs(args);
+        tuner.run();
+    }
+
+    private void parseArgs(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--generations":
+                    generations = Integer.parseInt(args[++i]);
+                    break;
+                case "--population":
+                    population = Integer.parseInt(args[++i]);
+                    break;
+                case "--games":
+                    gamesPerCandidate = Integer.parseInt(args[++i]);
+                    break;
+                case "--max-pieces":
+                    maxPieces = Integer.parseInt(args[++i]);
+                    break;
+                case "--depth":
+                    depth = Integer.parseInt(args[++i]);
+                    break;
+                case "--seed":
+                    seed = Long.parseLong(args[++i]);
+                    break;
+                case "--threads":
+                    threads = Integer.parseInt(args[++i]);
+                    break;
+                case "--checkpoint":
+                    checkpoint = Paths.get(args[++i]);
+                    break;
+                case "--resume":
+                    resume = true;
+                    break;
+                default:
+                    throw new IllegalArgumentException("未知参数: " + args[i]);
+            }
+        }
+    }
+
+    private void run() throws IOException, InterruptedException, ExecutionException {
+        if (population < 2) {
+            // μ = λ/2 至少要有一个候选参与重组，否则均值和步长的更新全是 NaN
+            throw new IllegalArgumentException("种群大小至少为 2: " + population);
+        }
+        if (gamesPerCandidate < 1 || maxPieces < 1) {
+            throw new IllegalArgumentException("--games 和 --max-pieces 必须大于 0: "
+                    + gamesPerCandidate + ", " + maxPieces);
+        }
+        if (resume && Files.exists(checkpoint)) {
+            loadCheckpoint();
+            System.out.printf("从检查点恢复: 第 %d 代, 最佳适应度 %.2f%n", generation, bestFitness);
+        } else {
+            Arrays.fill(variance, 1.0);
+            random.setState(seed);
+        }
+
+        int mu = population / 2;
+        double[] recombination = new double[mu];
+        double sum = 0;
+        for (int i = 0; i < mu; i++) {
+            recombination[i] = Math.log(mu + 0.5) - Math.log(i + 1);
+            sum += recombination[i];
+        }
+        double muEff = 0;
+        for (int i = 0; i < mu; i++) {
+            recombination[i] /= sum;
+            muEff += recombination[i] * recombination[i];
+        }
+        muEff = 1 / muEff;
+        double cSigma = (muEff + 2) / (DIM + muEff + 5);
+        double dSigma = 1 + cSigma;
+        double cVar = 2 / ((DIM + 1.3) * (DIM + 1.3) + muEff);
+        double expectedNorm = Math.sqrt(DIM) * (1 - 1.0 / (4 * DIM) + 1.0 / (21 * DIM * DIM));
+
+        double[][] z = new double[population][DIM];
+        double[][] candidates = new double[population][DIM];
+        Integer[] order = new Integer[population];
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            while (generation < generations) {
+                for (int k = 0; k < population; k++) {
+                    for (int d = 0; d < DIM; d++) {
+                        z[k][d] = gaussian();
+                        candidates[k][d] = mean[d] + sigma * Math.sqrt(variance[d]) * z[k][d];
+                    }
+                }
+
+                long start = System.nanoTime();
+                survivors = 0;
+                double[] fitness = evaluate(pool, candidates);
+                double seconds = (System.nanoTime() - start) / 1e9;
+
+                for (int k = 0; k < population; k++) order[k] = k;
+                Arrays.sort(order, (a, b) -> Double.compare(fitness[b], fitness[a]));
+                if (fitness[order[0]] > bestFitness) {
+                    bestFitness = fitness[order[0]];
+                    System.arraycopy(candidates[order[0]], 0, bestWeights, 0, DIM);
+                }
+
+                // 重组均值，并用加权步长更新进化路径和逐维方差
+                double pathNorm = 0;
+                for (int d = 0; d < DIM; d++) {
+                    double zw = 0;
+                    double zz = 0;
+                    for (int i = 0; i < mu; i++) {
+                        double zi = z[order[i]][d];
+                        zw += recombination[i] * zi;
+                        zz += recombination[i] * zi * zi;
+                    }
+                    mean[d] += sigma * Math.sqrt(variance[d]) * zw;
+                    path[d] = (1 - cSigma) * path[d] + Math.sqrt(cSigma * (2 - cSigma) * muEff) * zw;
+                    pathNorm += path[d] * path[d];
+                    variance[d] = (1 - cVar) * variance[d] + cVar * variance[d] * zz;
+                }
+                sigma *= Math.exp((cSigma / dSigma) * (Math.sqrt(pathNorm) / expectedNorm - 1));
+
+                int games = population * gamesPerCandidate;
+                System.out.printf("第 %d 代: 最佳 %.2f  中位 %.2f  历史最佳 %.2f  sigma %.4f  封顶 %d/%d 局"
+                                + "  %.2f s (%.0f 局/秒)%n",
+                        generation + 1, fitness[order[0]], fitness[order[population / 2]],
+                        bestFitness, sigma, survivors, games, seconds, games / seconds);
+                System.out.println("  均值权重: " + Arrays.toString(mean));
+
+                generation++;
+                saveCheckpoint();
+            }
+        } finally {
+            pool.shutdown();
+        }
+        System.out.println("最佳权重: " + Arrays.toString(bestWeights));
+    }
+
+    /**
+     * 并行评估所有候选：适应度为同一批种子上各局 fitness() 的平均值。
+     * 种子随代数变化，避免权重过拟合到固定的方块序列。
+     */
+    private double[] evaluate(ForkJoinPool pool, double[][] candidates)
+            throws InterruptedException, ExecutionException {
+        long generationSeed = seed * 1_000_003L + generation;
+        BatchRunner.GameResult[] results = pool.submit(() -> IntStream.range(0, population * gamesPerCandidate)
+                .parallel()
+                .mapToObj(task -> {
+                    int candidate = task / gamesPerCandidate;
+                    long gameSeed = generationSeed * 31 + task % gamesPerCandidate;
+                    SearchPolicy policy = new SearchPolicy(new Heuristic(candidates[candidate]), depth, 1 << 12);
+                    return BatchRunner.playGame(policy, PieceGenerator.bag(gameSeed),
+                            Difficulty.EASY, gameSeed, maxPieces);
+                })
+                .toArray(BatchRunner.GameResult[]::new)).get();
+        double[] fitness = new double[population];
+        for (int task = 0; task < results.length; task++) {
+            fitness[task / gamesPerCandidate] += fitness(results[task]);
+            if (!results[task].gameOver) survivors++;
+        }
+        for (int k = 0; k < population; k++) {
+            fitness[k] /= gamesPerCandidate;
+        }
+        return fitness;
+    }
+
+    /**
+     * 单局适应度：消行数为主，输掉的局不再加分。跑到方块上限还活着的局消行数都差不多，
+     * 再按结束时的堆叠高度和空洞数加一个不到一行的分数，棋面越干净越高，让封顶的候选之间仍分得出高下。
+     */
+    static double fitness(BatchRunner.GameResult result) {
+        if (result.gameOver) return result.lines;
+        return result.lines + 1.0 / (2 + result.stackHeight + result.holes);
+    }
+
+    // Box-Muller 变换生成标准正态分布
+    private double gaussian() {
+        double u1 = (random.nextLong() >>> 11) * 0x1.0p-53;
+        double u2 = (random.nextLong() >>> 11) * 0x1.0p-53;
+        return Math.sqrt(-2 * Math.log(1 - u1)) * Math.cos(2 * Math.PI * u2);
+    }
+
+    private void saveCheckpoint() throws IOException {
+        Path tmp = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+        try (OutputStream os = Files.newOutputStream(tmp);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os))) {
+            out.writeInt(CHECKPOINT_MAGIC);
+            out.writeInt(CHECKPOINT_VERSION);
+            out.writeInt(DIM);
+            out.writeInt(generation);
+            out.writeLong(seed);
+            out.writeDouble(sigma);
+            out.writeLong(random.getState());
+            out.writeDouble(bestFitness);
+            for (int d = 0; d < DIM; d++) {
+                out.writeDouble(mean[d]);
+                out.writeDouble(variance[d]);
+                out.writeDouble(path[d]);
+                out.writeDouble(bestWeights[d]);
+            }
+        }
+        Files.move(tmp, checkpoint, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void loadCheckpoint() throws IOException {
+        try (InputStream is = Files.newInputStream(checkpoint);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(is))) {
+            if (in.readInt() != CHECKPOINT_MAGIC || in.readInt() != CHECKPOINT_VERSION) {
+                throw new IOException("不是可识别的检查点文件: " + checkpoint);
+            }
+            if (in.readInt() != DIM) {
+                throw new IOException("检查点的权重维数不匹配: " + checkpoint);
+            }
+            generation = in.readInt();
+            seed = in.readLong();
+            sigma = in.readDouble();
+            random.setState(in.readLong());
+            bestFitness = in.readDouble();
+            for (int d = 0; d < DIM; d++) {
+                mean[d] = in.readDouble();
+                variance[d] = in.readDouble();
+                path[d] = in.readDouble();
+                bestWeights[d] = in.readDouble();
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package tetris;
+
+/**
+ * 棋面的 Zobrist 哈希：每个格子一个随机 64 位键，占用格子的键异或起来
+ * 就是棋面哈希。另为 (形状, 剩余搜索深度) 准备键，以便置换表区分上下文。
+ */
+public class ZobristTable {
+    private final int width;
+    private final long[] cellKeys;
+    private final long[][] pieceKeys;
+
+    public ZobristTable(int width, int height, int maxDepth, long seed) {
+        this.width = width;
+        SplitMix64 random = new SplitMix64(seed);
+        cellKeys = new long[width * height];
+        for (int i = 0; i < cellKeys.length; i++) {
+            cellKeys[i] = random.nextLong();
+        }
+        pieceKeys = new long[Block.SHAPE_COUNT][maxDepth + 1];
+        for (int s = 0; s < Block.SHAPE_COUNT; s++) {
+            for (int d = 0; d <= maxDepth; d++) {
+                pieceKeys[s][d] = random.nextLong();
+            }
+        }
+    }
+
+    // 只遍历堆叠顶部以下的行
+    public long hash(Board board) {
+        long h = 0;
+        int wordsPerRow = board.getWordsPerRow();
+        for (int y = board.getTop(); y < board.getHeight(); y++) {
+            for (int w = 0; w < wordsPerRow; w++) {
+                long row = board.getWord(y, w);
+                int base = y * width + (w << 6);
+                while (row != 0) {
+                    h ^= cellKeys[base + Long.numberOfTrailingZeros(row)];
+                    row &= row - 1;
+                }
+            }
+        }
+        return h;
+    }
+
+    public long pieceKey(int shape, int depth) {
+        return pieceKeys[shape][depth];
+    }
+}
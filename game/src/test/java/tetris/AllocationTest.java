@@ -0,0 +1,132 @@
+package tetris;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 稳态分配检查：在一个线程里依次重现 EDT、逻辑线程和渲染线程每一步的工作——模拟按键入队、
+ * InputHandler 消费按键、引擎推进重力、发布渲染快照、把快照离屏画进缓存图——
+ * 用线程分配计数统计预热之后这段时间分配的字节数，超过预算构建即失败。
+ *
+ * 按键由搜索型自动玩家驱动：每块先选好落点，再像玩家一样一次按一个键转到位、移到位后硬降。
+ * 每 5 秒一次的自动存档、对局结束时的记分与录像、F3 性能浮层都不属于稳态，不在检查范围内。
+ */
+class AllocationTest {
+    private static final int TICKS = 20_000;
+    private static final int WARMUP = 20_000;
+    private static final int BLOCK_SIZE = 30;
+    // JDK 软件贴图路径里的 Rectangle 偶尔逃过逃逸分析，两万步里会冒出几十到几百字节；
+    // 1 字节/步足以容下它，每帧哪怕多拼一个字符串也会超出
+    private static final double BUDGET = 1;
+
+    private static com.sun.management.ThreadMXBean threads;
+    private static AllocationTest driver;
+
+    private final TetrisEngine engine;
+    private final TetrisPanel panel;
+    private final InputHandler input;
+    private final Graphics2D graphics;
+    private final SearchPolicy policy = new SearchPolicy();
+    private final Placement target = new Placement();
+    private final SplitMix64 seeds = new SplitMix64(42);
+    private int plannedPiece = -1;
+    private int heldAction = -1;
+
+    AllocationTest() {
+        engine = new TetrisEngine(PieceGenerator.bag(seeds.nextLong()), 1);
+        panel = new TetrisPanel(engine);
+        engine.setRecorder(null);  // 检查不写录像
+        panel.enableGameLoop(0);
+        panel.setSize((engine.getBoard().getWidth() + 5) * BLOCK_SIZE, engine.getBoard().getHeight() * BLOCK_SIZE);
+        input = panel.getInputHandler();
+        BufferedImage image = new BufferedImage(panel.getWidth(), panel.getHeight(), BufferedImage.TYPE_INT_RGB);
+        graphics = image.createGraphics();
+        engine.start(seeds.nextLong());
+    }
+
+    @BeforeAll
+    static void warmUp() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue(bean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported(),
+                "这个 JVM 不支持按线程统计分配量");
+        threads = (com.sun.management.ThreadMXBean) bean;
+        threads.setThreadAllocatedMemoryEnabled(true);
+        driver = new AllocationTest();
+        // 预热让 JIT 编译热点方法，缓存图和贴图在这期间建好
+        driver.run(WARMUP, true);
+    }
+
+    @Test
+    void logicTicksDoNotAllocate() {
+        long bytes = driver.run(TICKS, false);
+        assertTrue((double) bytes / TICKS <= BUDGET, "逻辑步 " + TICKS + " 步共分配 " + bytes + " 字节");
+    }
+
+    @Test
+    void renderedTicksDoNotAllocate() {
+        long bytes = driver.run(TICKS, true);
+        assertTrue((double) bytes / TICKS <= BUDGET, "逻辑步 + 绘制 " + TICKS + " 步共分配 " + bytes + " 字节");
+    }
+
+    /**
+     * 跑 ticks 个逻辑步，render 为 true 时每步画一帧。
+     * @return 期间当前线程分配的字节数
+     */
+    private long run(int ticks, boolean render) {
+        long thread = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        for (int i = 0; i < ticks; i++) {
+            pressKeys();
+            panel.tickOffscreen();
+            if (render) {
+                panel.renderOffscreen(graphics, (i & 7) / 8.0);
+            }
+            if (engine.isGameOver()) {
+                engine.start(seeds.nextLong());
+            }
+        }
+        return threads.getThreadAllocatedBytes(thread) - before;
+    }
+
+    // 每两个逻辑步按下或松开一个键，与人手的速度相当
+    private void pressKeys() {
+        long now = System.nanoTime();
+        if (heldAction >= 0) {
+            input.keyReleased(heldAction, now);
+            heldAction = -1;
+            return;
+        }
+        Block block = engine.getCurrentBlock();
+        if (block == null) return;
+        if (plannedPiece != engine.getPiecesPlaced()) {
+            plannedPiece = engine.getPiecesPlaced();
+            if (!policy.choose(engine, target)) {
+                target.set(block.rotation, block.x, block.y);
+            }
+        }
+        int action;
+        if (block.rotation != target.rotation) {
+            action = ((block.rotation + 3) & 3) == target.rotation ? InputHandler.ROTATE_CCW : InputHandler.ROTATE;
+        } else if (block.x < target.x) {
+            action = InputHandler.RIGHT;
+        } else if (block.x > target.x) {
+            action = InputHandler.LEFT;
+        } else if (engine.getGhostY() == target.y) {
+            action = InputHandler.HARD_DROP;
+        } else {
+            // 要软降后横移才能塞进去的落点，和 SpectatorWall 一样直接放到位
+            if (!engine.place(target)) engine.hardDrop();
+            return;
+        }
+        input.keyPressed(action, now);
+        heldAction = action;
+    }
+}
@@ -0,0 +1,96 @@
+package tetris;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Paths;
+import java.util.zip.CRC32;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 7-bag 存档恢复：合法状态续出相同序列，损坏的袋子在读档时就被拒绝。
+ */
+class BagGeneratorTest {
+    private static final int STATE_SIZE = 8 + 1 + Block.SHAPE_COUNT;
+
+    // 发到袋子中间时的状态
+    private static BagGenerator midBag() {
+        BagGenerator generator = new BagGenerator(5);
+        for (int i = 0; i < 10; i++) {
+            generator.next();
+        }
+        return generator;
+    }
+
+    private static ByteBuffer state(BagGenerator generator) {
+        ByteBuffer out = ByteBuffer.allocate(STATE_SIZE);
+        generator.writeState(out);
+        out.flip();
+        return out;
+    }
+
+    @Test
+    void restoredBagContinuesSequence() {
+        BagGenerator original = midBag();
+        BagGenerator restored = new BagGenerator(0);
+        restored.readState(state(original));
+        for (int i = 0; i < 30; i++) {
+            assertEquals(original.next(), restored.next());
+        }
+    }
+
+    @Test
+    void rejectsCorruptBag() {
+        ByteBuffer outOfRange = state(midBag());
+        outOfRange.put(9, (byte) Block.SHAPE_COUNT);
+        assertThrows(IllegalStateException.class, () -> new BagGenerator(0).readState(outOfRange));
+
+        ByteBuffer negative = state(midBag());
+        negative.put(10, (byte) -1);
+        assertThrows(IllegalStateException.class, () -> new BagGenerator(0).readState(negative));
+
+        ByteBuffer duplicate = state(midBag());
+        duplicate.put(9, duplicate.get(10));
+        assertThrows(IllegalStateException.class, () -> new BagGenerator(0).readState(duplicate));
+
+        ByteBuffer position = state(midBag());
+        position.put(8, (byte) (Block.SHAPE_COUNT + 1));
+        assertThrows(IllegalStateException.class, () -> new BagGenerator(0).readState(position));
+    }
+
+    @Test
+    void corruptBagInValidSaveFailsToLoad() throws IOException {
+        TetrisEngine engine = new TetrisEngine(PieceGenerator.bag(3), 1);
+        engine.start(3);
+        for (int i = 0; i < 3; i++) {
+            engine.hardDrop();
+        }
+        byte[] save = new SaveFile(Paths.get("unused")).encode(engine);
+        SaveFile.decode(ByteBuffer.wrap(save.clone()));
+
+        // 在存档里找到生成器状态，把袋子里两个形状改成相同的，再重算校验和
+        byte[] bag = new byte[STATE_SIZE];
+        state((BagGenerator) engine.getGenerator()).get(bag);
+        int offset = indexOf(save, bag);
+        save[offset + 9] = save[offset + 10];
+        CRC32 crc = new CRC32();
+        crc.update(save, 0, save.length - 4);
+        ByteBuffer.wrap(save).putInt(save.length - 4, (int) crc.getValue());
+
+        assertThrows(IOException.class, () -> SaveFile.decode(ByteBuffer.wrap(save)));
+    }
+
+    private static int indexOf(byte[] data, byte[] pattern) {
+        outer:
+        for (int i = 0; i + pattern.length <= data.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (data[i + j] != pattern[j]) continue outer;
+            }
+            return i;
+        }
+        throw new IllegalStateException("存档里没有生成器状态");
+    }
+}
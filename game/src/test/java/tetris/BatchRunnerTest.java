@@ -0,0 +1,58 @@
+package tetris;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * 批量自对弈的种子：M 个方块序列互不相同，同一序列上的 K 局策略种子互不相同，
+ * 确定性策略每个序列只跑一局；同样的参数可以复现。
+ */
+class BatchRunnerTest {
+
+    @Test
+    void pieceSeedsAreDistinctAndReproducible() {
+        Set<Long> seen = new HashSet<>();
+        for (int m = 0; m < 1000; m++) {
+            seen.add(BatchRunner.pieceSeed(1, m));
+        }
+        assertEquals(1000, seen.size());
+        assertEquals(BatchRunner.pieceSeed(42, 7), BatchRunner.pieceSeed(42, 7));
+        // 相邻的起始种子不会让两批序列错位重合
+        assertNotEquals(BatchRunner.pieceSeed(1, 1), BatchRunner.pieceSeed(2, 0));
+    }
+
+    @Test
+    void seedsGetDifferentPieceSequences() {
+        Set<String> sequences = new HashSet<>();
+        for (int m = 0; m < 10; m++) {
+            PieceGenerator generator = PieceGenerator.bag(BatchRunner.pieceSeed(1, m));
+            StringBuilder sequence = new StringBuilder();
+            for (int j = 0; j < 21; j++) {
+                sequence.append(generator.next());
+            }
+            sequences.add(sequence.toString());
+        }
+        assertEquals(10, sequences.size());
+    }
+
+    @Test
+    void policySeedsDifferWithinOneSequence() {
+        long pieceSeed = BatchRunner.pieceSeed(1, 0);
+        Set<Long> seen = new HashSet<>();
+        for (int k = 0; k < 100; k++) {
+            seen.add(BatchRunner.policySeed(pieceSeed, k));
+        }
+        assertEquals(100, seen.size());
+    }
+
+    @Test
+    void deterministicPolicyRunsOneGamePerSeed() {
+        assertEquals(1, BatchRunner.gamesPerSeed("search", 10));
+        assertEquals(10, BatchRunner.gamesPerSeed("random", 10));
+    }
+}
@@ -0,0 +1,54 @@
+package tetris;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 停止后立刻重启（如面板换父容器时的 removeNotify/addNotify）不会让两个逻辑线程同时推进。
+ */
+class GameLoopTest {
+
+    // 每个逻辑步忙等一会儿，拉长旧线程停止后还在执行最后一步的窗口
+    private static final class CountingListener implements GameLoop.Listener {
+        final AtomicInteger active = new AtomicInteger();
+        final AtomicInteger maxActive = new AtomicInteger();
+        final AtomicInteger ticks = new AtomicInteger();
+
+        @Override
+        public void tick() {
+            int now = active.incrementAndGet();
+            maxActive.accumulateAndGet(now, Math::max);
+            long end = System.nanoTime() + 2_000_000;
+            while (System.nanoTime() < end) {
+                Thread.onSpinWait();
+            }
+            ticks.incrementAndGet();
+            active.decrementAndGet();
+        }
+
+        @Override
+        public boolean render(double alpha) {
+            return false;
+        }
+    }
+
+    @Test
+    void restartWaitsForPreviousLogicThread() throws InterruptedException {
+        CountingListener listener = new CountingListener();
+        GameLoop loop = new GameLoop(listener, 1000, 0);
+        for (int i = 0; i < 50; i++) {
+            loop.start();
+            Thread.sleep(1);
+            loop.stop();
+        }
+        loop.start();
+        Thread.sleep(50);
+        loop.stop();
+        assertTrue(listener.ticks.get() > 0);
+        assertEquals(1, listener.maxActive.get());
+    }
+}
@@ -0,0 +1,57 @@
+package tetris;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 按下一次且不松开时，按下的那一步只生效一次，重复从下一步才开始。
+ */
+class InputHandlerTest {
+    private TetrisEngine engine;
+    private InputHandler input;
+
+    @BeforeEach
+    void setUp() {
+        engine = new TetrisEngine(PieceGenerator.bag(1), 1);
+        engine.start(1);
+        input = new InputHandler();
+    }
+
+    @Test
+    void softDropPressDropsOneRow() {
+        int y = engine.getCurrentBlock().y;
+        input.keyPressed(InputHandler.SOFT_DROP, 0);
+        input.update(engine);
+        assertEquals(y + 1, engine.getCurrentBlock().y);
+        // 按住不放时每步再降一格
+        input.update(engine);
+        assertEquals(y + 2, engine.getCurrentBlock().y);
+    }
+
+    @Test
+    void horizontalPressMovesOneCellWithShortestDas() {
+        input.setDelayedAutoShift(1);
+        input.setAutoRepeatRate(0);
+        int x = engine.getCurrentBlock().x;
+        input.keyPressed(InputHandler.LEFT, 0);
+        input.update(engine);
+        assertEquals(x - 1, engine.getCurrentBlock().x);
+    }
+
+    @Test
+    void horizontalPressMovesOneCellWithDefaults() {
+        int x = engine.getCurrentBlock().x;
+        input.keyPressed(InputHandler.RIGHT, 0);
+        input.update(engine);
+        assertEquals(x + 1, engine.getCurrentBlock().x);
+        // DAS 之前按住不动
+        for (int i = 1; i < input.getDelayedAutoShift(); i++) {
+            input.update(engine);
+        }
+        assertEquals(x + 1, engine.getCurrentBlock().x);
+        input.update(engine);
+        assertEquals(x + 2, engine.getCurrentBlock().x);
+    }
+}
@@ -0,0 +1,45 @@
+package tetris;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 压缩只换日志不丢历史：旧日志归档，全部对局仍能按顺序读出，重开后排行不变。
+ */
+class LeaderboardTest {
+    private static final int GAMES = 600;  // 跨过两次压缩
+
+    @Test
+    void compactionKeepsEveryGame(@TempDir Path directory) throws Exception {
+        Leaderboard board = Leaderboard.open(directory, Leaderboard.DEFAULT_TOP);
+        int best = 0;
+        for (int i = 0; i < GAMES; i++) {
+            int score = i * 7 % 1000;
+            best = Math.max(best, score);
+            board.record(new GameRecord(score, i % 40, i, Difficulty.EASY, 1000L * i, i, 1_000_000L + i));
+        }
+        board.close(10_000);
+
+        assertTrue(Files.exists(directory.resolve("archive").resolve("scores-0.log")));
+        assertTrue(Files.exists(directory.resolve("archive").resolve("scores-1.log")));
+        List<GameRecord> history = Leaderboard.history(directory);
+        assertEquals(GAMES, history.size());
+        for (int i = 0; i < GAMES; i++) {
+            assertEquals(i, history.get(i).seed);
+            assertEquals(i % 40, history.get(i).lines);
+        }
+
+        Leaderboard reopened = Leaderboard.open(directory, Leaderboard.DEFAULT_TOP);
+        assertEquals(GAMES, reopened.getGamesPlayed(Difficulty.EASY));
+        assertEquals(Leaderboard.DEFAULT_TOP, reopened.top(Difficulty.EASY).size());
+        assertEquals(best, reopened.top(Difficulty.EASY).get(0).score);
+        reopened.close(10_000);
+    }
+}
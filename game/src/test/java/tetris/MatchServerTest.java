@@ -0,0 +1,57 @@
+package tetris;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 配对：等待中的玩家断开后，不能再把下一个连接配给它。
+ */
+class MatchServerTest {
+    private MatchServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = new MatchServer(0, 1, TetrisEngine.BOARD_WIDTH, TetrisEngine.BOARD_HEIGHT);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    private Socket connect() throws IOException {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), server.getPort());
+        socket.setSoTimeout(5000);
+        return socket;
+    }
+
+    // 读第一帧，应为 MATCH_START，返回自己的玩家序号
+    private static int readMatchStart(Socket socket) throws IOException {
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        in.readUnsignedShort();
+        assertEquals(MatchProtocol.MATCH_START, in.readUnsignedByte());
+        return in.readUnsignedByte();
+    }
+
+    @Test
+    void staleWaiterIsSkipped() throws Exception {
+        Socket stale = connect();
+        stale.close();
+        Thread.sleep(100);  // 让服务器先接入这个已断开的连接
+
+        try (Socket a = connect(); Socket b = connect()) {
+            int first = readMatchStart(a);
+            int second = readMatchStart(b);
+            assertEquals(1, first + second);
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package tetris;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * 高棋盘上只搜索堆叠顶部附近的窗口，找到的落点与搜索整个棋盘相同。
+ */
+class PlacementEnumeratorTest {
+    private static final int WIDTH = 10;
+    private static final int HEIGHT = 120;
+
+    // 底部一段随机堆叠，带空洞和悬空结构
+    private static Board randomStack(SplitMix64 random, int stackRows) {
+        Board board = new Board(WIDTH, HEIGHT);
+        for (int y = HEIGHT - stackRows; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                if (random.nextInt(10) < 6) {
+                    board.set(x, y, 1);
+                }
+            }
+        }
+        return board;
+    }
+
+    private static Set<Long> placements(PlacementEnumerator enumerator, int n) {
+        Set<Long> result = new HashSet<>();
+        for (int i = 0; i < n; i++) {
+            result.add(((long) enumerator.rotation(i) << 40) | ((long) (enumerator.x(i) + 8) << 20)
+                    | (enumerator.y(i) + 8));
+        }
+        return result;
+    }
+
+    @Test
+    void windowFindsSamePlacementsAsFullBoard() {
+        PlacementEnumerator full = new PlacementEnumerator(WIDTH, HEIGHT, HEIGHT);
+        PlacementEnumerator window = new PlacementEnumerator(WIDTH, HEIGHT);
+        SplitMix64 random = new SplitMix64(3);
+        for (int round = 0; round < 200; round++) {
+            Board board = randomStack(random, 1 + random.nextInt(30));
+            for (int shape = 0; shape < Block.SHAPE_COUNT; shape++) {
+                int x = TetrisEngine.spawnX(WIDTH);
+                int n = full.enumerate(board, shape, 0, x, TetrisEngine.SPAWN_Y);
+                Set<Long> expected = placements(full, n);
+                Set<Long> actual = placements(window, window.enumerate(board, shape, 0, x, TetrisEngine.SPAWN_Y));
+                assertFalse(expected.isEmpty());
+                assertEquals(expected, actual);
+            }
+        }
+    }
+}
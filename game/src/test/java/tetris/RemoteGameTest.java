@@ -0,0 +1,57 @@
+package tetris;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * STATE 帧里越界的形状和朝向整帧拒绝，不留到绘制时才出错。
+ */
+class RemoteGameTest {
+
+    // 一个不带棋盘行的 STATE 帧正文，从帧号开始，与 RemoteGame.apply() 读取的顺序一致
+    private static ByteBuffer state(int shape, int rotation, int next) {
+        ByteBuffer out = ByteBuffer.allocate(64);
+        MatchProtocol.writeVarint(out, 1);
+        out.put((byte) MatchProtocol.FLAG_BLOCK);
+        out.put((byte) shape);
+        out.put((byte) rotation);
+        MatchProtocol.writeVarint(out, MatchProtocol.zigzag(4));
+        MatchProtocol.writeVarint(out, MatchProtocol.zigzag(0));
+        out.put((byte) next);
+        MatchProtocol.writeVarint(out, 100);
+        MatchProtocol.writeVarint(out, 3);
+        MatchProtocol.writeVarint(out, 0);
+        MatchProtocol.writeVarint(out, 0);
+        out.flip();
+        return out;
+    }
+
+    @Test
+    void appliesValidState() {
+        RemoteGame game = new RemoteGame(10, 20);
+        game.apply(state(6, 1, MatchProtocol.NO_SHAPE));
+        assertEquals(6, game.getCurrentBlock().shape);
+        assertEquals(1, game.getCurrentBlock().rotation);
+        assertNull(game.getNextBlock());
+        assertEquals(100, game.getScore());
+    }
+
+    @Test
+    void rejectsOutOfRangeShapeAndRotation() {
+        RemoteGame game = new RemoteGame(10, 20);
+        game.apply(state(2, 0, 3));
+        assertThrows(IllegalStateException.class, () -> game.apply(state(Block.SHAPE_COUNT, 0, 3)));
+        assertThrows(IllegalStateException.class, () -> game.apply(state(0xFE, 0, 3)));
+        assertThrows(IllegalStateException.class, () -> game.apply(state(2, Block.ROTATIONS, 3)));
+        assertThrows(IllegalStateException.class, () -> game.apply(state(2, 0, Block.SHAPE_COUNT)));
+        // 被拒绝的帧不改动镜像
+        assertEquals(2, game.getCurrentBlock().shape);
+        assertEquals(0, game.getCurrentBlock().rotation);
+        assertEquals(3, game.getNextBlock().shape);
+    }
+}
@@ -0,0 +1,78 @@
+package tetris;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 回放文件头损坏时，打开就报 IOException，不抛数组越界之类的运行时异常。
+ */
+class ReplayPlayerTest {
+    // 文件头各字段的偏移，与 ReplayRecorder 写入的顺序一致
+    private static final int GENERATOR = 6;
+    private static final int LOOKAHEAD = 7;
+    private static final int WIDTH = 8;
+    private static final int HEIGHT = 10;
+    private static final int DIFFICULTY = 20;
+    private static final int GRAVITY = 21;
+    private static final int ROTATION = 29;
+
+    private static ByteBuffer recordGame() {
+        TetrisEngine engine = new TetrisEngine(PieceGenerator.bag(11), 1);
+        ReplayRecorder recorder = new ReplayRecorder();
+        engine.setRecorder(recorder);
+        engine.start(11);
+        while (!engine.isGameOver()) {
+            engine.hardDrop();
+        }
+        return recorder.getLastReplay();
+    }
+
+    private static ByteBuffer copy(ByteBuffer data) {
+        ByteBuffer copy = ByteBuffer.allocate(data.remaining());
+        copy.put(data.duplicate());
+        copy.flip();
+        return copy;
+    }
+
+    @Test
+    void rejectsCorruptHeader() throws IOException {
+        ByteBuffer replay = recordGame();
+        new ReplayPlayer(replay);
+
+        ByteBuffer difficulty = copy(replay);
+        difficulty.put(DIFFICULTY, (byte) Difficulty.values().length);
+        assertThrows(IOException.class, () -> new ReplayPlayer(difficulty));
+
+        ByteBuffer negativeDifficulty = copy(replay);
+        negativeDifficulty.put(DIFFICULTY, (byte) -1);
+        assertThrows(IOException.class, () -> new ReplayPlayer(negativeDifficulty));
+
+        ByteBuffer rotation = copy(replay);
+        rotation.put(ROTATION, (byte) RotationSystem.values().length);
+        assertThrows(IOException.class, () -> new ReplayPlayer(rotation));
+
+        ByteBuffer width = copy(replay);
+        width.putShort(WIDTH, (short) 0);
+        assertThrows(IOException.class, () -> new ReplayPlayer(width));
+
+        ByteBuffer height = copy(replay);
+        height.putShort(HEIGHT, (short) -5);
+        assertThrows(IOException.class, () -> new ReplayPlayer(height));
+
+        ByteBuffer generator = copy(replay);
+        generator.put(GENERATOR, (byte) 9);
+        assertThrows(IOException.class, () -> new ReplayPlayer(generator));
+
+        ByteBuffer lookahead = copy(replay);
+        lookahead.put(LOOKAHEAD, (byte) 0);
+        assertThrows(IOException.class, () -> new ReplayPlayer(lookahead));
+
+        ByteBuffer gravity = copy(replay);
+        gravity.putDouble(GRAVITY, Double.NaN);
+        assertThrows(IOException.class, () -> new ReplayPlayer(gravity));
+    }
+}
@@ -0,0 +1,117 @@
+package tetris;
+
+import org.junit.jupiter.api.Test;
+
+import javax.swing.SwingUtilities;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 面板内回放：放完后校验结果经 GameEndListener 交给界面。面板不显示，由测试直接推进逻辑步。
+ */
+class TetrisPanelTest {
+    private static final int MAX_TICKS = 1_000_000;
+
+    // 一局固定步长的对局：逐步下落，隔一段硬降一次，直到结束
+    private static ByteBuffer recordGame() {
+        TetrisEngine engine = new TetrisEngine(PieceGenerator.bag(7), 1);
+        ReplayRecorder recorder = new ReplayRecorder();
+        engine.setRecorder(recorder);
+        engine.start(7);
+        for (int i = 0; !engine.isGameOver(); i++) {
+            engine.tick();
+            if (i % 10 == 9) {
+                engine.hardDrop();
+            }
+        }
+        return recorder.getLastReplay();
+    }
+
+    // 在面板里放完录像，返回监听器收到的结果
+    private static String[] playInPanel(ByteBuffer data) throws Exception {
+        ReplayPlayer player = new ReplayPlayer(data);
+        TetrisPanel panel = new TetrisPanel(player.createEngine());
+        String[] result = new String[2];  // {是否收到回放结束, 不一致说明}
+        panel.setGameEndListener(new TetrisPanel.GameEndListener() {
+            @Override
+            public void onGameEnd(int finalScore) {
+                result[0] = "对局结束";
+            }
+
+            @Override
+            public void onReplayEnd(int finalScore, String mismatch) {
+                result[0] = "回放结束";
+                result[1] = mismatch;
+            }
+        });
+        panel.playReplay(player);
+        panel.logicTick();
+        assertTrue(panel.isReplaying());
+        for (int i = 0; i < MAX_TICKS && panel.isReplaying(); i++) {
+            panel.logicTick();
+        }
+        assertFalse(panel.isReplaying());
+        SwingUtilities.invokeAndWait(() -> { });  // 监听器在 EDT 上调用
+        return result;
+    }
+
+    // 面板自动游戏放置若干块后重开一局，录像在重开时收尾
+    private static ByteBuffer recordAutoPlay(int pieces) {
+        TetrisEngine engine = new TetrisEngine(PieceGenerator.bag(9), 1);
+        TetrisPanel panel = new TetrisPanel(engine);
+        ReplayRecorder recorder = new ReplayRecorder();
+        engine.setRecorder(recorder);
+        engine.start(9);
+        panel.setAutoPlay(true);
+        for (int i = 0; i < MAX_TICKS && engine.getPiecesPlaced() < pieces && !engine.isGameOver(); i++) {
+            panel.tickOffscreen();
+        }
+        // 每放一块推进一帧，录下的放置不会挤在同一帧
+        assertEquals(engine.getPiecesPlaced(), engine.getFrame());
+        engine.start(10);
+        return recorder.getLastReplay();
+    }
+
+    @Test
+    void autoPlayReplaysOnePiecePerFrame() throws Exception {
+        ByteBuffer data = recordAutoPlay(20);
+        ReplayPlayer player = new ReplayPlayer(data);
+        TetrisEngine engine = player.createEngine();
+        player.start(engine);
+        int frames = 0;
+        int pieces = 0;
+        while (player.advance(engine)) {
+            assertTrue(engine.getPiecesPlaced() - pieces <= 1);
+            pieces = engine.getPiecesPlaced();
+            frames++;
+        }
+        assertEquals(20, engine.getPiecesPlaced());
+        assertTrue(frames >= 19);
+        assertNull(player.verify(engine));
+    }
+
+    @Test
+    void replayEndReportsSuccess() throws Exception {
+        String[] result = playInPanel(recordGame());
+        assertEquals("回放结束", result[0]);
+        assertNull(result[1]);
+    }
+
+    @Test
+    void replayEndReportsMismatch() throws Exception {
+        ByteBuffer original = recordGame();
+        ByteBuffer tampered = ByteBuffer.allocate(original.remaining());
+        tampered.put(original).flip();
+        int scoreOffset = tampered.limit() - ReplayRecorder.FOOTER_SIZE + 8;
+        tampered.putInt(scoreOffset, tampered.getInt(scoreOffset) + 1);
+
+        String[] result = playInPanel(tampered);
+        assertEquals("回放结束", result[0]);
+        assertNotNull(result[1]);
+    }
+}
@@ -0,0 +1,33 @@
+package tetris;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 适应度：消行数为主，封顶存活的局按棋面干净程度再分高下，但不超过一行。
+ */
+class WeightTunerTest {
+
+    private static BatchRunner.GameResult result(int lines, boolean gameOver, int stackHeight, int holes) {
+        return new BatchRunner.GameResult(1, 0, lines, 5000, 100, gameOver, stackHeight, holes);
+    }
+
+    @Test
+    void survivorsAreRankedByBoardQuality() {
+        double clean = WeightTuner.fitness(result(1990, false, 2, 0));
+        double messy = WeightTuner.fitness(result(1990, false, 12, 5));
+        assertTrue(clean > messy);
+        assertTrue(messy > 1990);
+        assertTrue(clean < 1991);
+        // 多消一行总是胜过棋面干净
+        assertTrue(WeightTuner.fitness(result(1991, false, 19, 40)) > clean);
+    }
+
+    @Test
+    void lostGamesScoreLinesOnly() {
+        assertEquals(300, WeightTuner.fitness(result(300, true, 20, 3)));
+        assertTrue(WeightTuner.fitness(result(300, false, 20, 3)) > 300);
+    }
+}